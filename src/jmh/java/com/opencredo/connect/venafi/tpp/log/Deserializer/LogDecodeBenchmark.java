@@ -0,0 +1,78 @@
+package com.opencredo.connect.venafi.tpp.log.Deserializer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.opencredo.connect.venafi.tpp.log.LogCorpus;
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+import com.opencredo.connect.venafi.tpp.log.model.EventLog;
+import com.opencredo.connect.venafi.tpp.log.model.LogResponse;
+import com.opencredo.connect.venafi.tpp.log.model.OutputFormat;
+import org.apache.kafka.connect.data.Struct;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding one /vedsdk/Log page: the streaming decoder LogsClient uses against the reflective Gson decode
+ * followed by {@link EventLog#toStruct()} that it replaced, and the raw scan of the bytes and string output formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogDecodeBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int pageSize;
+
+    @Param({"0", "512", "8192"})
+    public int dataSize;
+
+    private final EventLogStreamDecoder streamDecoder = new EventLogStreamDecoder();
+    private final RawEventScanner rawScanner = new RawEventScanner();
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeDeserializer())
+            .create();
+    private byte[] response;
+
+    @Setup
+    public void setUp() {
+        response = LogCorpus.response(pageSize, dataSize);
+    }
+
+    @Benchmark
+    public List<DecodedEvent> streamDecode() throws IOException {
+        try (Reader body = body()) {
+            return streamDecoder.decode(body);
+        }
+    }
+
+    @Benchmark
+    public List<DecodedEvent> rawScan() throws IOException {
+        return rawScanner.decode(new ByteArrayInputStream(response), OutputFormat.BYTES);
+    }
+
+    @Benchmark
+    public void gsonDecodeAndToStruct(Blackhole blackhole) throws IOException {
+        try (Reader body = body()) {
+            for (EventLog event : gson.fromJson(body, LogResponse.class).getLogEvents()) {
+                Struct struct = event.toStruct();
+                blackhole.consume(struct);
+            }
+        }
+    }
+
+    private Reader body() {
+        return new InputStreamReader(new ByteArrayInputStream(response), StandardCharsets.UTF_8);
+    }
+}
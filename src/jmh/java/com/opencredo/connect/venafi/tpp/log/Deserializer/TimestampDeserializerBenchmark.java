@@ -0,0 +1,55 @@
+package com.opencredo.connect.venafi.tpp.log.Deserializer;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One timestamp through each of the Gson deserializers, in the formats TPP and the test doubles send.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimestampDeserializerBenchmark {
+
+    private final ZonedDateTimeDeserializer zonedDateTimeDeserializer = new ZonedDateTimeDeserializer();
+    private final DotNetDateDeserializer dotNetDateDeserializer = new DotNetDateDeserializer();
+    private final EpochSecondsDeserializer epochSecondsDeserializer = new EpochSecondsDeserializer();
+
+    private final JsonElement localDateTime = new JsonPrimitive("2019-10-17T15:23:07.9671234");
+    private final JsonElement utcDateTime = new JsonPrimitive("2019-10-17T15:23:06.9830000Z");
+    private final JsonElement offsetDateTime = new JsonPrimitive("2019-10-17T16:23:06.9830000+01:00");
+    private final JsonElement dotNetDate = new JsonPrimitive("/Date(1571325786983+0100)/");
+    private final JsonElement epochSeconds = new JsonPrimitive("1571325786");
+
+    @Benchmark
+    public ZonedDateTime zonedDateTimeLocal() {
+        return zonedDateTimeDeserializer.deserialize(localDateTime, ZonedDateTime.class, null);
+    }
+
+    @Benchmark
+    public ZonedDateTime zonedDateTimeUtc() {
+        return zonedDateTimeDeserializer.deserialize(utcDateTime, ZonedDateTime.class, null);
+    }
+
+    @Benchmark
+    public ZonedDateTime zonedDateTimeOffset() {
+        return zonedDateTimeDeserializer.deserialize(offsetDateTime, ZonedDateTime.class, null);
+    }
+
+    @Benchmark
+    public ZonedDateTime dotNetDate() {
+        return dotNetDateDeserializer.deserialize(dotNetDate, ZonedDateTime.class, null);
+    }
+
+    @Benchmark
+    public ZonedDateTime epochSeconds() {
+        return epochSecondsDeserializer.deserialize(epochSeconds, ZonedDateTime.class, null);
+    }
+}
@@ -0,0 +1,85 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Builds /vedsdk/Log responses shaped like the ones TPP returns, so the benchmarks don't depend on a live server.
+ * Events cycle through a handful of real event types and carry a Data payload of the requested size.
+ */
+public final class LogCorpus {
+
+    public static final DateTimeFormatter TPP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSS");
+    public static final ZonedDateTime START = ZonedDateTime.of(2019, 10, 17, 15, 23, 6, 983_000_000, ZoneOffset.UTC);
+
+    private static final Object[][] EVENT_TYPES = {
+            {65542L, "Log - SMTP Configuration Error", "Notice", "\\VED\\Logging\\Channels\\Templates\\Email to Consumer - Certificate Expired", "Config", null},
+            {1835016L, "Certificate Revocation - CRL Failure", "Info", "\\VED\\Policy\\Certificates\\traininglab-Root-CA", "Config", "1C0008"},
+            {3276808L, "Certificate Monitor - Certificate Expiring", "Warning", "\\VED\\Policy\\Certificates\\www.example.com", "CertificateMonitor", "320008"},
+            {2097155L, "Session - Login Success", "Info", "\\VED\\Identity\\local:admin", "Session", "200003"},
+    };
+
+    private LogCorpus() {
+    }
+
+    public static byte[] response(int pageSize, int dataSize) {
+        return responseJson(pageSize, dataSize).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static String responseJson(int pageSize, int dataSize) {
+        StringWriter json = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(json)) {
+            writer.beginObject();
+            writer.name("LogEvents").beginArray();
+            for (int i = 0; i < pageSize; i++) {
+                writeEvent(writer, i, dataSize);
+            }
+            writer.endArray();
+            writer.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return json.toString();
+    }
+
+    private static void writeEvent(JsonWriter writer, int index, int dataSize) throws IOException {
+        Object[] type = EVENT_TYPES[index % EVENT_TYPES.length];
+        //A few events share each timestamp, as happens when TPP logs a burst.
+        ZonedDateTime client = START.plusNanos((index / 3) * 1_234_500L);
+        writer.beginObject();
+        writer.name("ClientTimestamp").value(client.format(TPP_FORMAT));
+        writer.name("Component").value((String) type[3]);
+        writer.name("ComponentId").value(100 + index % 50);
+        writer.name("ComponentSubsystem").value((String) type[4]);
+        writer.name("Data").value(dataSize == 0 ? null : data(index, dataSize));
+        writer.name("EventId").value((String) type[5]);
+        writer.name("Grouping").value(index % 8);
+        writer.name("Id").value((Long) type[0]);
+        writer.name("Name").value((String) type[1]);
+        writer.name("ServerTimestamp").value(client.plusNanos(984_000_000L).format(TPP_FORMAT));
+        writer.name("Severity").value((String) type[2]);
+        writer.name("SourceIP").value("10.0." + index % 256 + ".1");
+        writer.name("Text1").value("CN=traininglab-Root-CA");
+        writer.name("Text2").value("ldap:///CN=traininglab-Root-CA,CN=Servers,CN=Configuration");
+        writer.name("Value1").value(index % 2);
+        writer.name("Value2").value(0);
+        writer.endObject();
+    }
+
+    private static String data(int index, int dataSize) {
+        StringBuilder data = new StringBuilder(dataSize);
+        data.append("<event id=\"").append(index).append("\">");
+        while (data.length() < dataSize - "</event>".length()) {
+            data.append("<attribute name=\"Certificate\" value=\"MIIDdzCCAl+gAwIBAgIEAgAAuTANBgkqhkiG9w0BAQUFADBa\"/>");
+        }
+        data.setLength(Math.max(0, dataSize - "</event>".length()));
+        return data.append("</event>").toString();
+    }
+}
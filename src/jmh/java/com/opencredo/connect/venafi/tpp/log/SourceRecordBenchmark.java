@@ -0,0 +1,83 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.Deserializer.EventLogStreamDecoder;
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.source.SourceTaskContext;
+import org.apache.kafka.connect.storage.OffsetStorageReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a decoded page into SourceRecords, the cursor bookkeeping and offset maps included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SourceRecordBenchmark {
+
+    private static final String BASE_URL = "https://localhost:8443";
+
+    @Param({"10", "100", "1000"})
+    public int pageSize;
+
+    private final TppLogSourceTask task = new TppLogSourceTask();
+    private List<DecodedEvent> page;
+
+    @Setup
+    public void setUp() throws IOException {
+        Map<String, String> props = new HashMap<>();
+        props.put(TppLogSourceConfig.BASE_URL_CONFIG, BASE_URL);
+        props.put(TppLogSourceConfig.USERNAME_CONFIG, "benchmark");
+        props.put(TppLogSourceConfig.PASSWORD_CONFIG, "benchmark");
+        props.put(TppLogSourceConfig.SCOPE_CONFIG, "any");
+        props.put(TppLogSourceConfig.CLIENT_ID_CONFIG, "benchmark");
+        props.put(TppLogSourceConfig.BATCH_SIZE, String.valueOf(pageSize));
+        task.initialize(new EmptyContext());
+        task.start(new TppLogSourceConfig(props).returnPropertiesWithDefaultsValuesIfMissing());
+        page = new EventLogStreamDecoder().decode(new StringReader(LogCorpus.responseJson(pageSize, 512)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        task.stop();
+    }
+
+    @Benchmark
+    public List<SourceRecord> getTppLogsAsSourceRecords() {
+        return task.getTppLogsAsSourceRecords(new LogPage(LogWindow.tail(BASE_URL, TppLogSourceTask.DEFAULT_FROM_TIME), page, pageSize, false));
+    }
+
+    private static final class EmptyContext implements SourceTaskContext {
+        @Override
+        public Map<String, String> configs() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public OffsetStorageReader offsetStorageReader() {
+            return new OffsetStorageReader() {
+                @Override
+                public <T> Map<String, Object> offset(Map<String, T> partition) {
+                    return null;
+                }
+
+                @Override
+                public <T> Map<Map<String, T>, Map<String, Object>> offsets(Collection<Map<String, T>> partitions) {
+                    return Collections.emptyMap();
+                }
+            };
+        }
+    }
+}
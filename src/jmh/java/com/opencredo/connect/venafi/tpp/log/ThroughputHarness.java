@@ -0,0 +1,191 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.simulator.InMemoryOffsets;
+import com.opencredo.connect.venafi.tpp.log.simulator.SyntheticEventStream;
+import com.opencredo.connect.venafi.tpp.log.simulator.TppSimulator;
+import org.apache.kafka.connect.source.SourceRecord;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives a task end to end against an in-process {@link TppSimulator}, committing offsets to memory the way the
+ * worker would, and reports the sustained events per second and the poll latency. Without live.rate it reads a
+ * backlog as fast as it can; with it, events are logged at that rate and it reports whether the task keeps up.
+ * With replay.dir it replays a capture of real TPP traffic instead, until the task has read nothing for idle.s.
+ * <p>
+ * Settings are key=value arguments, e.g.
+ * {@code mvn -Pbenchmark test-compile exec:exec@throughput -Dthroughput.args="events=200000 data.size=4096 prefetch=2"}
+ */
+public final class ThroughputHarness {
+
+    private static final Map<String, String> DEFAULTS = new HashMap<>();
+
+    static {
+        DEFAULTS.put("events", "1000000");
+        DEFAULTS.put("per.timestamp", "3");
+        DEFAULTS.put("data.size", "512");
+        DEFAULTS.put("live.rate", "0");
+        DEFAULTS.put("duration.s", "60");
+        DEFAULTS.put("batch.size", "1000");
+        DEFAULTS.put("adaptive", "false");
+        DEFAULTS.put("prefetch", "0");
+        DEFAULTS.put("latency.ms", "0");
+        DEFAULTS.put("jitter.ms", "0");
+        DEFAULTS.put("failure.rate", "0");
+        DEFAULTS.put("failure.status", "503");
+        DEFAULTS.put("retry.after.s", "0");
+        DEFAULTS.put("token.lifetime.s", "3600");
+        DEFAULTS.put("capture.dir", "");
+        DEFAULTS.put("replay.dir", "");
+        DEFAULTS.put("replay.speed", "0");
+        DEFAULTS.put("idle.s", "2");
+    }
+
+    private final Map<String, String> settings;
+    private long[] pollNanos = new long[1024];
+    private int polls;
+
+    private ThroughputHarness(Map<String, String> settings) {
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 0 || !DEFAULTS.containsKey(arg.substring(0, equals))) {
+                throw new IllegalArgumentException("Unknown setting " + arg + ", expected key=value with a key in " + DEFAULTS.keySet());
+            }
+            settings.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        new ThroughputHarness(settings).run();
+    }
+
+    private void run() throws Exception {
+        if (!settings.get("replay.dir").isEmpty()) {
+            replay();
+            return;
+        }
+        long events = Long.parseLong(settings.get("events"));
+        double liveRate = Double.parseDouble(settings.get("live.rate"));
+        int perTimestamp = Integer.parseInt(settings.get("per.timestamp"));
+        int dataSize = Integer.parseInt(settings.get("data.size"));
+        SyntheticEventStream stream = liveRate > 0
+                ? new SyntheticEventStream(Instant.now(), liveRate, perTimestamp, Long.MAX_VALUE, dataSize, true)
+                : SyntheticEventStream.backlog(events, perTimestamp, dataSize);
+
+        try (TppSimulator simulator = new TppSimulator(stream)
+                .withLatency(Long.parseLong(settings.get("latency.ms")), Long.parseLong(settings.get("jitter.ms")))
+                .withFailures(Double.parseDouble(settings.get("failure.rate")), Integer.parseInt(settings.get("failure.status")), Integer.parseInt(settings.get("retry.after.s")))
+                .withTokenLifetime(Long.parseLong(settings.get("token.lifetime.s")))
+                .start()) {
+            InMemoryOffsets offsets = new InMemoryOffsets();
+            TppLogSourceTask task = new TppLogSourceTask();
+            task.initialize(offsets);
+            task.start(taskConfig(simulator.getBaseUrl(), liveRate > 0));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Long.parseLong(settings.get("duration.s")));
+            long start = System.nanoTime();
+            long read = 0;
+            while ((liveRate > 0 || read < events) && System.nanoTime() < deadline) {
+                read += poll(task, offsets);
+            }
+            long elapsed = System.nanoTime() - start;
+            task.stop();
+            report(read, elapsed, liveRate > 0 ? stream.visibleEnd(epochNanosNow()) : events);
+            reportRequests(simulator, elapsed);
+        }
+    }
+
+    private void replay() {
+        InMemoryOffsets offsets = new InMemoryOffsets();
+        TppLogSourceTask task = new TppLogSourceTask();
+        task.initialize(offsets);
+        Map<String, String> config = taskConfig("http://replay.invalid", false);
+        config.put(TppLogSourceConfig.REPLAY_DIR_CONFIG, settings.get("replay.dir"));
+        config.put(TppLogSourceConfig.REPLAY_SPEED_CONFIG, settings.get("replay.speed"));
+        task.start(config);
+
+        long idleNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(settings.get("idle.s")));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Long.parseLong(settings.get("duration.s")));
+        long start = System.nanoTime();
+        long lastRead = start;
+        long read = 0;
+        while (System.nanoTime() - lastRead < idleNanos && System.nanoTime() < deadline) {
+            int polled = poll(task, offsets);
+            if (polled > 0) {
+                read += polled;
+                lastRead = System.nanoTime();
+            }
+        }
+        task.stop();
+        report(read, lastRead - start, read);
+    }
+
+    private int poll(TppLogSourceTask task, InMemoryOffsets offsets) {
+        long pollStart = System.nanoTime();
+        List<SourceRecord> records = task.poll();
+        recordPoll(System.nanoTime() - pollStart);
+        offsets.commit(records);
+        return records.size();
+    }
+
+    private Map<String, String> taskConfig(String baseUrl, boolean live) {
+        Map<String, String> config = new HashMap<>();
+        config.put(TppLogSourceConfig.BASE_URL_CONFIG, baseUrl);
+        config.put(TppLogSourceConfig.USERNAME_CONFIG, "harness");
+        config.put(TppLogSourceConfig.PASSWORD_CONFIG, "harness");
+        config.put(TppLogSourceConfig.SCOPE_CONFIG, "any");
+        config.put(TppLogSourceConfig.CLIENT_ID_CONFIG, "harness");
+        config.put(TppLogSourceConfig.BATCH_SIZE, settings.get("batch.size"));
+        config.put(TppLogSourceConfig.BATCH_ADAPTIVE_CONFIG, settings.get("adaptive"));
+        config.put(TppLogSourceConfig.PREFETCH_PAGES_CONFIG, settings.get("prefetch"));
+        config.put(TppLogSourceConfig.CAPTURE_DIR_CONFIG, settings.get("capture.dir"));
+        //A live stream is polled as often as a worker would, a backlog is read back to back.
+        config.put(TppLogSourceConfig.POLL_INTERVAL, live ? "1000" : "0");
+        return new TppLogSourceConfig(config).returnPropertiesWithDefaultsValuesIfMissing();
+    }
+
+    private void recordPoll(long nanos) {
+        if (polls == pollNanos.length) {
+            pollNanos = Arrays.copyOf(pollNanos, polls * 2);
+        }
+        pollNanos[polls++] = nanos;
+    }
+
+    private void report(long read, long elapsedNanos, long logged) {
+        long[] sorted = Arrays.copyOf(pollNanos, polls);
+        Arrays.sort(sorted);
+        double seconds = elapsedNanos / 1e9;
+        System.out.println("Settings:            " + settings);
+        System.out.printf(Locale.ROOT, "Events read:         %d of %d logged in %.2f s%n", read, logged, seconds);
+        System.out.printf(Locale.ROOT, "Throughput:          %.0f events/s%n", read / seconds);
+        System.out.printf(Locale.ROOT, "Poll latency (ms):   p50 %.2f, p99 %.2f, max %.2f over %d polls%n",
+                percentileMs(sorted, 50), percentileMs(sorted, 99), percentileMs(sorted, 100), polls);
+    }
+
+    private static void reportRequests(TppSimulator simulator, long elapsedNanos) {
+        System.out.printf(Locale.ROOT, "Responses:           %.1f MB/s%n", simulator.getBytesServed() / (elapsedNanos / 1e9) / 1e6);
+        System.out.printf(Locale.ROOT, "TPP requests:        %d log, %d authorize, %d refresh, %d failed on purpose%n",
+                simulator.getLogRequests(), simulator.getAuthorizeRequests(), simulator.getRefreshRequests(), simulator.getFailuresInjected());
+    }
+
+    private static double percentileMs(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0d;
+        }
+        int index = (int) Math.ceil(percentile / 100d * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static long epochNanosNow() {
+        Instant now = Instant.now();
+        return TimeUnit.SECONDS.toNanos(now.getEpochSecond()) + now.getNano();
+    }
+}
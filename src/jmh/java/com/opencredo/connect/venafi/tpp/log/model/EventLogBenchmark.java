@@ -0,0 +1,41 @@
+package com.opencredo.connect.venafi.tpp.log.model;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.opencredo.connect.venafi.tpp.log.Deserializer.ZonedDateTimeDeserializer;
+import com.opencredo.connect.venafi.tpp.log.LogCorpus;
+import org.apache.kafka.connect.data.Struct;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EventLog#toStruct()} for a single, already decoded event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventLogBenchmark {
+
+    @Param({"0", "512", "8192"})
+    public int dataSize;
+
+    private EventLog event;
+
+    @Setup
+    public void setUp() {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeDeserializer())
+                .create();
+        event = gson.fromJson(LogCorpus.responseJson(2, dataSize), LogResponse.class).getLogEvents().get(1);
+    }
+
+    @Benchmark
+    public Struct toStruct() {
+        return event.toStruct();
+    }
+}
@@ -0,0 +1,257 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.api.client.AsyncLogsClient;
+import com.opencredo.connect.venafi.tpp.log.api.client.TokenClient;
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps log requests to all the endpoints of a task in flight at once from a single thread, instead of a thread
+ * blocked on each request. Every window has at most one request in flight, since its next request starts where the
+ * previous page ended, so an endpoint only has several in flight across its windows, up to its limit.
+ * <p>
+ * Like {@link LogPrefetcher} pages carry the task's own windows while the fetcher walks copies of them, and are
+ * handed over in order through a bounded queue. A request is only sent while its page is sure to fit in the queue,
+ * so a task that falls behind stops requests rather than buffering pages. Tokens are got and responses decoded on
+ * the workers, whatever the requests complete with is handed back to the fetcher's thread, which alone moves the
+ * copies of the windows and the batch sizes.
+ */
+public class AsyncLogFetcher implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(AsyncLogFetcher.class);
+
+    //How long to wait for the task to make room in a full queue before checking again.
+    private static final long QUEUE_FULL_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(PollScheduler.MAX_BLOCK_MS);
+
+    private final BlockingQueue<LogPage> pages;
+    private final int capacity;
+    private final BlockingQueue<Runnable> completions = new LinkedBlockingQueue<>();
+    private final List<Lane> lanes = new ArrayList<>();
+    private final ExecutorService workers;
+    private final long intervalNanos;
+    private final boolean catchUp;
+    private final int maxInFlight;
+    private int inFlight;
+    private volatile boolean stopped;
+    private Thread thread;
+
+    /**
+     * @param clients     the client of each reader, in the same order.
+     * @param maxInFlight requests each endpoint may have in flight at once.
+     * @param workers     runs token requests and callbacks that may block, shared with the clients decoding.
+     */
+    AsyncLogFetcher(BlockingQueue<LogPage> pages, List<EndpointReader> readers, List<AsyncLogsClient> clients,
+                           ExecutorService workers, long intervalMs, boolean catchUp, int maxInFlight) {
+        this.pages = pages;
+        this.capacity = pages.remainingCapacity();
+        for (int i = 0; i < readers.size(); i++) {
+            lanes.add(new Lane(readers.get(i), clients.get(i)));
+        }
+        this.workers = workers;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+        this.catchUp = catchUp;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public void start(String name) {
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        stopped = true;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!stopped) {
+                long waitNanos = sendDueRequests();
+                Runnable completion = completions.poll(waitNanos, TimeUnit.NANOSECONDS);
+                while (completion != null) {
+                    try {
+                        completion.run();
+                    } catch (RuntimeException e) {
+                        log.error("Caught following exception while fetching, ignoring to ensure connector doesn't fail", e);
+                    }
+                    completion = completions.poll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.debug("Fetcher {} stopped.", Thread.currentThread().getName());
+    }
+
+    /**
+     * @return how long until the next request is due, to wait for if no request completes first.
+     */
+    private long sendDueRequests() {
+        long now = System.nanoTime();
+        long waitNanos = MAX_WAIT_NANOS;
+        for (Lane lane : lanes) {
+            if (lane.backOffUntilNanos - now > 0) {
+                waitNanos = Math.min(waitNanos, lane.backOffUntilNanos - now);
+                continue;
+            }
+            //Earlier windows first, so backfill moves forward in time.
+            for (int i = 0; i < lane.ahead.size() && lane.inFlight < maxInFlight; i++) {
+                LogWindow window = lane.ahead.get(i);
+                if (window.isExhausted() || lane.busy.contains(window)) {
+                    continue;
+                }
+                long due = lane.dueNanos.get(window) - now;
+                if (due > 0) {
+                    waitNanos = Math.min(waitNanos, due);
+                } else if (inFlight + pages.size() >= capacity) {
+                    return QUEUE_FULL_WAIT_NANOS;
+                } else {
+                    send(lane, window, i);
+                }
+            }
+        }
+        return waitNanos;
+    }
+
+    private void send(Lane lane, LogWindow window, int index) {
+        lane.inFlight++;
+        inFlight++;
+        lane.busy.add(window);
+        int limit = lane.reader.getBatchSizes().getLimit();
+        String fromDate = window.getFromDate();
+        String toDate = window.getToDate();
+        long apiOffset = window.getApiOffset();
+        TokenClient tokenClient = lane.reader.getTokenClient();
+        TppLogSourceMetrics metrics = lane.reader.getMetrics();
+        long start = System.nanoTime();
+        CompletableFuture.supplyAsync(() -> {
+            long authStart = System.nanoTime();
+            String token = tokenClient.getToken();
+            metrics.recordAuth(System.nanoTime() - authStart);
+            return token;
+        }, workers).thenCompose(token -> {
+            if (!TppLogSourceTask.isNotNullOrBlank(token)) {
+                return CompletableFuture.completedFuture(new Fetched(token, null));
+            }
+            return lane.client.getLogs(token, fromDate, toDate, String.valueOf(limit), apiOffset)
+                    .thenApply(result -> new Fetched(token, result));
+        }).whenComplete((fetched, error) -> completions.add(() -> {
+            lane.inFlight--;
+            inFlight--;
+            lane.busy.remove(window);
+            if (error != null) {
+                log.error("Fetching {} of {} failed, trying again after the poll interval", window, lane.reader.getEndpoint(), error);
+                lane.dueNanos.put(window, System.nanoTime() + intervalNanos);
+            } else {
+                fetched(lane, window, index, limit, System.nanoTime() - start, fetched);
+            }
+        }));
+    }
+
+    private void fetched(Lane lane, LogWindow window, int index, int limit, long requestNanos, Fetched fetched) {
+        EndpointReader reader = lane.reader;
+        if (fetched.result == null) {
+            retryLater(lane, window, reader.getTokenClient().getCircuitBreaker().getBackoffRemainingMs());
+            return;
+        }
+        AsyncLogsClient.Result result = fetched.result;
+        switch (result.getOutcome()) {
+            case OK:
+                List<DecodedEvent> events = result.getEvents();
+                reader.getBatchSizes().pageFetched(limit, events.size(), requestNanos, result.getResponseBytes());
+                reader.getMetrics().recordFetch(limit, events.size(), requestNanos, result.getDecodeNanos(), result.getResponseBytes());
+                for (DecodedEvent event : events) {
+                    if (!window.accept(event)) {
+                        break;
+                    }
+                }
+                LogPage page = new LogPage(lane.windows.get(index), events, limit, result.isTruncated());
+                window.pageDone(page.isFull());
+                if (!events.isEmpty()) {
+                    //Never blocks, requests are only sent while there is room for their page.
+                    pages.offer(page);
+                }
+                //A full page means there is more to read right away, a short page means the window caught up.
+                boolean moreAvailable = catchUp && page.isFull();
+                lane.dueNanos.put(window, moreAvailable ? System.nanoTime() : System.nanoTime() + intervalNanos);
+                break;
+            case UNAUTHORIZED:
+                reader.getTokenClient().invalidate(fetched.token);
+                retryLater(lane, window, 0L);
+                break;
+            case FAILED:
+                reader.getBatchSizes().fetchFailed(limit);
+                retryLater(lane, window, lane.client.getCircuitBreaker().getBackoffRemainingMs());
+                break;
+            default:
+                retryLater(lane, window, lane.client.getCircuitBreaker().getBackoffRemainingMs());
+        }
+    }
+
+    /**
+     * Holds off the endpoint for the backoff and the window for at least the poll interval, as nothing was fetched.
+     * The backoff is 0 while another window's trial request is in flight on the shared breaker, and without the
+     * interval the window would be sent again straight away, only to be skipped again.
+     */
+    private void retryLater(Lane lane, LogWindow window, long backoffMs) {
+        long now = System.nanoTime();
+        long backoffNanos = TimeUnit.MILLISECONDS.toNanos(backoffMs);
+        if (now + backoffNanos - lane.backOffUntilNanos > 0) {
+            lane.backOffUntilNanos = now + backoffNanos;
+        }
+        lane.dueNanos.put(window, now + Math.max(backoffNanos, intervalNanos));
+    }
+
+    //The state of one endpoint, only touched by the fetcher's thread.
+    private static final class Lane {
+        private final EndpointReader reader;
+        private final AsyncLogsClient client;
+        private final List<LogWindow> windows;
+        private final List<LogWindow> ahead;
+        private final Map<LogWindow, Long> dueNanos = new IdentityHashMap<>();
+        private final Set<LogWindow> busy = Collections.newSetFromMap(new IdentityHashMap<>());
+        private long backOffUntilNanos = System.nanoTime();
+        private int inFlight;
+
+        private Lane(EndpointReader reader, AsyncLogsClient client) {
+            this.reader = reader;
+            this.client = client;
+            this.windows = reader.getWindows();
+            this.ahead = new ArrayList<>(windows.size());
+            long now = System.nanoTime();
+            windows.forEach(window -> {
+                LogWindow copy = window.copy();
+                ahead.add(copy);
+                dueNanos.put(copy, now);
+            });
+        }
+    }
+
+    //A token and what the request made with it completed with, null if there was no token to make it with.
+    private static final class Fetched {
+        private final String token;
+        private final AsyncLogsClient.Result result;
+
+        private Fetched(String token, AsyncLogsClient.Result result) {
+            this.token = token;
+            this.result = result;
+        }
+    }
+}
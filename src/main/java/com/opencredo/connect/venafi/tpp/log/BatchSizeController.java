@@ -0,0 +1,102 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks the Limit of the next log request. With adaptive sizing it starts at the minimum and follows AIMD:
+ * a full page that came back within the target latency and byte budget adds a fixed step, a slow, oversized
+ * or failed request halves the limit. Without it the limit stays at the configured batch size.
+ * <p>
+ * With a page byte budget, requests ask for no more events than fit in it at the size of the events seen last, so
+ * responses stay about the size of the pages the task keeps of them.
+ */
+public class BatchSizeController {
+    private static final Logger log = LoggerFactory.getLogger(BatchSizeController.class);
+    //Climbing from the minimum to the maximum takes this many full, fast pages.
+    private static final int STEPS_TO_MAX = 20;
+
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final int step;
+    private final long targetLatencyNanos;
+    private final long maxResponseBytes;
+    private final long maxPageBytes;
+    private volatile int batchSize;
+    //Response bytes per event of the last page with events, 0 before the first.
+    private volatile long eventBytes;
+
+    /**
+     * @param maxPageBytes bytes of events a page may hold, 0 for no limit.
+     */
+    public BatchSizeController(int minBatchSize, int maxBatchSize, long targetLatencyMs, long maxResponseBytes, long maxPageBytes) {
+        this.minBatchSize = Math.min(minBatchSize, maxBatchSize);
+        this.maxBatchSize = maxBatchSize;
+        this.step = Math.max(1, (maxBatchSize - this.minBatchSize) / STEPS_TO_MAX);
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        this.maxResponseBytes = maxResponseBytes;
+        this.maxPageBytes = maxPageBytes;
+        this.batchSize = this.minBatchSize;
+    }
+
+    public static BatchSizeController fixed(int batchSize, long maxPageBytes) {
+        return new BatchSizeController(batchSize, batchSize, Long.MAX_VALUE, Long.MAX_VALUE, maxPageBytes);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return the Limit of the next log request: the batch size, or fewer events if that many of the size seen last
+     * would overrun the page byte budget.
+     */
+    public int getLimit() {
+        int size = batchSize;
+        long bytes = eventBytes;
+        if (maxPageBytes == 0 || bytes == 0) {
+            return size;
+        }
+        return (int) Math.max(TppLogSourceConfig.MIN_BATCH_SIZE, Math.min(size, maxPageBytes / bytes));
+    }
+
+    public int getMinBatchSize() {
+        return minBatchSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * @param limit the Limit the page was requested with, the current size may have moved on since.
+     */
+    public void pageFetched(int limit, int events, long latencyNanos, long responseBytes) {
+        if (events > 0) {
+            eventBytes = Math.max(1L, responseBytes / events);
+        }
+        if (latencyNanos > targetLatencyNanos || responseBytes > maxResponseBytes) {
+            decrease(limit);
+        } else if (events >= limit && limit >= batchSize) {
+            //A limit below the size was cut to the page budget, a full page of it says nothing about the size.
+            resize(Math.min(maxBatchSize, limit + step));
+        }
+    }
+
+    public void fetchFailed(int limit) {
+        decrease(limit);
+    }
+
+    private void decrease(int limit) {
+        resize(Math.max(minBatchSize, limit / 2));
+    }
+
+    private void resize(int newBatchSize) {
+        if (newBatchSize != batchSize) {
+            log.debug("Log request limit is now {}, was {}", newBatchSize, batchSize);
+            batchSize = newBatchSize;
+        }
+    }
+}
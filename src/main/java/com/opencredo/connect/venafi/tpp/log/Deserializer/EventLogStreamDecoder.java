@@ -0,0 +1,135 @@
+package com.opencredo.connect.venafi.tpp.log.Deserializer;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+import com.opencredo.connect.venafi.tpp.log.model.EventLog;
+import feign.Response;
+import feign.codec.Decoder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static com.opencredo.connect.venafi.tpp.log.model.EventLog.*;
+
+/**
+ * Decodes a /vedsdk/Log response token by token into the {@link EventLog#SCHEMA} values of each event, without
+ * building an intermediate {@link EventLog} or holding the whole response as a tree. The Structs are left to
+ * {@link DecodedEvent#getStruct()}, for the events that make it into records.
+ */
+public class EventLogStreamDecoder implements Decoder {
+
+    public static final String LOG_EVENTS = "LogEvents";
+    //Timestamps, numbers and the field names a converter adds around an event's text.
+    private static final int FIXED_FIELDS_BYTES = 256;
+
+    @Override
+    public List<DecodedEvent> decode(Response response, Type type) throws IOException {
+        if (response.body() == null) {
+            return Collections.emptyList();
+        }
+        try (Reader body = response.body().asReader(StandardCharsets.UTF_8)) {
+            return decode(body);
+        }
+    }
+
+    public List<DecodedEvent> decode(Reader body) throws IOException {
+        List<DecodedEvent> events = new ArrayList<>();
+        decode(body, 0L, events);
+        return events;
+    }
+
+    /**
+     * Adds the events of the response to events, stopping once they add up to maxBytes. The event that reaches it is
+     * kept, so a page always has at least one, and the rest of the response is left unread.
+     *
+     * @param maxBytes see {@link DecodedEvent#getSizeBytes()}, 0 to decode every event.
+     * @return true if events were left out, which a request starting after the last event kept reads again.
+     */
+    public boolean decode(Reader body, long maxBytes, List<DecodedEvent> events) throws IOException {
+        JsonReader reader = new JsonReader(body);
+        long bytes = 0L;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (LOG_EVENTS.equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    if (maxBytes > 0 && bytes >= maxBytes) {
+                        return true;
+                    }
+                    DecodedEvent event = decodeEvent(reader);
+                    bytes += event.getSizeBytes();
+                    events.add(event);
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return false;
+    }
+
+    private DecodedEvent decodeEvent(JsonReader reader) throws IOException {
+        Object[] values = new Object[SCHEMA.fields().size()];
+        ZonedDateTime clientTimestamp = null;
+        ZonedDateTime serverTimestamp = null;
+        int sizeBytes = FIXED_FIELDS_BYTES;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case CLIENT_TIMESTAMP:
+                    clientTimestamp = ZonedDateTimeDeserializer.parse(reader.nextString());
+                    put(values, CLIENT_TIMESTAMP, Date.from(clientTimestamp.toInstant()));
+                    break;
+                case SERVER_TIMESTAMP:
+                    serverTimestamp = ZonedDateTimeDeserializer.parse(reader.nextString());
+                    put(values, SERVER_TIMESTAMP, Date.from(serverTimestamp.toInstant()));
+                    break;
+                case ID:
+                    put(values, ID, reader.nextLong());
+                    break;
+                case GROUPING:
+                case COMPONENT_ID:
+                case VALUE_1:
+                case VALUE_2:
+                    put(values, name, reader.nextInt());
+                    break;
+                case NAME:
+                case SEVERITY:
+                case SOURCE_IP:
+                case COMPONENT:
+                case COMPONENT_SUBSYSTEM:
+                case EVENT_ID:
+                case TEXT_1:
+                case TEXT_2:
+                case DATA:
+                    String text = reader.nextString();
+                    put(values, name, text);
+                    sizeBytes += DecodedEvent.utf8Length(text);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new DecodedEvent(values, clientTimestamp, serverTimestamp == null ? TimestampParser.INVALID : TimestampParser.toEpochNanos(serverTimestamp), sizeBytes);
+    }
+
+    private static void put(Object[] values, String field, Object value) {
+        values[SCHEMA.field(field).index()] = value;
+    }
+}
@@ -0,0 +1,353 @@
+package com.opencredo.connect.venafi.tpp.log.Deserializer;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+import com.opencredo.connect.venafi.tpp.log.model.EventLog;
+import com.opencredo.connect.venafi.tpp.log.model.OutputFormat;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Timestamp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.opencredo.connect.venafi.tpp.log.Deserializer.EventLogStreamDecoder.LOG_EVENTS;
+import static com.opencredo.connect.venafi.tpp.log.model.EventLog.ID;
+import static com.opencredo.connect.venafi.tpp.log.model.EventLog.SERVER_TIMESTAMP;
+
+/**
+ * Finds each element of the LogEvents array of a /vedsdk/Log response in the raw response bytes, reading only the
+ * ServerTimestamp and Id the cursor needs, plus any top level fields it was asked for. Everything else is stepped
+ * over byte by byte without being decoded, so each event is handed on exactly as TPP sent it. UTF-8 multi-byte
+ * sequences never contain the ASCII bytes JSON is structured by, so no characters are decoded outside of the fields read.
+ */
+public class RawEventScanner {
+
+    private static final byte[] LOG_EVENTS_NAME = LOG_EVENTS.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SERVER_TIMESTAMP_NAME = SERVER_TIMESTAMP.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ID_NAME = ID.getBytes(StandardCharsets.US_ASCII);
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+
+    private final String[] fields;
+    private final byte[][] fieldNames;
+    private final Schema[] fieldSchemas;
+
+    public RawEventScanner() {
+        this(Collections.emptySet());
+    }
+
+    /**
+     * @param fields {@link EventLog#SCHEMA} fields to read from each event besides the cursor fields, decoded into
+     *               the type of their schema and handed on through {@link DecodedEvent#get(String)}.
+     */
+    public RawEventScanner(Collection<String> fields) {
+        List<String> wanted = new ArrayList<>(fields);
+        wanted.remove(ID);
+        this.fields = wanted.toArray(new String[0]);
+        this.fieldNames = new byte[this.fields.length][];
+        this.fieldSchemas = new Schema[this.fields.length];
+        for (int i = 0; i < this.fields.length; i++) {
+            fieldNames[i] = this.fields[i].getBytes(StandardCharsets.US_ASCII);
+            fieldSchemas[i] = EventLog.SCHEMA.field(this.fields[i]).schema();
+        }
+    }
+
+    public List<DecodedEvent> decode(InputStream body, OutputFormat format) throws IOException {
+        List<DecodedEvent> events = new ArrayList<>();
+        decode(body, format, 0L, events);
+        return events;
+    }
+
+    /**
+     * Adds the events of the response to events, stopping once they add up to maxBytes as
+     * {@link EventLogStreamDecoder#decode(java.io.Reader, long, List)} does.
+     *
+     * @return true if events were left out.
+     */
+    public boolean decode(InputStream body, OutputFormat format, long maxBytes, List<DecodedEvent> events) throws IOException {
+        byte[] json = new byte[INITIAL_BUFFER_BYTES];
+        int length = 0;
+        int read;
+        while ((read = body.read(json, length, json.length - length)) != -1) {
+            length += read;
+            if (length == json.length) {
+                json = Arrays.copyOf(json, json.length * 2);
+            }
+        }
+        return scan(json, length, format, maxBytes, events);
+    }
+
+    public List<DecodedEvent> scan(byte[] json, int length, OutputFormat format) throws IOException {
+        List<DecodedEvent> events = new ArrayList<>();
+        scan(json, length, format, 0L, events);
+        return events;
+    }
+
+    private boolean scan(byte[] json, int length, OutputFormat format, long maxBytes, List<DecodedEvent> events) throws IOException {
+        Scan scan = new Scan(json, length);
+        scan.skipWhitespace();
+        scan.expect('{');
+        scan.skipWhitespace();
+        if (scan.skipIf('}')) {
+            return false;
+        }
+        do {
+            int nameStart = scan.position;
+            scan.skipString();
+            boolean isLogEvents = scan.isName(nameStart, LOG_EVENTS_NAME);
+            scan.skipWhitespace();
+            scan.expect(':');
+            scan.skipWhitespace();
+            if (isLogEvents && scan.peek() == '[') {
+                if (scanEvents(scan, format, maxBytes, events)) {
+                    return true;
+                }
+            } else {
+                scan.skipValue();
+            }
+            scan.skipWhitespace();
+        } while (scan.skipComma());
+        scan.expect('}');
+        return false;
+    }
+
+    //True if it stopped at maxBytes with events left, which are then not scanned.
+    private boolean scanEvents(Scan scan, OutputFormat format, long maxBytes, List<DecodedEvent> events) throws IOException {
+        scan.expect('[');
+        scan.skipWhitespace();
+        if (scan.skipIf(']')) {
+            return false;
+        }
+        long bytes = 0L;
+        do {
+            if (maxBytes > 0 && bytes >= maxBytes) {
+                return true;
+            }
+            DecodedEvent event = scanEvent(scan, format);
+            bytes += event.getSizeBytes();
+            events.add(event);
+            scan.skipWhitespace();
+        } while (scan.skipComma());
+        scan.expect(']');
+        return false;
+    }
+
+    private DecodedEvent scanEvent(Scan scan, OutputFormat format) throws IOException {
+        int start = scan.position;
+        Long id = null;
+        long serverTimeNanos = TimestampParser.INVALID;
+        Map<String, Object> values = fields.length == 0 ? Collections.emptyMap() : new HashMap<>(fields.length * 2);
+        scan.expect('{');
+        scan.skipWhitespace();
+        if (!scan.skipIf('}')) {
+            do {
+                int nameStart = scan.position;
+                scan.skipString();
+                scan.skipWhitespace();
+                scan.expect(':');
+                scan.skipWhitespace();
+                int valueStart = scan.position;
+                scan.skipValue();
+                if (scan.json[valueStart] == '"' && scan.isName(nameStart, SERVER_TIMESTAMP_NAME)) {
+                    //Timestamps have nothing to escape, so the text between the quotes is the value.
+                    serverTimeNanos = parseEpochNanos(new String(scan.json, valueStart + 1, scan.position - valueStart - 2, StandardCharsets.US_ASCII));
+                } else if (scan.json[valueStart] != 'n' && scan.isName(nameStart, ID_NAME)) {
+                    id = scan.parseLong(valueStart, scan.position);
+                } else if (scan.json[valueStart] != 'n') {
+                    for (int i = 0; i < fields.length; i++) {
+                        if (scan.isName(nameStart, fieldNames[i])) {
+                            values.put(fields[i], scan.decode(valueStart, scan.position, fieldSchemas[i]));
+                            break;
+                        }
+                    }
+                }
+                scan.skipWhitespace();
+            } while (scan.skipComma());
+            scan.expect('}');
+        }
+        int end = scan.position;
+        Object value = format == OutputFormat.BYTES
+                ? Arrays.copyOfRange(scan.json, start, end)
+                : new String(scan.json, start, end - start, StandardCharsets.UTF_8);
+        return DecodedEvent.raw(value, id, serverTimeNanos, values, end - start);
+    }
+
+    private static long parseEpochNanos(String timestamp) {
+        long epochNanos = TimestampParser.parseIsoEpochNanos(timestamp);
+        return epochNanos != TimestampParser.INVALID ? epochNanos : TimestampParser.toEpochNanos(ZonedDateTimeDeserializer.parse(timestamp));
+    }
+
+    private static final class Scan {
+        private final byte[] json;
+        private final int length;
+        private int position;
+
+        private Scan(byte[] json, int length) {
+            this.json = json;
+            this.length = length;
+        }
+
+        private byte peek() throws MalformedJsonException {
+            if (position >= length) {
+                throw malformed("Unexpected end of response");
+            }
+            return json[position];
+        }
+
+        private void expect(char expected) throws MalformedJsonException {
+            if (peek() != expected) {
+                throw malformed("Expected '" + expected + "'");
+            }
+            position++;
+        }
+
+        private boolean skipIf(char expected) {
+            if (position < length && json[position] == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        //After a member or element, true if another one follows.
+        private boolean skipComma() {
+            if (skipIf(',')) {
+                skipWhitespace();
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (position < length && (json[position] == ' ' || json[position] == '\n' || json[position] == '\r' || json[position] == '\t')) {
+                position++;
+            }
+        }
+
+        private void skipString() throws MalformedJsonException {
+            expect('"');
+            while (position < length) {
+                byte b = json[position++];
+                if (b == '\\') {
+                    position++;
+                } else if (b == '"') {
+                    return;
+                }
+            }
+            throw malformed("Unterminated string");
+        }
+
+        private void skipValue() throws MalformedJsonException {
+            byte first = peek();
+            if (first == '"') {
+                skipString();
+            } else if (first == '{' || first == '[') {
+                skipNested();
+            } else {
+                int start = position;
+                while (position < length && !isDelimiter(json[position])) {
+                    position++;
+                }
+                if (position == start) {
+                    throw malformed("Expected a value");
+                }
+            }
+        }
+
+        private void skipNested() throws MalformedJsonException {
+            int depth = 0;
+            while (position < length) {
+                byte b = json[position];
+                if (b == '"') {
+                    skipString();
+                    continue;
+                }
+                position++;
+                if (b == '{' || b == '[') {
+                    depth++;
+                } else if ((b == '}' || b == ']') && --depth == 0) {
+                    return;
+                }
+            }
+            throw malformed("Unterminated object or array");
+        }
+
+        private static boolean isDelimiter(byte b) {
+            return b == ',' || b == '}' || b == ']' || b == ' ' || b == '\n' || b == '\r' || b == '\t';
+        }
+
+        //Compares the quoted name starting at nameStart, names with escapes never match.
+        private boolean isName(int nameStart, byte[] name) {
+            if (nameStart + name.length + 1 >= length || json[nameStart + name.length + 1] != '"') {
+                return false;
+            }
+            for (int i = 0; i < name.length; i++) {
+                if (json[nameStart + 1 + i] != name[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        //Decodes the value in [start, end) into the type of the schema, an optional Struct field.
+        private Object decode(int start, int end, Schema schema) throws IOException {
+            if (Timestamp.LOGICAL_NAME.equals(schema.name())) {
+                return Date.from(ZonedDateTimeDeserializer.parse(decodeString(start, end)).toInstant());
+            }
+            switch (schema.type()) {
+                case INT32:
+                    return (int) parseLong(start, end);
+                case INT64:
+                    return parseLong(start, end);
+                default:
+                    return decodeString(start, end);
+            }
+        }
+
+        private String decodeString(int start, int end) throws IOException {
+            if (json[start] != '"') {
+                throw malformed("Expected a string");
+            }
+            for (int i = start + 1; i < end - 1; i++) {
+                if (json[i] == '\\') {
+                    //Rare enough to leave unescaping to Gson.
+                    JsonReader reader = new JsonReader(new StringReader(new String(json, start, end - start, StandardCharsets.UTF_8)));
+                    reader.setLenient(true);
+                    return reader.nextString();
+                }
+            }
+            return new String(json, start + 1, end - start - 2, StandardCharsets.UTF_8);
+        }
+
+        private long parseLong(int start, int end) throws MalformedJsonException {
+            boolean negative = json[start] == '-';
+            int i = negative ? start + 1 : start;
+            if (i == end || end - i > 18) {
+                throw malformed("Expected an integer");
+            }
+            long value = 0L;
+            for (; i < end; i++) {
+                int digit = json[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw malformed("Expected an integer");
+                }
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+
+        private MalformedJsonException malformed(String message) {
+            return new MalformedJsonException(message + " at byte " + position + " of the log response");
+        }
+    }
+}
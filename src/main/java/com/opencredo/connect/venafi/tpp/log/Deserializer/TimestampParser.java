@@ -0,0 +1,243 @@
+package com.opencredo.connect.venafi.tpp.log.Deserializer;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Single pass parsers for the timestamp formats TPP sends. They run for every timestamp of every event,
+ * so the normal path avoids exceptions, regular expressions, substrings and streams.
+ */
+public final class TimestampParser {
+
+    private static final int MAX_FRACTION_DIGITS = 9;
+    private static final int MAX_EPOCH_DIGITS = 18;
+    private static final int[] NANOS_SCALE = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000};
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int SECONDS_PER_DAY = 86_400;
+    private static final int[] DAYS_IN_MONTH = {31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+    //Epoch nanos run out in 1677 and 2262, TPP timestamps are well within.
+    private static final int MIN_YEAR = 1678;
+    private static final int MAX_YEAR = 2261;
+
+    /**
+     * Returned by {@link #parseIsoEpochNanos(String)} for text it can't parse.
+     */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private TimestampParser() {
+    }
+
+    /**
+     * Parses yyyy-MM-ddTHH:mm[:ss[.fffffffff]] with an optional Z or ±hh:mm offset; without an offset the time is UTC.
+     *
+     * @return null if the text isn't in that form or outside the years {@link #parseIsoEpochNanos(String)} takes, so
+     * callers can fall back to the lenient java.time parsers.
+     */
+    public static ZonedDateTime parseIsoDateTime(String text) {
+        long epochNanos = parseIsoEpochNanos(text);
+        if (epochNanos == INVALID) {
+            return null;
+        }
+        //A valid text only has a sign six characters from its end when that's where its ±hh:mm offset starts.
+        int offsetStart = text.length() - 6;
+        char sign = text.charAt(offsetStart);
+        ZoneOffset offset = sign == '+' || sign == '-' ? ZoneOffset.ofTotalSeconds(parseOffsetSeconds(text, offsetStart)) : ZoneOffset.UTC;
+        Instant instant = Instant.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND), Math.floorMod(epochNanos, NANOS_PER_SECOND));
+        return ZonedDateTime.ofInstant(instant, offset);
+    }
+
+    /**
+     * Parses the same form as {@link #parseIsoDateTime(String)} straight into nanoseconds since the epoch,
+     * without building any java.time objects.
+     *
+     * @return {@link #INVALID} if the text isn't in that form or outside the years epoch nanos can hold.
+     */
+    public static long parseIsoEpochNanos(String text) {
+        int length = text.length();
+        if (length < 16 || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T' || text.charAt(13) != ':') {
+            return INVALID;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        int hour = digits(text, 11, 13);
+        int minute = digits(text, 14, 16);
+        int second = 0;
+        int nanos = 0;
+        int position = 16;
+        if (position < length && text.charAt(position) == ':') {
+            second = digits(text, position + 1, position + 3);
+            position += 3;
+            if (position < length && text.charAt(position) == '.') {
+                int fractionStart = ++position;
+                while (position < length && isDigit(text.charAt(position))) {
+                    position++;
+                }
+                int fractionDigits = position - fractionStart;
+                if (fractionDigits == 0 || fractionDigits > MAX_FRACTION_DIGITS) {
+                    return INVALID;
+                }
+                nanos = digits(text, fractionStart, position) * NANOS_SCALE[MAX_FRACTION_DIGITS - fractionDigits];
+            }
+        }
+        if (year < MIN_YEAR || year > MAX_YEAR || month < 1 || month > 12 || day < 1 || day > DAYS_IN_MONTH[month - 1]
+                || (month == 2 && day == 29 && !isLeapYear(year)) || hour < 0 || hour > 23 || minute < 0 || minute > 59
+                || second < 0 || second > 59 || nanos < 0) {
+            return INVALID;
+        }
+        int offsetSeconds = parseOffsetSeconds(text, position);
+        if (offsetSeconds == Integer.MIN_VALUE) {
+            return INVALID;
+        }
+        long epochSeconds = epochDay(year, month, day) * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second - offsetSeconds;
+        return epochSeconds * NANOS_PER_SECOND + nanos;
+    }
+
+    public static long toEpochNanos(ZonedDateTime dateTime) {
+        return Math.addExact(Math.multiplyExact(dateTime.toEpochSecond(), NANOS_PER_SECOND), dateTime.getNano());
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    //Days since 1970-01-01 of a valid date, as LocalDate#toEpochDay counts them.
+    private static long epochDay(int year, int month, int day) {
+        long days = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        days += (367 * month - 362) / 12 + day - 1;
+        if (month > 2 && !isLeapYear(year)) {
+            days -= 2;
+        } else if (month > 2) {
+            days--;
+        }
+        return days - 719_528L;
+    }
+
+    //Integer.MIN_VALUE if the offset isn't nothing, Z or ±hh:mm.
+    private static int parseOffsetSeconds(String text, int position) {
+        int remaining = text.length() - position;
+        if (remaining == 0 || (remaining == 1 && text.charAt(position) == 'Z')) {
+            return 0;
+        }
+        char sign = text.charAt(position);
+        if (remaining != 6 || (sign != '+' && sign != '-') || text.charAt(position + 3) != ':') {
+            return Integer.MIN_VALUE;
+        }
+        int hours = digits(text, position + 1, position + 3);
+        int minutes = digits(text, position + 4, position + 6);
+        return offsetSeconds(sign, hours, minutes);
+    }
+
+    /**
+     * Parses the .NET JSON date format /Date(millis)/ with an optional ±hhmm offset, e.g. /Date(452476800000+0100)/.
+     * The six character prefix isn't checked.
+     *
+     * @return null if the text isn't in that form.
+     */
+    public static ZonedDateTime parseDotNetDate(String text) {
+        int end = text.length() - 2;
+        int position = 6;
+        if (end <= position) {
+            return null;
+        }
+        boolean negative = text.charAt(position) == '-';
+        if (negative) {
+            position++;
+        }
+        int digitsStart = position;
+        while (position < end && isDigit(text.charAt(position))) {
+            position++;
+        }
+        long millis = longDigits(text, digitsStart, position);
+        if (millis < 0) {
+            return null;
+        }
+
+        ZoneOffset offset = ZoneOffset.UTC;
+        if (position < end) {
+            char sign = text.charAt(position);
+            if (end - position != 5 || (sign != '+' && sign != '-')) {
+                return null;
+            }
+            offset = offsetOf(sign, digits(text, position + 1, position + 3), digits(text, position + 3, position + 5));
+            if (offset == null) {
+                return null;
+            }
+        }
+        try {
+            return ZonedDateTime.ofInstant(Instant.ofEpochMilli(negative ? -millis : millis), offset);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a non negative count of seconds since the epoch, in UTC.
+     *
+     * @return null if the text isn't only digits.
+     */
+    public static ZonedDateTime parseEpochSeconds(String text) {
+        long seconds = longDigits(text, 0, text.length());
+        if (seconds < 0) {
+            return null;
+        }
+        try {
+            return ZonedDateTime.ofInstant(Instant.ofEpochSecond(seconds), ZoneOffset.UTC);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static ZoneOffset offsetOf(char sign, int hours, int minutes) {
+        int totalSeconds = offsetSeconds(sign, hours, minutes);
+        return totalSeconds == Integer.MIN_VALUE ? null : ZoneOffset.ofTotalSeconds(totalSeconds);
+    }
+
+    //Integer.MIN_VALUE if the hours and minutes aren't an offset java.time allows, at most 18:00 either way.
+    private static int offsetSeconds(char sign, int hours, int minutes) {
+        int totalSeconds = hours * 3600 + minutes * 60;
+        if ((hours | minutes) < 0 || minutes > 59 || totalSeconds > 18 * 3600) {
+            return Integer.MIN_VALUE;
+        }
+        return sign == '-' ? -totalSeconds : totalSeconds;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * @return the value of text[start, end) or -1 if it's out of range or not all digits.
+     */
+    private static int digits(String text, int start, int end) {
+        if (end > text.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static long longDigits(String text, int start, int end) {
+        if (end <= start || end - start > MAX_EPOCH_DIGITS) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -17,7 +17,12 @@ public class ZonedDateTimeDeserializer implements JsonDeserializer<ZonedDateTime
 
     private static final Logger log = LoggerFactory.getLogger(ZonedDateTimeDeserializer.class);
 
-    private static ZonedDateTime getParsedDate(String dateTimeString) {
+    public static ZonedDateTime parse(String dateTimeString) {
+        ZonedDateTime parsed = TimestampParser.parseIsoDateTime(dateTimeString);
+        if (parsed != null) {
+            return parsed;
+        }
+
         try {
             return LocalDateTime.parse(dateTimeString).atZone(ZoneOffset.UTC);
         } catch (DateTimeParseException e) {
@@ -39,6 +44,6 @@ public class ZonedDateTimeDeserializer implements JsonDeserializer<ZonedDateTime
             throw new JsonParseException("Unable to deserialize [" + jsonElement + "] to a ZoneDateTime.");
         }
         String json = jsonElement.getAsString();
-        return getParsedDate(json);
+        return parse(json);
     }
 }
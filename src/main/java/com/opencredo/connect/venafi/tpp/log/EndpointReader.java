@@ -0,0 +1,203 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.api.client.CaptureFile;
+import com.opencredo.connect.venafi.tpp.log.api.client.CircuitBreaker;
+import com.opencredo.connect.venafi.tpp.log.api.client.HttpTransport;
+import com.opencredo.connect.venafi.tpp.log.api.client.LogsClient;
+import com.opencredo.connect.venafi.tpp.log.api.client.TokenClient;
+import com.opencredo.connect.venafi.tpp.log.api.client.TokenRegistry;
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+import com.opencredo.connect.venafi.tpp.log.model.OutputFormat;
+import org.apache.kafka.connect.errors.ConnectException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+
+import static com.opencredo.connect.venafi.tpp.log.TppLogSourceConfig.*;
+import static com.opencredo.connect.venafi.tpp.log.TppLogSourceTask.isNotNullOrBlank;
+
+/**
+ * What a task keeps for each {@link TppEndpoint} it reads: its connections and login, its windows, the pace of its
+ * requests and its metrics. An endpoint that is slow or failing backs off on its own scheduler without holding up
+ * the other endpoints of the task.
+ */
+class EndpointReader implements Closeable {
+
+    private final TppEndpoint endpoint;
+    private final List<LogWindow> windows = new ArrayList<>();
+    private final HttpTransport transport;
+    private final TokenClient tokenClient;
+    private final boolean sharedTokenClient;
+    private final LogsClient logsClient;
+    private final BatchSizeController batchSizes;
+    private final PollScheduler scheduler;
+    private final TppLogSourceMetrics metrics;
+    private LogPrefetcher prefetcher;
+
+    /**
+     * @param rawFields    what raw events have to be scanned for besides the cursor fields.
+     * @param filters      query filters added to every log request.
+     * @param maxPageBytes bytes of events a page may hold, 0 for no limit.
+     */
+    EndpointReader(TppEndpoint endpoint, String taskName, Map<String, String> props, OutputFormat outputFormat, Collection<String> rawFields,
+                   Map<String, Object> filters, long maxPageBytes) {
+        this.endpoint = endpoint;
+        String baseUrl = endpoint.getBaseUrl();
+        batchSizes = setupBatchSizes(props, maxPageBytes);
+        scheduler = new PollScheduler(Long.parseLong(props.get(POLL_INTERVAL)));
+
+        int connectTimeoutMs = Integer.parseInt(props.get(HTTP_CONNECT_TIMEOUT_CONFIG));
+        int readTimeoutMs = Integer.parseInt(props.get(HTTP_READ_TIMEOUT_CONFIG));
+        int maxConnections = Integer.parseInt(props.get(HTTP_MAX_CONNECTIONS_CONFIG));
+        String captureDir = props.get(CAPTURE_DIR_CONFIG);
+        String replayDir = props.get(REPLAY_DIR_CONFIG);
+        String captureName = endpoint.captureName(taskName) + CaptureFile.EXTENSION;
+        try {
+            if (isNotNullOrBlank(replayDir)) {
+                transport = HttpTransport.replaying(Paths.get(replayDir, captureName), Double.parseDouble(props.get(REPLAY_SPEED_CONFIG)), connectTimeoutMs, readTimeoutMs);
+            } else if (isNotNullOrBlank(captureDir)) {
+                transport = HttpTransport.capturing(Paths.get(captureDir, captureName), connectTimeoutMs, readTimeoutMs, maxConnections);
+            } else {
+                transport = new HttpTransport(connectTimeoutMs, readTimeoutMs, maxConnections);
+            }
+        } catch (IOException e) {
+            throw new ConnectException("Couldn't open the capture of task " + taskName + " for endpoint " + endpoint, e);
+        }
+        sharedTokenClient = !isNotNullOrBlank(replayDir) && !isNotNullOrBlank(captureDir);
+        CircuitBreaker authBreaker = setupCircuitBreaker("auth " + baseUrl, props);
+        if (sharedTokenClient) {
+            tokenClient = TokenRegistry.acquire(baseUrl, endpoint.getUsername(), endpoint.getPassword(), endpoint.getScope(), endpoint.getClientId(), connectTimeoutMs, readTimeoutMs, authBreaker);
+        } else {
+            //Log in through the endpoint's own transport, so its capture holds all of its traffic.
+            tokenClient = new TokenClient(baseUrl, transport, endpoint.getUsername(), endpoint.getPassword(), endpoint.getScope(), endpoint.getClientId(), null, authBreaker);
+        }
+        logsClient = new LogsClient(baseUrl, transport, setupCircuitBreaker("logs " + baseUrl, props), outputFormat, rawFields, filters, maxPageBytes);
+
+        metrics = new TppLogSourceMetrics(props.get(CONNECTOR_NAME), baseUrl, taskName, readTimeoutMs);
+        metrics.bindBatchSizes(batchSizes);
+        metrics.bindScheduler(scheduler);
+        metrics.bindClients(tokenClient, logsClient);
+    }
+
+    private static CircuitBreaker setupCircuitBreaker(String name, Map<String, String> props) {
+        return new CircuitBreaker(
+                name,
+                Integer.parseInt(props.get(CIRCUIT_FAILURE_THRESHOLD_CONFIG)),
+                Long.parseLong(props.get(BACKOFF_INITIAL_MS_CONFIG)),
+                Long.parseLong(props.get(BACKOFF_MAX_MS_CONFIG)));
+    }
+
+    private static BatchSizeController setupBatchSizes(Map<String, String> props, long maxPageBytes) {
+        int batchSize = Integer.parseInt(props.get(BATCH_SIZE));
+        if (!Boolean.parseBoolean(props.get(BATCH_ADAPTIVE_CONFIG))) {
+            return BatchSizeController.fixed(batchSize, maxPageBytes);
+        }
+        return new BatchSizeController(
+                Integer.parseInt(props.get(BATCH_SIZE_MIN_CONFIG)),
+                batchSize,
+                Long.parseLong(props.get(BATCH_TARGET_LATENCY_CONFIG)),
+                Long.parseLong(props.get(BATCH_MAX_RESPONSE_BYTES_CONFIG)),
+                maxPageBytes);
+    }
+
+    /**
+     * Fetches pages of this endpoint's windows ahead on a background thread, into the given queue of the task.
+     */
+    void startPrefetching(BlockingQueue<LogPage> pages, boolean catchUp) {
+        prefetcher = new LogPrefetcher(pages, windows, this::fetchPage, scheduler, catchUp);
+        prefetcher.start("venafi-log-prefetch-" + endpoint.getBaseUrl());
+    }
+
+    /**
+     * @return the next page of the window, or null if no page could be requested, in which case the scheduler backs off.
+     */
+    LogPage fetchPage(LogWindow window) {
+        long authStart = System.nanoTime();
+        String token = getToken();
+        metrics.recordAuth(System.nanoTime() - authStart);
+        if (!isNotNullOrBlank(token)) {
+            scheduler.backOff(tokenClient.getCircuitBreaker().getBackoffRemainingMs());
+            return null;
+        }
+        int limit = batchSizes.getLimit();
+        long start = System.nanoTime();
+        List<DecodedEvent> events = getTppLogs(token, window, limit);
+        switch (logsClient.getLastOutcome()) {
+            case OK:
+                long requestNanos = System.nanoTime() - start;
+                batchSizes.pageFetched(limit, events.size(), requestNanos, logsClient.getLastResponseBytes());
+                metrics.recordFetch(limit, events.size(), requestNanos, logsClient.getLastDecodeNanos(), logsClient.getLastResponseBytes());
+                return new LogPage(window, events, limit, logsClient.isLastTruncated());
+            case UNAUTHORIZED:
+                tokenClient.invalidate(token);
+                return null;
+            case FAILED:
+                batchSizes.fetchFailed(limit);
+                scheduler.backOff(logsClient.getCircuitBreaker().getBackoffRemainingMs());
+                return null;
+            default:
+                scheduler.backOff(logsClient.getCircuitBreaker().getBackoffRemainingMs());
+                return null;
+        }
+    }
+
+    private List<DecodedEvent> getTppLogs(String token, LogWindow window, int limit) {
+        return logsClient.getLogs(token, window.getFromDate(), window.getToDate(), String.valueOf(limit), window.getApiOffset());
+    }
+
+    String getToken() {
+        return tokenClient.getToken();
+    }
+
+    TokenClient getTokenClient() {
+        return tokenClient;
+    }
+
+    LogsClient getLogsClient() {
+        return logsClient;
+    }
+
+    TppEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    List<LogWindow> getWindows() {
+        return windows;
+    }
+
+    PollScheduler getScheduler() {
+        return scheduler;
+    }
+
+    BatchSizeController getBatchSizes() {
+        return batchSizes;
+    }
+
+    TppLogSourceMetrics getMetrics() {
+        return metrics;
+    }
+
+    void stop() {
+        if (prefetcher != null) {
+            prefetcher.stop();
+        }
+        scheduler.stop();
+    }
+
+    @Override
+    public void close() {
+        if (sharedTokenClient) {
+            TokenRegistry.release(tokenClient);
+        } else {
+            tokenClient.close();
+        }
+        transport.close();
+        metrics.close();
+    }
+}
@@ -0,0 +1,153 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.opencredo.connect.venafi.tpp.log.model.EventLog.*;
+
+/**
+ * Keeps only the events of interest, so the rest never become records. What the /vedsdk/Log query can filter on, a
+ * severity range and a single Component or Grouping, is pushed into the query and TPP leaves those events out of its
+ * responses. Lists of values and event ids are matched here, against fields read from each event before it is keyed
+ * or turned into a record.
+ * <p>
+ * Events dropped here still move the window's cursor, only TPP's own filtering changes what the API offset counts.
+ */
+public class EventFilter {
+
+    //In TPP's order, which numbers them from 1 in its Severity query filter.
+    public static final List<String> SEVERITIES = Collections.unmodifiableList(Arrays.asList(
+            "Emergency", "Alert", "Critical", "Error", "Warning", "Notice", "Info", "Debug"));
+    static final String SEVERITY_QUERY = "Severity";
+    static final String COMPONENT_QUERY = "Component";
+    static final String GROUPING_QUERY = "Grouping";
+
+    private final Map<String, Object> query = new HashMap<>();
+    //Filters left to match here, null when TPP applies them or there are none.
+    private final Integer maxSeverity;
+    private final Set<String> components;
+    private final Set<Integer> groupings;
+    private final Set<String> eventIds;
+    private final List<String> fields = new ArrayList<>();
+
+    /**
+     * @param minSeverity one of {@link #SEVERITIES}, blank to keep events of any severity.
+     * @param components  comma separated Components to keep, blank for all.
+     * @param groupings   comma separated Groupings to keep, blank for all.
+     * @param eventIds    comma separated EventIds to keep, blank for all.
+     * @param pushDown    false to match all filters here, for TPP versions that turn down the query filters.
+     */
+    public EventFilter(String minSeverity, String components, String groupings, String eventIds, boolean pushDown) {
+        Integer severity = severityLevel(minSeverity);
+        Set<String> componentSet = new HashSet<>(RecordKey.parseFields(components));
+        Set<Integer> groupingSet = new HashSet<>();
+        RecordKey.parseFields(groupings).forEach(grouping -> groupingSet.add(Integer.valueOf(grouping)));
+
+        if (pushDown && severity != null) {
+            query.put(SEVERITY_QUERY, "1:" + severity);
+            severity = null;
+        }
+        if (pushDown && componentSet.size() == 1) {
+            query.put(COMPONENT_QUERY, componentSet.iterator().next());
+            componentSet.clear();
+        }
+        if (pushDown && groupingSet.size() == 1) {
+            query.put(GROUPING_QUERY, groupingSet.iterator().next());
+            groupingSet.clear();
+        }
+        this.maxSeverity = severity;
+        this.components = componentSet.isEmpty() ? null : componentSet;
+        this.groupings = groupingSet.isEmpty() ? null : groupingSet;
+        Set<String> eventIdSet = new HashSet<>(RecordKey.parseFields(eventIds));
+        this.eventIds = eventIdSet.isEmpty() ? null : eventIdSet;
+
+        if (maxSeverity != null) {
+            fields.add(SEVERITY);
+        }
+        if (this.components != null) {
+            fields.add(COMPONENT);
+        }
+        if (this.groupings != null) {
+            fields.add(GROUPING);
+        }
+        if (this.eventIds != null) {
+            fields.add(EVENT_ID);
+        }
+    }
+
+    /**
+     * @return TPP's 1 based level of the severity, null for a blank one.
+     */
+    static Integer severityLevel(String severity) {
+        if (severity == null || severity.trim().isEmpty()) {
+            return null;
+        }
+        int level = levelOf(severity.trim());
+        if (level == 0) {
+            throw new IllegalArgumentException(severity + " is not one of " + SEVERITIES);
+        }
+        return level;
+    }
+
+    //0 for a severity TPP doesn't list.
+    private static int levelOf(String severity) {
+        for (int i = 0; i < SEVERITIES.size(); i++) {
+            if (SEVERITIES.get(i).equalsIgnoreCase(severity)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the filters to add to each log request, empty if TPP is to return every event.
+     */
+    public Map<String, Object> getQuery() {
+        return query;
+    }
+
+    /**
+     * @return the fields matched here, which raw events have to be scanned for.
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return false if the event is to be dropped. An event without a field that is filtered on is dropped, one with
+     * a severity TPP doesn't list is kept.
+     */
+    public boolean accepts(DecodedEvent event) {
+        if (maxSeverity != null) {
+            Object severity = event.get(SEVERITY);
+            if (severity == null) {
+                return false;
+            }
+            if (levelOf((String) severity) > maxSeverity) {
+                return false;
+            }
+        }
+        if (components != null && !components.contains(event.get(COMPONENT))) {
+            return false;
+        }
+        if (groupings != null && !groupings.contains(event.get(GROUPING))) {
+            return false;
+        }
+        return eventIds == null || eventIds.contains(event.get(EVENT_ID));
+    }
+
+    /**
+     * @return true if every event TPP returns is kept, as nothing is left to match here.
+     */
+    public boolean isEmpty() {
+        return fields.isEmpty();
+    }
+}
@@ -0,0 +1,62 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+import com.opencredo.connect.venafi.tpp.log.model.EventLog;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.header.ConnectHeaders;
+import org.apache.kafka.connect.header.Headers;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.opencredo.connect.venafi.tpp.log.model.EventLog.*;
+
+/**
+ * Copies fields of each event into headers of its record, named after the field, so consumers can route and filter
+ * on them without converting the value. Fields the event doesn't have are left out.
+ */
+public class EventHeaders {
+
+    public static final List<String> FIELDS = Collections.unmodifiableList(Arrays.asList(
+            SEVERITY, COMPONENT, COMPONENT_ID, COMPONENT_SUBSYSTEM, EVENT_ID, GROUPING, NAME, SOURCE_IP, ID));
+
+    private final String[] fields;
+    private final Schema[] schemas;
+
+    /**
+     * @param fields comma separated {@link #FIELDS}, blank for records without headers.
+     */
+    public EventHeaders(String fields) {
+        this.fields = RecordKey.parseFields(fields).toArray(new String[0]);
+        this.schemas = new Schema[this.fields.length];
+        for (int i = 0; i < this.fields.length; i++) {
+            schemas[i] = SchemaBuilder.type(EventLog.SCHEMA.field(this.fields[i]).schema().type()).optional().build();
+        }
+    }
+
+    /**
+     * @return the fields read for headers, which raw events have to be scanned for.
+     */
+    public List<String> getFields() {
+        return Arrays.asList(fields);
+    }
+
+    /**
+     * @return the headers of the event's record, or null if there are none to add.
+     */
+    public Headers headersOf(DecodedEvent event) {
+        if (fields.length == 0) {
+            return null;
+        }
+        ConnectHeaders headers = new ConnectHeaders();
+        for (int i = 0; i < fields.length; i++) {
+            Object value = event.get(fields[i]);
+            if (value != null) {
+                headers.add(fields[i], value, schemas[i]);
+            }
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,42 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+import org.apache.kafka.common.Configurable;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Drops, changes or fans out events inside the task, after they are decoded and filtered and before they are keyed
+ * and turned into records. Processors work on the event's field values, read through {@link DecodedEvent#get(String)}
+ * and changed in place through {@link DecodedEvent#put(String, Object)}. The Struct of an event is only built once
+ * it has made it through all of them, so events dropped here never cost a Struct and changed ones aren't copied.
+ * Raw events are handed on as TPP sent them, their JSON is replaced through {@link DecodedEvent#withValue(Object)}.
+ * <p>
+ * Implementations are listed by class name in venafi.processors, need a public no-argument constructor and are
+ * configured with the task's settings, where their own go by convention under venafi.processor.&lt;name&gt;.
+ * <p>
+ * Each task has its own instances, only ever called from the task's thread.
+ */
+public interface EventProcessor extends Configurable, Closeable {
+
+    /**
+     * @return fields the processor reads through {@link DecodedEvent#get(String)}, which raw events have to be scanned
+     * for. Structs have them all.
+     */
+    default Collection<String> getFields() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Adds what the event becomes to out: nothing to drop it, the event itself, changed or not, or several events,
+     * each a {@link DecodedEvent#copy()} if they are to differ. All of them get the event's source offset.
+     */
+    void process(DecodedEvent event, List<DecodedEvent> out);
+
+    @Override
+    default void close() {
+    }
+}
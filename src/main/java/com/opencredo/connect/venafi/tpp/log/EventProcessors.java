@@ -0,0 +1,78 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+import org.apache.kafka.common.utils.Utils;
+import org.apache.kafka.connect.errors.ConnectException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@link EventProcessor}s of a task, each handed what the one before it made of an event.
+ */
+class EventProcessors {
+
+    private final List<EventProcessor> processors = new ArrayList<>();
+    //Reused for every event, processors run on the task's thread only.
+    private final List<DecodedEvent> in = new ArrayList<>();
+    private final List<DecodedEvent> out = new ArrayList<>();
+
+    /**
+     * @param classNames comma separated {@link EventProcessor} classes, blank for none.
+     * @param props      the task's settings, each processor is configured with.
+     */
+    EventProcessors(String classNames, Map<String, String> props) {
+        for (String className : RecordKey.parseFields(classNames)) {
+            EventProcessor processor;
+            try {
+                processor = Utils.newInstance(className, EventProcessor.class);
+            } catch (ClassNotFoundException | RuntimeException e) {
+                close();
+                throw new ConnectException("Couldn't create the event processor " + className, e);
+            }
+            processors.add(processor);
+            processor.configure(props);
+        }
+    }
+
+    boolean isEmpty() {
+        return processors.isEmpty();
+    }
+
+    /**
+     * @return the fields the processors read, which raw events have to be scanned for.
+     */
+    Set<String> getFields() {
+        Set<String> fields = new LinkedHashSet<>();
+        processors.forEach(processor -> fields.addAll(processor.getFields()));
+        return fields;
+    }
+
+    /**
+     * @return what the processors made of the event, valid until the next call.
+     */
+    List<DecodedEvent> process(DecodedEvent event) {
+        out.clear();
+        out.add(event);
+        for (EventProcessor processor : processors) {
+            in.clear();
+            in.addAll(out);
+            out.clear();
+            for (DecodedEvent processed : in) {
+                processor.process(processed, out);
+            }
+            if (out.isEmpty()) {
+                break;
+            }
+        }
+        return out;
+    }
+
+    void close() {
+        processors.forEach(processor -> Utils.closeQuietly(processor, processor.getClass().getName()));
+        processors.clear();
+    }
+}
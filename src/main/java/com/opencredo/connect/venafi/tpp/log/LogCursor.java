@@ -0,0 +1,142 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.Deserializer.TimestampParser;
+import com.opencredo.connect.venafi.tpp.log.Deserializer.ZonedDateTimeDeserializer;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.opencredo.connect.venafi.tpp.log.TppLogSourceTask.*;
+
+/**
+ * The source offset of a record: where its window's cursor stood once the record was read. It is handed to Connect
+ * as is, so it is an immutable map over a few primitives rather than a map built per record, and timestamps are
+ * kept as nanoseconds since the epoch instead of text.
+ * <p>
+ * Offsets written before {@link #VERSION} kept the timestamp as text under {@link TppLogSourceTask#LAST_READ} with
+ * the API offset under {@link TppLogSourceTask#LAST_API_OFFSET}, {@link #parse(Map)} reads those too.
+ */
+final class LogCursor extends AbstractMap<String, Object> {
+
+    static final long VERSION = 2L;
+    static final long NONE = Long.MIN_VALUE;
+
+    private final long serverTimeNanos;
+    private final long tieCount;
+    private final long tailFromNanos;
+
+    /**
+     * @param serverTimeNanos ServerTimestamp of the last event read, or {@link #NONE}.
+     * @param tieCount        events already read with that ServerTimestamp, the API offset of the next request.
+     * @param tailFromNanos   where the live tail started reading after a backfill, or {@link #NONE}.
+     */
+    LogCursor(long serverTimeNanos, long tieCount, long tailFromNanos) {
+        this.serverTimeNanos = serverTimeNanos;
+        this.tieCount = tieCount;
+        this.tailFromNanos = tailFromNanos;
+    }
+
+    /**
+     * Reads a persisted offset in the current or the pre-{@link #VERSION} format.
+     *
+     * @return null if there is no offset to restore.
+     */
+    static LogCursor parse(Map<String, Object> offset) {
+        if (offset == null || offset.isEmpty()) {
+            return null;
+        }
+        if (offset.get(CURSOR_VERSION) != null) {
+            return new LogCursor(
+                    longOf(offset.get(CURSOR_TIME), NONE),
+                    longOf(offset.get(CURSOR_TIES), 0L),
+                    longOf(offset.get(CURSOR_TAIL_FROM), NONE));
+        }
+        return new LogCursor(
+                parseTime((String) offset.get(LAST_READ)),
+                longOf(offset.get(LAST_API_OFFSET), 0L),
+                NONE);
+    }
+
+    //Offsets come back from the offset store with whatever integral type its converter chose.
+    private static long longOf(Object value, long absent) {
+        return value == null ? absent : ((Number) value).longValue();
+    }
+
+    /**
+     * @return the timestamp in nanoseconds since the epoch, or {@link #NONE} if the text is null or blank.
+     */
+    static long parseTime(String timestamp) {
+        if (!isNotNullOrBlank(timestamp)) {
+            return NONE;
+        }
+        long nanos = TimestampParser.parseIsoEpochNanos(timestamp);
+        return nanos != TimestampParser.INVALID ? nanos : TimestampParser.toEpochNanos(ZonedDateTimeDeserializer.parse(timestamp));
+    }
+
+    long getServerTimeNanos() {
+        return serverTimeNanos;
+    }
+
+    long getTieCount() {
+        return tieCount;
+    }
+
+    long getTailFromNanos() {
+        return tailFromNanos;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (CURSOR_VERSION.equals(key)) {
+            return VERSION;
+        } else if (CURSOR_TIME.equals(key)) {
+            return serverTimeNanos == NONE ? null : serverTimeNanos;
+        } else if (CURSOR_TIES.equals(key)) {
+            return tieCount;
+        } else if (CURSOR_TAIL_FROM.equals(key)) {
+            return tailFromNanos == NONE ? null : tailFromNanos;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return 2 + (serverTimeNanos == NONE ? 0 : 1) + (tailFromNanos == NONE ? 0 : 1);
+    }
+
+    //Only walked when Connect serializes the offset it commits, not for every record.
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        List<Entry<String, Object>> entries = new ArrayList<>(size());
+        entries.add(new SimpleImmutableEntry<>(CURSOR_VERSION, VERSION));
+        if (serverTimeNanos != NONE) {
+            entries.add(new SimpleImmutableEntry<>(CURSOR_TIME, serverTimeNanos));
+        }
+        entries.add(new SimpleImmutableEntry<>(CURSOR_TIES, tieCount));
+        if (tailFromNanos != NONE) {
+            entries.add(new SimpleImmutableEntry<>(CURSOR_TAIL_FROM, tailFromNanos));
+        }
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return Collections.unmodifiableList(entries).iterator();
+            }
+
+            @Override
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+}
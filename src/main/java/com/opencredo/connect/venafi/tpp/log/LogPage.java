@@ -0,0 +1,65 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+
+import java.util.List;
+
+/**
+ * A page of events fetched for a window, waiting to be converted and handed to Connect, possibly over several polls.
+ */
+public class LogPage {
+    private final LogWindow window;
+    private final List<DecodedEvent> events;
+    private final int limit;
+    private final boolean truncated;
+    private int position;
+
+    /**
+     * @param limit     the Limit the page was requested with.
+     * @param truncated true if decoding stopped at the page's byte budget, leaving events of the response out.
+     */
+    public LogPage(LogWindow window, List<DecodedEvent> events, int limit, boolean truncated) {
+        this.window = window;
+        this.events = events;
+        this.limit = limit;
+        this.truncated = truncated;
+    }
+
+    public LogWindow getWindow() {
+        return window;
+    }
+
+    public List<DecodedEvent> getEvents() {
+        return events;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * @return index of the first event not yet handed to Connect.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    void setPosition(int position) {
+        this.position = position;
+    }
+
+    public boolean isDone() {
+        return position >= events.size();
+    }
+
+    /**
+     * A full page means there are probably more events waiting right behind it, as there are behind a truncated one.
+     */
+    public boolean isFull() {
+        return truncated || events.size() >= limit;
+    }
+}
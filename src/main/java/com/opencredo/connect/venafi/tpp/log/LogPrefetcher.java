@@ -0,0 +1,95 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+
+/**
+ * Fetches pages on its own thread so the next TPP round trip overlaps with the task converting and producing
+ * the previous page. Pages are handed over through a bounded queue and carry the task's own window, whose
+ * cursor only moves once the task converts the page; the prefetcher walks copies of the windows instead.
+ */
+public class LogPrefetcher implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(LogPrefetcher.class);
+
+    private final BlockingQueue<LogPage> pages;
+    private final List<LogWindow> windows;
+    private final List<LogWindow> ahead;
+    private final Function<LogWindow, LogPage> fetch;
+    private final PollScheduler scheduler;
+    private final boolean catchUp;
+    private Thread thread;
+
+    /**
+     * @param pages queue to hand pages over through, which prefetchers of several endpoints may share.
+     * @param fetch fetches a page for the given window, or returns null if no page could be requested.
+     */
+    public LogPrefetcher(BlockingQueue<LogPage> pages, List<LogWindow> windows, Function<LogWindow, LogPage> fetch, PollScheduler scheduler, boolean catchUp) {
+        this.pages = pages;
+        this.windows = windows;
+        this.ahead = new ArrayList<>(windows.size());
+        windows.forEach(window -> ahead.add(window.copy()));
+        this.fetch = fetch;
+        this.scheduler = scheduler;
+        this.catchUp = catchUp;
+    }
+
+    public void start(String name) {
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        scheduler.stop();
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!scheduler.isStopped()) {
+                if (scheduler.awaitNextFetch()) {
+                    boolean moreAvailable = false;
+                    try {
+                        moreAvailable = fetchNextPage();
+                    } catch (RuntimeException e) {
+                        log.error("Caught following exception while prefetching, ignoring to ensure connector doesn't fail", e);
+                    }
+                    scheduler.fetched(moreAvailable);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.debug("Prefetcher {} stopped.", Thread.currentThread().getName());
+    }
+
+    private boolean fetchNextPage() throws InterruptedException {
+        LogWindow aheadWindow = LogWindow.firstOpen(ahead);
+        if (aheadWindow == null) {
+            return false;
+        }
+        LogPage page = fetch.apply(aheadWindow);
+        if (page == null) {
+            return false;
+        }
+        for (DecodedEvent event : page.getEvents()) {
+            if (!aheadWindow.accept(event)) {
+                break;
+            }
+        }
+        aheadWindow.pageDone(page.isFull());
+        if (!page.getEvents().isEmpty()) {
+            pages.put(new LogPage(windows.get(ahead.indexOf(aheadWindow)), page.getEvents(), page.getLimit(), page.isTruncated()));
+        }
+        return catchUp && (page.isFull() || (aheadWindow.isExhausted() && LogWindow.firstOpen(ahead) != null));
+    }
+}
@@ -0,0 +1,214 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.Deserializer.TimestampParser;
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.opencredo.connect.venafi.tpp.log.TppLogSourceTask.*;
+
+/**
+ * A range of the TPP log read through its own source partition.
+ * The live tail has no upper bound, backfill windows stop at {@link #getToDate()}.
+ * <p>
+ * The cursor is keyed on what TPP orders by: the ServerTimestamp of the last event read, down to its 100ns precision.
+ * The API offset only counts the events already read that share the ServerTimestamp, so it drops back to 1 as soon
+ * as the timestamp moves on. Timestamps are held as nanoseconds since the epoch and only
+ * formatted for a request.
+ */
+public class LogWindow {
+
+    public static final DateTimeFormatter WINDOW_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSSX");
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final Map<String, Object> partition;
+    private final String toDate;
+    private final long toNanos;
+    private long tailFromNanos;
+    private long fromNanos;
+    //Formatted from fromNanos when a request needs it, at most once per page.
+    private String fromDate;
+    private long apiOffset;
+    private boolean exhausted;
+
+    private LogWindow(Map<String, Object> partition, long fromNanos, String toDate, long tailFromNanos) {
+        this.partition = partition;
+        this.fromNanos = fromNanos;
+        this.toDate = toDate;
+        this.toNanos = toDate == null ? LogCursor.NONE : LogCursor.parseTime(toDate);
+        this.tailFromNanos = tailFromNanos;
+    }
+
+    public static LogWindow tail(String baseUrl, String fromDate) {
+        return new LogWindow(Collections.singletonMap(URL, baseUrl), LogCursor.parseTime(fromDate), null, LogCursor.NONE);
+    }
+
+    /**
+     * A tail that started where a backfill stops, it remembers that point in its offsets so later
+     * backfill windows never read past it, even if the connector is restarted with a later boundary.
+     */
+    public static LogWindow tailAfterBackfill(String baseUrl, String tailFrom) {
+        long tailFromNanos = LogCursor.parseTime(tailFrom);
+        return new LogWindow(Collections.singletonMap(URL, baseUrl), tailFromNanos, null, tailFromNanos);
+    }
+
+    public static LogWindow bounded(String baseUrl, ZonedDateTime from, ZonedDateTime to) {
+        String fromDate = from.format(WINDOW_FORMAT);
+        Map<String, Object> partition = new HashMap<>(2);
+        partition.put(URL, baseUrl);
+        partition.put(WINDOW, fromDate);
+        return new LogWindow(Collections.unmodifiableMap(partition), TimestampParser.toEpochNanos(from), to.format(WINDOW_FORMAT), LogCursor.NONE);
+    }
+
+    static ZonedDateTime toDateTime(long epochNanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND), Math.floorMod(epochNanos, NANOS_PER_SECOND)).atZone(ZoneOffset.UTC);
+    }
+
+    /**
+     * Cuts [from, until) into windows of the given length and keeps every taskCount'th window starting at taskIndex,
+     * so the windows are spread round robin across the backfill tasks. Window starts are aligned to from and don't
+     * depend on until, which keeps the source partitions stable across restarts.
+     */
+    public static List<LogWindow> backfill(String baseUrl, ZonedDateTime from, ZonedDateTime until, long windowHours, int taskIndex, int taskCount) {
+        List<LogWindow> windows = new ArrayList<>();
+        ZonedDateTime start = from.withZoneSameInstant(ZoneOffset.UTC);
+        for (long i = 0; start.isBefore(until); i++) {
+            ZonedDateTime end = start.plusHours(windowHours);
+            if (i % taskCount == taskIndex) {
+                windows.add(bounded(baseUrl, start, end.isAfter(until) ? until : end));
+            }
+            start = end;
+        }
+        return windows;
+    }
+
+    static LogWindow firstOpen(List<LogWindow> windows) {
+        for (LogWindow window : windows) {
+            if (!window.isExhausted()) {
+                return window;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * An independent cursor over the same partition, so pages can be requested ahead of what was delivered.
+     */
+    LogWindow copy() {
+        LogWindow copy = new LogWindow(partition, fromNanos, toDate, tailFromNanos);
+        copy.fromDate = fromDate;
+        copy.apiOffset = apiOffset;
+        copy.exhausted = exhausted;
+        return copy;
+    }
+
+    /**
+     * Carries on from a persisted cursor. A tail keeps the point it first started from rather than the boundary it was
+     * created with, which moves to the connector's start time on every restart, and a tail persisted before backfill
+     * keeps having none, as it read everything itself.
+     */
+    void restore(Map<String, Object> persistedMap) {
+        LogCursor cursor = LogCursor.parse(persistedMap);
+        if (cursor == null) {
+            return;
+        }
+        tailFromNanos = cursor.getTailFromNanos();
+        if (cursor.getServerTimeNanos() != LogCursor.NONE) {
+            fromNanos = cursor.getServerTimeNanos();
+            fromDate = null;
+        }
+        apiOffset = cursor.getTieCount();
+    }
+
+    /**
+     * Moves the cursor over one fetched event.
+     *
+     * @return false if the event lies past the end of the window, which is then exhausted.
+     */
+    boolean accept(DecodedEvent event) {
+        if (isPastEnd(event)) {
+            exhaust();
+            return false;
+        }
+        advance(event.getServerTimeNanos());
+        return true;
+    }
+
+    /**
+     * A short page means a bounded window has nothing left, the live tail simply caught up.
+     *
+     * @param full see {@link LogPage#isFull()}.
+     */
+    void pageDone(boolean full) {
+        if (isBounded() && !full) {
+            exhaust();
+        }
+    }
+
+    void advance(long serverTimeNanos) {
+        if (serverTimeNanos == fromNanos) {
+            apiOffset++;
+        } else {
+            apiOffset = 1L;
+            fromNanos = serverTimeNanos;
+            fromDate = null;
+        }
+    }
+
+    private boolean isPastEnd(DecodedEvent event) {
+        return toNanos != LogCursor.NONE && event.getServerTimeNanos() >= toNanos;
+    }
+
+    private void exhaust() {
+        exhausted = true;
+    }
+
+    Map<String, Object> buildSourceOffset() {
+        return new LogCursor(fromNanos, apiOffset, tailFromNanos);
+    }
+
+    public Map<String, Object> getPartition() {
+        return partition;
+    }
+
+    /**
+     * @return the FromTime of the next request, in UTC with TPP's 100ns precision.
+     */
+    public String getFromDate() {
+        String formatted = fromDate;
+        if (formatted == null) {
+            formatted = toDateTime(fromNanos).format(WINDOW_FORMAT);
+            fromDate = formatted;
+        }
+        return formatted;
+    }
+
+    public String getToDate() {
+        return toDate;
+    }
+
+    public long getApiOffset() {
+        return apiOffset;
+    }
+
+    public boolean isBounded() {
+        return toDate != null;
+    }
+
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    @Override
+    public String toString() {
+        return "LogWindow{" + partition + ", fromDate=" + getFromDate() + ", toDate=" + toDate + ", apiOffset=" + apiOffset + '}';
+    }
+}
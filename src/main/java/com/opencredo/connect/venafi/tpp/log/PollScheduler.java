@@ -0,0 +1,106 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when the next page is due and blocks the task thread until then, instead of letting the
+ * Connect worker spin on empty polls. Deadlines use {@link System#nanoTime()} so wall clock changes
+ * don't stall or hurry polling.
+ */
+public class PollScheduler {
+
+    //Upper bound on a single wait so the worker still gets control back regularly, e.g. to commit offsets.
+    static final long MAX_BLOCK_MS = 1000L;
+
+    private final long intervalNanos;
+    private final long maxBlockNanos;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private long nextFetchNanos;
+    private long backOffUntilNanos;
+    private long busySinceNanos;
+    private long idleNanos;
+    private long busyNanos;
+
+    public PollScheduler(long intervalMs) {
+        this(intervalMs, MAX_BLOCK_MS);
+    }
+
+    PollScheduler(long intervalMs, long maxBlockMs) {
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+        this.maxBlockNanos = TimeUnit.MILLISECONDS.toNanos(maxBlockMs);
+        this.nextFetchNanos = System.nanoTime();
+        this.backOffUntilNanos = nextFetchNanos;
+    }
+
+    /**
+     * Waits until the next fetch is due, or at most {@link #MAX_BLOCK_MS}.
+     *
+     * @return true if a fetch is due now, false if the wait timed out first or the scheduler was stopped.
+     */
+    public boolean awaitNextFetch() throws InterruptedException {
+        long start = System.nanoTime();
+        long wait = nextFetchNanos - start;
+        if (wait > 0) {
+            stopped.await(Math.min(wait, maxBlockNanos), TimeUnit.NANOSECONDS);
+            idleNanos += System.nanoTime() - start;
+        }
+        if (isStopped() || nextFetchNanos - System.nanoTime() > 0) {
+            return false;
+        }
+        busySinceNanos = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Records the end of a fetch started after {@link #awaitNextFetch()}.
+     *
+     * @param moreAvailable schedule the next fetch straight away rather than after the interval.
+     */
+    public void fetched(boolean moreAvailable) {
+        long now = System.nanoTime();
+        busyNanos += now - busySinceNanos;
+        nextFetchNanos = moreAvailable ? now : now + intervalNanos;
+        if (backOffUntilNanos - nextFetchNanos > 0) {
+            nextFetchNanos = backOffUntilNanos;
+        }
+    }
+
+    /**
+     * Holds off the fetch after the current one for at least the given time, whatever {@link #fetched(boolean)} says.
+     */
+    public void backOff(long delayMs) {
+        backOffUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+    }
+
+    /**
+     * @return how long until the next fetch is due, 0 or less if it is due already.
+     */
+    public long getNanosUntilNextFetch() {
+        return nextFetchNanos - System.nanoTime();
+    }
+
+    public void stop() {
+        stopped.countDown();
+    }
+
+    public boolean isStopped() {
+        return stopped.getCount() == 0;
+    }
+
+    public long getIdleNanos() {
+        return idleNanos;
+    }
+
+    public long getBusyNanos() {
+        return busyNanos;
+    }
+
+    /**
+     * Share of the measured time spent waiting for the next fetch rather than fetching, between 0 and 1.
+     */
+    public double getIdleRatio() {
+        long total = idleNanos + busyNanos;
+        return total == 0 ? 0d : (double) idleNanos / total;
+    }
+}
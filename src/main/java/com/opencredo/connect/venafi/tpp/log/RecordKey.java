@@ -0,0 +1,127 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+import com.opencredo.connect.venafi.tpp.log.model.EventLog;
+import org.apache.kafka.common.utils.Utils;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.opencredo.connect.venafi.tpp.log.model.EventLog.*;
+
+/**
+ * Keys records by fields of their event, so events sharing them, e.g. one Component, land on one partition in order.
+ * A single field is the key as is, several make up an EventLogKey Struct. Keys are optional, an event without the
+ * field gets a null key or field.
+ * <p>
+ * With a partition count the record's partition is picked here, from a hash of the key fields' values, rather than by
+ * the producer hashing the converted key, so it doesn't change with the key converter or its schema registry ids.
+ */
+public class RecordKey {
+
+    public static final List<String> FIELDS = Collections.unmodifiableList(Arrays.asList(ID, COMPONENT, COMPONENT_ID, SOURCE_IP, GROUPING));
+    static final String KEY_SCHEMA_NAME = "EventLogKey";
+    private static final RecordKey NONE = new RecordKey(Collections.emptyList(), 0);
+
+    private final List<String> fields;
+    private final Schema schema;
+    private final int partitionCount;
+
+    private RecordKey(List<String> fields, int partitionCount) {
+        this.fields = fields;
+        this.schema = keySchema(fields);
+        this.partitionCount = partitionCount;
+    }
+
+    /**
+     * @param fields         comma separated {@link #FIELDS}, blank for records without a key.
+     * @param partitionCount partitions to spread keys over, 0 to leave it to the producer.
+     */
+    public static RecordKey of(String fields, int partitionCount) {
+        List<String> keyFields = parseFields(fields);
+        return keyFields.isEmpty() ? NONE : new RecordKey(keyFields, partitionCount);
+    }
+
+    static List<String> parseFields(String fields) {
+        List<String> keyFields = new ArrayList<>();
+        if (fields == null) {
+            return keyFields;
+        }
+        for (String field : fields.split(",")) {
+            if (!field.trim().isEmpty()) {
+                keyFields.add(field.trim());
+            }
+        }
+        return keyFields;
+    }
+
+    private static Schema keySchema(List<String> fields) {
+        if (fields.isEmpty()) {
+            return null;
+        }
+        if (fields.size() == 1) {
+            return optional(fields.get(0));
+        }
+        SchemaBuilder builder = SchemaBuilder.struct().name(KEY_SCHEMA_NAME);
+        fields.forEach(field -> builder.field(field, optional(field)));
+        return builder.build();
+    }
+
+    private static Schema optional(String field) {
+        return SchemaBuilder.type(EventLog.SCHEMA.field(field).schema().type()).optional().build();
+    }
+
+    /**
+     * @return the fields read for the key, which raw events have to be scanned for.
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return the key schema, null for records without a key.
+     */
+    public Schema getSchema() {
+        return schema;
+    }
+
+    public Object keyOf(DecodedEvent event) {
+        if (schema == null) {
+            return null;
+        }
+        if (fields.size() == 1) {
+            return event.get(fields.get(0));
+        }
+        Struct key = new Struct(schema);
+        for (String field : fields) {
+            key.put(field, event.get(field));
+        }
+        return key;
+    }
+
+    /**
+     * @return the partition for the key, or null to leave it to the producer.
+     */
+    public Integer partitionOf(Object key) {
+        if (partitionCount == 0 || key == null) {
+            return null;
+        }
+        String text;
+        if (key instanceof Struct) {
+            StringBuilder joined = new StringBuilder();
+            for (String field : fields) {
+                joined.append(((Struct) key).get(field)).append('\u0000');
+            }
+            text = joined.toString();
+        } else {
+            text = key.toString();
+        }
+        return Utils.toPositive(Utils.murmur2(text.getBytes(StandardCharsets.UTF_8))) % partitionCount;
+    }
+}
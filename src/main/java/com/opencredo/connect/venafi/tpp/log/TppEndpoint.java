@@ -0,0 +1,188 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import org.apache.kafka.common.config.ConfigException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static com.opencredo.connect.venafi.tpp.log.TppLogSourceConfig.*;
+
+/**
+ * A TPP instance read by the connector and the credentials to log in to it with. The one at venafi.base.url is
+ * named {@value #PRIMARY}, further ones are listed by name in venafi.endpoints and configured under
+ * venafi.endpoint.&lt;name&gt;., falling back to the top level credentials. Each is its own source partition.
+ */
+public final class TppEndpoint {
+
+    public static final String PRIMARY = "default";
+    static final String BASE_URL = "base.url";
+    static final String USERNAME = "username";
+    static final String PASSWORD = "password";
+    static final String SCOPE = "scope";
+    static final String CLIENT_ID = "client_id";
+    //Names end up in property keys and capture file names.
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final String name;
+    private final String baseUrl;
+    private final String username;
+    private final String password;
+    private final String scope;
+    private final String clientId;
+
+    TppEndpoint(String name, String baseUrl, String username, String password, String scope, String clientId) {
+        this.name = name;
+        this.baseUrl = baseUrl;
+        this.username = username;
+        this.password = password;
+        this.scope = scope;
+        this.clientId = clientId;
+    }
+
+    /**
+     * @return the primary endpoint followed by the ones listed in venafi.endpoints.
+     * @throws ConfigException if a listed endpoint has a bad name, no URL, or the URL of another endpoint.
+     */
+    static List<TppEndpoint> resolve(Map<String, String> props) {
+        String username = props.get(USERNAME_CONFIG);
+        String password = props.get(PASSWORD_CONFIG);
+        String scope = props.get(SCOPE_CONFIG);
+        String clientId = props.get(CLIENT_ID_CONFIG);
+        List<TppEndpoint> endpoints = new ArrayList<>();
+        endpoints.add(new TppEndpoint(PRIMARY, props.get(BASE_URL_CONFIG), username, password, scope, clientId));
+
+        Set<String> names = new HashSet<>();
+        names.add(PRIMARY);
+        Set<String> urls = new HashSet<>();
+        urls.add(props.get(BASE_URL_CONFIG));
+        for (String name : RecordKey.parseFields(props.get(ENDPOINTS_CONFIG))) {
+            if (!NAME.matcher(name).matches() || !names.add(name)) {
+                throw new ConfigException(ENDPOINTS_CONFIG, props.get(ENDPOINTS_CONFIG), name + " is not a unique name of letters, digits, _ and - other than " + PRIMARY);
+            }
+            String prefix = ENDPOINT_PREFIX + name + ".";
+            String baseUrl = props.get(prefix + BASE_URL);
+            if (!TppLogSourceTask.isNotNullOrBlank(baseUrl)) {
+                throw new ConfigException(prefix + BASE_URL, baseUrl, "Missing the URL of endpoint " + name);
+            }
+            if (!urls.add(baseUrl)) {
+                //The URL is the source partition, two endpoints reading it would overwrite each other's offsets.
+                throw new ConfigException(prefix + BASE_URL, baseUrl, "Already read by another endpoint");
+            }
+            endpoints.add(new TppEndpoint(name, baseUrl,
+                    props.getOrDefault(prefix + USERNAME, username),
+                    props.getOrDefault(prefix + PASSWORD, password),
+                    props.getOrDefault(prefix + SCOPE, scope),
+                    props.getOrDefault(prefix + CLIENT_ID, clientId)));
+        }
+        return endpoints;
+    }
+
+    /**
+     * @param names comma separated names to keep, null for all of them.
+     */
+    static List<TppEndpoint> named(List<TppEndpoint> endpoints, String names) {
+        if (names == null) {
+            return endpoints;
+        }
+        List<String> kept = RecordKey.parseFields(names);
+        List<TppEndpoint> named = new ArrayList<>(kept.size());
+        for (TppEndpoint endpoint : endpoints) {
+            if (kept.contains(endpoint.name)) {
+                named.add(endpoint);
+            }
+        }
+        return named;
+    }
+
+    /**
+     * @return the venafi.endpoint.&lt;name&gt;. settings a task resolves this endpoint from, none for the primary one.
+     */
+    Map<String, String> toProperties() {
+        Map<String, String> props = new HashMap<>();
+        if (isPrimary()) {
+            return props;
+        }
+        String prefix = ENDPOINT_PREFIX + name + ".";
+        props.put(prefix + BASE_URL, baseUrl);
+        putIfNotNull(props, prefix + USERNAME, username);
+        putIfNotNull(props, prefix + PASSWORD, password);
+        putIfNotNull(props, prefix + SCOPE, scope);
+        putIfNotNull(props, prefix + CLIENT_ID, clientId);
+        return props;
+    }
+
+    private static void putIfNotNull(Map<String, String> props, String key, String value) {
+        if (value != null) {
+            props.put(key, value);
+        }
+    }
+
+    /**
+     * @return the name of the task's capture of this endpoint, the task's own for the primary one.
+     */
+    String captureName(String taskName) {
+        return isPrimary() ? taskName : taskName + "-" + name;
+    }
+
+    boolean isPrimary() {
+        return PRIMARY.equals(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TppEndpoint that = (TppEndpoint) o;
+        return name.equals(that.name)
+                && Objects.equals(baseUrl, that.baseUrl)
+                && Objects.equals(username, that.username)
+                && Objects.equals(password, that.password)
+                && Objects.equals(scope, that.scope)
+                && Objects.equals(clientId, that.clientId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, baseUrl, username, scope, clientId);
+    }
+
+    //Leaves the credentials out of logs.
+    @Override
+    public String toString() {
+        return name + "=" + baseUrl;
+    }
+}
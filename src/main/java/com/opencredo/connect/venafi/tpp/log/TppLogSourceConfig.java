@@ -2,12 +2,18 @@ package com.opencredo.connect.venafi.tpp.log;
 
 import org.apache.kafka.common.config.AbstractConfig;
 import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import static com.opencredo.connect.venafi.tpp.log.TppLogSourceTask.DEFAULT_FROM_TIME;
+
 public class TppLogSourceConfig extends AbstractConfig {
 
     private static final Logger log = LoggerFactory.getLogger(TppLogSourceConfig.class);
@@ -27,25 +33,217 @@ public class TppLogSourceConfig extends AbstractConfig {
     public static final String CLIENT_ID_CONFIG = "venafi.client_id";
     private static final String CLIENT_ID_DOC = "The Application ID to use with the API.";
 
+    public static final String ENDPOINTS_CONFIG = "venafi.endpoints";
+    private static final String ENDPOINTS_DEFAULT = "";
+    private static final String ENDPOINTS_DOC = "Comma separated names of further TPP instances to read besides venafi.base.url, each with its own source partition and offsets. Each is configured as venafi.endpoint.<name>.base.url, with optional venafi.endpoint.<name>.username, password, scope and client_id defaulting to the ones above. Endpoints are shared out between up to tasks.max tasks.";
+
+    public static final String ENDPOINTS_FILE_CONFIG = "venafi.endpoints.file";
+    private static final String ENDPOINTS_FILE_DEFAULT = "";
+    private static final String ENDPOINTS_FILE_DOC = "Properties file holding venafi.endpoints and the venafi.endpoint.<name>. settings instead of the connector config. It is read again every venafi.endpoints.file.check.ms and the tasks are reconfigured when the endpoints in it change. Empty to only read the connector config.";
+
+    public static final String ENDPOINTS_FILE_CHECK_MS_CONFIG = "venafi.endpoints.file.check.ms";
+    private static final int ENDPOINTS_FILE_CHECK_MS_DEFAULT = 60_000;
+    private static final String ENDPOINTS_FILE_CHECK_MS_DOC = "How often in milliseconds venafi.endpoints.file is checked for changed endpoints.";
+
     public static final String TOPIC_CONFIG = "venafi.topic";
     private static final String TOPIC_DEFAULT = "VENAFI-LOGS";
     private static final String TOPIC_DOC = "Topic to publish VENAFI log data to.";
 
+    public static final String OUTPUT_FORMAT_CONFIG = "venafi.output.format";
+    private static final String OUTPUT_FORMAT_DEFAULT = "struct";
+    private static final String OUTPUT_FORMAT_DOC = "struct hands each event to Connect as an EventLog Struct. bytes and string hand on each element of LogEvents exactly as the API sent it, with a BYTES or STRING schema, for ByteArrayConverter or StringConverter; only ServerTimestamp and Id are read from it.";
+
+    public static final String KEY_FIELDS_CONFIG = "venafi.key.fields";
+    private static final String KEY_FIELDS_DEFAULT = "";
+    private static final String KEY_FIELDS_DOC = "Comma separated event fields to key records by: one of them is the key as is, several make up an EventLogKey Struct. Empty for records without a key.";
+
+    public static final String KEY_PARTITIONS_CONFIG = "venafi.key.partitions";
+    private static final int KEY_PARTITIONS_DEFAULT = 0;
+    private static final String KEY_PARTITIONS_DOC = "Number of partitions of the topic to spread records over by a hash of their key fields, picking each record's partition here. 0 leaves it to the producer, which hashes the converted key.";
+
+    public static final String RECORD_TIMESTAMP_CONFIG = "venafi.record.timestamp";
+    private static final String RECORD_TIMESTAMP_DEFAULT = "server";
+    private static final String RECORD_TIMESTAMP_DOC = "Time records are stamped with: server for the event's ServerTimestamp, client for its ClientTimestamp, none to leave it to the producer.";
+
+    public static final String HEADERS_CONFIG = "venafi.headers";
+    private static final String HEADERS_DEFAULT = "";
+    private static final String HEADERS_DOC = "Comma separated event fields to copy into record headers named after the field, for routing without converting the value. Empty for records without headers.";
+
+    public static final String FILTER_MIN_SEVERITY_CONFIG = "venafi.filter.min.severity";
+    private static final String FILTER_MIN_SEVERITY_DEFAULT = "";
+    private static final String FILTER_MIN_SEVERITY_DOC = "Least severe events to keep, e.g. Warning keeps Emergency through Warning and drops Notice, Info and Debug. Empty for events of any severity.";
+
+    public static final String FILTER_COMPONENTS_CONFIG = "venafi.filter.components";
+    private static final String FILTER_COMPONENTS_DEFAULT = "";
+    private static final String FILTER_COMPONENTS_DOC = "Comma separated Components to keep the events of. Empty for events of any Component.";
+
+    public static final String FILTER_GROUPINGS_CONFIG = "venafi.filter.groupings";
+    private static final String FILTER_GROUPINGS_DEFAULT = "";
+    private static final String FILTER_GROUPINGS_DOC = "Comma separated Groupings to keep the events of. Empty for events of any Grouping.";
+
+    public static final String FILTER_EVENT_IDS_CONFIG = "venafi.filter.event.ids";
+    private static final String FILTER_EVENT_IDS_DEFAULT = "";
+    private static final String FILTER_EVENT_IDS_DOC = "Comma separated EventIds to keep the events of. Empty for events of any EventId.";
+
+    public static final String PROCESSORS_CONFIG = "venafi.processors";
+    private static final String PROCESSORS_DEFAULT = "";
+    private static final String PROCESSORS_DOC = "Comma separated classes implementing EventProcessor, which drop, change or fan out events in turn after they are filtered and before they become records. Each is configured with the connector's settings. Empty for none.";
+
+    public static final String FILTER_PUSHDOWN_CONFIG = "venafi.filter.pushdown";
+    private static final boolean FILTER_PUSHDOWN_DEFAULT = true;
+    private static final String FILTER_PUSHDOWN_DOC = "Have TPP apply the minimum severity, and a single Component or Grouping, as filters of the log query so it never sends the events dropped. Other filters are matched by the task before events become records. false matches them all in the task, for TPP versions that turn down the query filters. Changing the pushed down filters of a running connector may repeat or skip events sharing the ServerTimestamp of the last one read.";
+
     public static final String BATCH_SIZE = "venafi.batch.size";
     private static final int BATCH_SIZE_DEFAULT = 100;
     private static final String BATCH_SIZE_DOC = "Window of data to pull from log API.";
 
+    public static final String BATCH_ADAPTIVE_CONFIG = "venafi.batch.adaptive";
+    private static final boolean BATCH_ADAPTIVE_DEFAULT = false;
+    private static final String BATCH_ADAPTIVE_DOC = "Adapt the Limit of each log request between venafi.batch.size.min and venafi.batch.size, raising it while pages come back full and fast and halving it when responses are slow, too large or fail.";
+
+    public static final String BATCH_SIZE_MIN_CONFIG = "venafi.batch.size.min";
+    private static final int BATCH_SIZE_MIN_DEFAULT = 10;
+    private static final String BATCH_SIZE_MIN_DOC = "Smallest Limit adaptive batch sizing starts from and backs off to.";
+
+    public static final String BATCH_TARGET_LATENCY_CONFIG = "venafi.batch.target.latency.ms";
+    private static final int BATCH_TARGET_LATENCY_DEFAULT = 5_000;
+    private static final String BATCH_TARGET_LATENCY_DOC = "Adaptive batch sizing halves the Limit when a log request takes longer than this many milliseconds.";
+
+    public static final String BATCH_MAX_RESPONSE_BYTES_CONFIG = "venafi.batch.max.response.bytes";
+    private static final int BATCH_MAX_RESPONSE_BYTES_DEFAULT = 8 * 1024 * 1024;
+    private static final String BATCH_MAX_RESPONSE_BYTES_DOC = "Adaptive batch sizing halves the Limit when a log response is larger than this many bytes.";
+
     public static final String POLL_INTERVAL = "venafi.poll.interval";
     private static final int POLL_INTERVAL_DEFAULT = 1000;
     private static final String POLL_INTERVAL_DOC = "Poll interval in milliseconds.";
 
+    public static final String CATCH_UP_CONFIG = "venafi.poll.catch.up";
+    private static final boolean CATCH_UP_DEFAULT = true;
+    private static final String CATCH_UP_DOC = "Fetch the next page straight away, skipping the poll interval, while pages come back full.";
+
+    public static final String POLL_MAX_BYTES_CONFIG = "venafi.poll.max.bytes";
+    private static final int POLL_MAX_BYTES_DEFAULT = 0;
+    private static final String POLL_MAX_BYTES_DOC = "Roughly how many bytes of events a task holds and a single poll hands to Connect. The budget is shared by every page the task can hold at once, including those fetched ahead; each page is decoded no further than its share, the rest fetched again from the cursor, and request Limits are cut to fit. Pages that processors grow past the budget are handed over in slices across polls, moving the offsets with each slice. 0 sets no bound.";
+
+    public static final String HTTP_CONNECT_TIMEOUT_CONFIG = "venafi.http.connect.timeout.ms";
+    private static final int HTTP_CONNECT_TIMEOUT_DEFAULT = 10_000;
+    private static final String HTTP_CONNECT_TIMEOUT_DOC = "Timeout in milliseconds for opening a connection to the API.";
+
+    public static final String HTTP_READ_TIMEOUT_CONFIG = "venafi.http.read.timeout.ms";
+    private static final int HTTP_READ_TIMEOUT_DEFAULT = 60_000;
+    private static final String HTTP_READ_TIMEOUT_DOC = "Timeout in milliseconds for waiting on an API response.";
+
+    public static final String HTTP_MAX_CONNECTIONS_CONFIG = "venafi.http.max.connections";
+    private static final int HTTP_MAX_CONNECTIONS_DEFAULT = 4;
+    private static final String HTTP_MAX_CONNECTIONS_DOC = "Maximum number of pooled keep-alive connections each task holds open to the API.";
+
+    public static final String BACKOFF_INITIAL_MS_CONFIG = "venafi.backoff.initial.ms";
+    private static final int BACKOFF_INITIAL_MS_DEFAULT = 1_000;
+    private static final String BACKOFF_INITIAL_MS_DOC = "Milliseconds to back off after a failed API request, doubled with each further failure in a row and jittered. A longer Retry-After from the API wins.";
+
+    public static final String BACKOFF_MAX_MS_CONFIG = "venafi.backoff.max.ms";
+    private static final int BACKOFF_MAX_MS_DEFAULT = 300_000;
+    private static final String BACKOFF_MAX_MS_DOC = "Upper bound in milliseconds of the backoff between failed API requests.";
+
+    public static final String CIRCUIT_FAILURE_THRESHOLD_CONFIG = "venafi.circuit.failure.threshold";
+    private static final int CIRCUIT_FAILURE_THRESHOLD_DEFAULT = 5;
+    private static final String CIRCUIT_FAILURE_THRESHOLD_DOC = "Failed API requests in a row after which the circuit opens and only a single trial request is made after each backoff until one succeeds.";
+
+    public static final String PREFETCH_PAGES_CONFIG = "venafi.prefetch.pages";
+    private static final int PREFETCH_PAGES_DEFAULT = 0;
+    private static final String PREFETCH_PAGES_DOC = "Number of pages a background thread may fetch ahead while earlier pages are converted and produced. 0 fetches on the task thread.";
+    public static final int MAX_PREFETCH_PAGES = 100;
+
+    public static final String FETCH_ASYNC_CONFIG = "venafi.fetch.async";
+    private static final boolean FETCH_ASYNC_DEFAULT = false;
+    private static final String FETCH_ASYNC_DOC = "Fetch the pages of all the task's endpoints through one non-blocking HTTP client from a single thread, with up to venafi.fetch.max.in.flight requests per endpoint in flight, rather than a blocking request at a time. Fetched pages queue up to venafi.prefetch.pages per endpoint, at least one. Ignored while capturing or replaying.";
+
+    public static final String FETCH_MAX_IN_FLIGHT_CONFIG = "venafi.fetch.max.in.flight";
+    private static final int FETCH_MAX_IN_FLIGHT_DEFAULT = 2;
+    private static final String FETCH_MAX_IN_FLIGHT_DOC = "Log requests to one endpoint venafi.fetch.async keeps in flight at once. Each is for a different window, as a window's next request starts where its last page ended, so only backfill tasks have more than one.";
+
+    public static final String BACKFILL_ENABLED_CONFIG = "venafi.backfill.enabled";
+    private static final boolean BACKFILL_ENABLED_DEFAULT = false;
+    private static final String BACKFILL_ENABLED_DOC = "Split the history between venafi.backfill.from and venafi.backfill.until into time windows read in parallel by all but one task, while the remaining task tails live events. With venafi.endpoints up to half the tasks tail, one endpoint each at least, and the rest read the windows of every endpoint. Needs tasks.max of at least 2.";
+
+    public static final String BACKFILL_FROM_CONFIG = "venafi.backfill.from";
+    private static final String BACKFILL_FROM_DEFAULT = DEFAULT_FROM_TIME;
+    private static final String BACKFILL_FROM_DOC = "ISO-8601 timestamp the backfill starts from.";
+
+    public static final String BACKFILL_UNTIL_CONFIG = "venafi.backfill.until";
+    private static final String BACKFILL_UNTIL_DEFAULT = "";
+    private static final String BACKFILL_UNTIL_DOC = "ISO-8601 timestamp the backfill stops at and the live tail starts from. Defaults to the time the connector starts.";
+
+    public static final String BACKFILL_WINDOW_HOURS_CONFIG = "venafi.backfill.window.hours";
+    private static final int BACKFILL_WINDOW_HOURS_DEFAULT = 24 * 7;
+    private static final String BACKFILL_WINDOW_HOURS_DOC = "Length of each backfill time window in hours.";
+
+    public static final String CAPTURE_DIR_CONFIG = "venafi.capture.dir";
+    private static final String CAPTURE_DIR_DEFAULT = "";
+    private static final String CAPTURE_DIR_DOC = "Directory each task appends its API requests and responses to, as <task>.tppcap and <task>-<endpoint>.tppcap for venafi.endpoints, for replay with venafi.replay.dir. Tokens are redacted. Capturing tasks log in on their own rather than sharing a token. Empty to not capture.";
+
+    public static final String REPLAY_DIR_CONFIG = "venafi.replay.dir";
+    private static final String REPLAY_DIR_DEFAULT = "";
+    private static final String REPLAY_DIR_DOC = "Directory of files captured with venafi.capture.dir to answer each task's API requests from instead of venafi.base.url, which is then never called. Empty to use the API.";
+
+    public static final String REPLAY_SPEED_CONFIG = "venafi.replay.speed";
+    private static final double REPLAY_SPEED_DEFAULT = 1.0;
+    private static final String REPLAY_SPEED_DOC = "How many times faster than captured to replay responses, 0 to answer without waiting.";
+
+    //Prefix of the settings of each endpoint listed in venafi.endpoints.
+    public static final String ENDPOINT_PREFIX = "venafi.endpoint.";
+
+    //Task-only properties, set by the connector when it hands out endpoints and backfill windows.
+    public static final String TASK_ENDPOINTS = "venafi.task.endpoints";
+    public static final String BACKFILL_TASK_INDEX = "venafi.backfill.task.index";
+    public static final String BACKFILL_TASK_COUNT = "venafi.backfill.task.count";
+    //Set by the connector so task metrics can be told apart per connector, as Connect's own are.
+    public static final String CONNECTOR_NAME = "venafi.connector.name";
+    static final String NAME_CONFIG = "name";
+
     public static final int MAX_BATCH_SIZE = 10_000;
     public static final int MIN_BATCH_SIZE = 2;
     public static final ConfigDef CONFIG_DEF = new ConfigDef()
             .define(BASE_URL_CONFIG, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new NonEmptyStringWithoutControlChars(), ConfigDef.Importance.HIGH, BASE_URL_DOC)
+            .define(ENDPOINTS_CONFIG, ConfigDef.Type.STRING, ENDPOINTS_DEFAULT, ConfigDef.Importance.MEDIUM, ENDPOINTS_DOC)
+            .define(ENDPOINTS_FILE_CONFIG, ConfigDef.Type.STRING, ENDPOINTS_FILE_DEFAULT, ConfigDef.Importance.LOW, ENDPOINTS_FILE_DOC)
+            .define(ENDPOINTS_FILE_CHECK_MS_CONFIG, ConfigDef.Type.INT, ENDPOINTS_FILE_CHECK_MS_DEFAULT, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, ENDPOINTS_FILE_CHECK_MS_DOC)
             .define(TOPIC_CONFIG, ConfigDef.Type.STRING, TOPIC_DEFAULT, new NonEmptyStringWithoutControlChars(), ConfigDef.Importance.HIGH, TOPIC_DOC)
+            .define(OUTPUT_FORMAT_CONFIG, ConfigDef.Type.STRING, OUTPUT_FORMAT_DEFAULT, ConfigDef.ValidString.in("struct", "bytes", "string"), ConfigDef.Importance.MEDIUM, OUTPUT_FORMAT_DOC)
+            .define(KEY_FIELDS_CONFIG, ConfigDef.Type.STRING, KEY_FIELDS_DEFAULT, new EventFields(RecordKey.FIELDS), ConfigDef.Importance.MEDIUM, KEY_FIELDS_DOC)
+            .define(KEY_PARTITIONS_CONFIG, ConfigDef.Type.INT, KEY_PARTITIONS_DEFAULT, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, KEY_PARTITIONS_DOC)
+            .define(RECORD_TIMESTAMP_CONFIG, ConfigDef.Type.STRING, RECORD_TIMESTAMP_DEFAULT, ConfigDef.ValidString.in("server", "client", "none"), ConfigDef.Importance.MEDIUM, RECORD_TIMESTAMP_DOC)
+            .define(HEADERS_CONFIG, ConfigDef.Type.STRING, HEADERS_DEFAULT, new EventFields(EventHeaders.FIELDS), ConfigDef.Importance.LOW, HEADERS_DOC)
+            .define(FILTER_MIN_SEVERITY_CONFIG, ConfigDef.Type.STRING, FILTER_MIN_SEVERITY_DEFAULT, new Severity(), ConfigDef.Importance.MEDIUM, FILTER_MIN_SEVERITY_DOC)
+            .define(FILTER_COMPONENTS_CONFIG, ConfigDef.Type.STRING, FILTER_COMPONENTS_DEFAULT, ConfigDef.Importance.MEDIUM, FILTER_COMPONENTS_DOC)
+            .define(FILTER_GROUPINGS_CONFIG, ConfigDef.Type.STRING, FILTER_GROUPINGS_DEFAULT, new Integers(), ConfigDef.Importance.MEDIUM, FILTER_GROUPINGS_DOC)
+            .define(FILTER_EVENT_IDS_CONFIG, ConfigDef.Type.STRING, FILTER_EVENT_IDS_DEFAULT, ConfigDef.Importance.MEDIUM, FILTER_EVENT_IDS_DOC)
+            .define(FILTER_PUSHDOWN_CONFIG, ConfigDef.Type.BOOLEAN, FILTER_PUSHDOWN_DEFAULT, ConfigDef.Importance.LOW, FILTER_PUSHDOWN_DOC)
+            .define(PROCESSORS_CONFIG, ConfigDef.Type.STRING, PROCESSORS_DEFAULT, new ProcessorClasses(), ConfigDef.Importance.LOW, PROCESSORS_DOC)
             .define(BATCH_SIZE, ConfigDef.Type.INT, BATCH_SIZE_DEFAULT, ConfigDef.Range.between(MIN_BATCH_SIZE, MAX_BATCH_SIZE), ConfigDef.Importance.LOW, BATCH_SIZE_DOC)
+            .define(BATCH_ADAPTIVE_CONFIG, ConfigDef.Type.BOOLEAN, BATCH_ADAPTIVE_DEFAULT, ConfigDef.Importance.LOW, BATCH_ADAPTIVE_DOC)
+            .define(BATCH_SIZE_MIN_CONFIG, ConfigDef.Type.INT, BATCH_SIZE_MIN_DEFAULT, ConfigDef.Range.between(MIN_BATCH_SIZE, MAX_BATCH_SIZE), ConfigDef.Importance.LOW, BATCH_SIZE_MIN_DOC)
+            .define(BATCH_TARGET_LATENCY_CONFIG, ConfigDef.Type.INT, BATCH_TARGET_LATENCY_DEFAULT, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, BATCH_TARGET_LATENCY_DOC)
+            .define(BATCH_MAX_RESPONSE_BYTES_CONFIG, ConfigDef.Type.INT, BATCH_MAX_RESPONSE_BYTES_DEFAULT, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, BATCH_MAX_RESPONSE_BYTES_DOC)
             .define(POLL_INTERVAL, ConfigDef.Type.INT, POLL_INTERVAL_DEFAULT, ConfigDef.Importance.LOW, POLL_INTERVAL_DOC)
+            .define(CATCH_UP_CONFIG, ConfigDef.Type.BOOLEAN, CATCH_UP_DEFAULT, ConfigDef.Importance.LOW, CATCH_UP_DOC)
+            .define(POLL_MAX_BYTES_CONFIG, ConfigDef.Type.INT, POLL_MAX_BYTES_DEFAULT, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, POLL_MAX_BYTES_DOC)
+            .define(HTTP_CONNECT_TIMEOUT_CONFIG, ConfigDef.Type.INT, HTTP_CONNECT_TIMEOUT_DEFAULT, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, HTTP_CONNECT_TIMEOUT_DOC)
+            .define(HTTP_READ_TIMEOUT_CONFIG, ConfigDef.Type.INT, HTTP_READ_TIMEOUT_DEFAULT, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, HTTP_READ_TIMEOUT_DOC)
+            .define(HTTP_MAX_CONNECTIONS_CONFIG, ConfigDef.Type.INT, HTTP_MAX_CONNECTIONS_DEFAULT, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, HTTP_MAX_CONNECTIONS_DOC)
+            .define(BACKOFF_INITIAL_MS_CONFIG, ConfigDef.Type.INT, BACKOFF_INITIAL_MS_DEFAULT, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, BACKOFF_INITIAL_MS_DOC)
+            .define(BACKOFF_MAX_MS_CONFIG, ConfigDef.Type.INT, BACKOFF_MAX_MS_DEFAULT, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, BACKOFF_MAX_MS_DOC)
+            .define(CIRCUIT_FAILURE_THRESHOLD_CONFIG, ConfigDef.Type.INT, CIRCUIT_FAILURE_THRESHOLD_DEFAULT, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, CIRCUIT_FAILURE_THRESHOLD_DOC)
+            .define(PREFETCH_PAGES_CONFIG, ConfigDef.Type.INT, PREFETCH_PAGES_DEFAULT, ConfigDef.Range.between(0, MAX_PREFETCH_PAGES), ConfigDef.Importance.LOW, PREFETCH_PAGES_DOC)
+            .define(FETCH_ASYNC_CONFIG, ConfigDef.Type.BOOLEAN, FETCH_ASYNC_DEFAULT, ConfigDef.Importance.LOW, FETCH_ASYNC_DOC)
+            .define(FETCH_MAX_IN_FLIGHT_CONFIG, ConfigDef.Type.INT, FETCH_MAX_IN_FLIGHT_DEFAULT, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, FETCH_MAX_IN_FLIGHT_DOC)
+            .define(BACKFILL_ENABLED_CONFIG, ConfigDef.Type.BOOLEAN, BACKFILL_ENABLED_DEFAULT, ConfigDef.Importance.LOW, BACKFILL_ENABLED_DOC)
+            .define(BACKFILL_FROM_CONFIG, ConfigDef.Type.STRING, BACKFILL_FROM_DEFAULT, new IsoDateTime(), ConfigDef.Importance.LOW, BACKFILL_FROM_DOC)
+            .define(BACKFILL_UNTIL_CONFIG, ConfigDef.Type.STRING, BACKFILL_UNTIL_DEFAULT, new IsoDateTime(), ConfigDef.Importance.LOW, BACKFILL_UNTIL_DOC)
+            .define(BACKFILL_WINDOW_HOURS_CONFIG, ConfigDef.Type.INT, BACKFILL_WINDOW_HOURS_DEFAULT, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, BACKFILL_WINDOW_HOURS_DOC)
+            .define(CAPTURE_DIR_CONFIG, ConfigDef.Type.STRING, CAPTURE_DIR_DEFAULT, ConfigDef.Importance.LOW, CAPTURE_DIR_DOC)
+            .define(REPLAY_DIR_CONFIG, ConfigDef.Type.STRING, REPLAY_DIR_DEFAULT, ConfigDef.Importance.LOW, REPLAY_DIR_DOC)
+            .define(REPLAY_SPEED_CONFIG, ConfigDef.Type.DOUBLE, REPLAY_SPEED_DEFAULT, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, REPLAY_SPEED_DOC)
             .define(USERNAME_CONFIG, ConfigDef.Type.STRING, ConfigDef.Importance.HIGH, USERNAME_DOC)
             .define(PASSWORD_CONFIG, ConfigDef.Type.STRING, ConfigDef.Importance.HIGH, PASSWORD_DOC)
             .define(SCOPE_CONFIG, ConfigDef.Type.STRING, ConfigDef.Importance.MEDIUM, SCOPE_DOC)
@@ -72,3 +270,102 @@ final class NonEmptyStringWithoutControlChars extends ConfigDef.NonEmptyStringWi
     }
 }
 
+
+final class IsoDateTime implements ConfigDef.Validator {
+    //Empty values are allowed so optional timestamps can fall back to a computed default.
+    @Override
+    public void ensureValid(String name, Object value) {
+        String dateTime = (String) value;
+        if (dateTime == null || dateTime.trim().isEmpty()) {
+            return;
+        }
+        try {
+            ZonedDateTime.parse(dateTime);
+        } catch (DateTimeParseException e) {
+            throw new ConfigException(name, value, "Not an ISO-8601 timestamp with offset");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ISO-8601 timestamp with offset, e.g. " + DEFAULT_FROM_TIME;
+    }
+}
+
+final class EventFields implements ConfigDef.Validator {
+    private final List<String> allowed;
+
+    EventFields(List<String> allowed) {
+        this.allowed = allowed;
+    }
+
+    @Override
+    public void ensureValid(String name, Object value) {
+        for (String field : RecordKey.parseFields((String) value)) {
+            if (!allowed.contains(field)) {
+                throw new ConfigException(name, value, field + " is not one of " + allowed);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "comma separated list of " + String.join(", ", allowed);
+    }
+}
+
+final class Severity implements ConfigDef.Validator {
+    @Override
+    public void ensureValid(String name, Object value) {
+        try {
+            EventFilter.severityLevel((String) value);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigException(name, value, e.getMessage());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "one of " + String.join(", ", EventFilter.SEVERITIES) + ", or empty";
+    }
+}
+
+final class Integers implements ConfigDef.Validator {
+    @Override
+    public void ensureValid(String name, Object value) {
+        for (String number : RecordKey.parseFields((String) value)) {
+            try {
+                Integer.parseInt(number);
+            } catch (NumberFormatException e) {
+                throw new ConfigException(name, value, number + " is not an integer");
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "comma separated list of integers";
+    }
+}
+
+final class ProcessorClasses implements ConfigDef.Validator {
+    @Override
+    public void ensureValid(String name, Object value) {
+        for (String className : RecordKey.parseFields((String) value)) {
+            Class<?> processor;
+            try {
+                processor = Class.forName(className, false, ProcessorClasses.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new ConfigException(name, value, "Class " + className + " not found");
+            }
+            if (!EventProcessor.class.isAssignableFrom(processor)) {
+                throw new ConfigException(name, value, className + " is not an " + EventProcessor.class.getSimpleName());
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "comma separated list of " + EventProcessor.class.getName() + " classes";
+    }
+}
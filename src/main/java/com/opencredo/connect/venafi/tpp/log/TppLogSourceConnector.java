@@ -8,31 +8,108 @@ import org.apache.kafka.connect.source.SourceConnector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-import static com.opencredo.connect.venafi.tpp.log.TppLogSourceConfig.CONFIG_DEF;
+import static com.opencredo.connect.venafi.tpp.log.TppLogSourceConfig.*;
+import static com.opencredo.connect.venafi.tpp.log.TppLogSourceTask.isNotNullOrBlank;
 
 
 public class TppLogSourceConnector extends SourceConnector {
     private static final Logger log = LoggerFactory.getLogger(TppLogSourceConnector.class);
     private Map<String, String> configProperties;
+    private volatile List<TppEndpoint> endpoints;
+    private ScheduledExecutorService endpointsWatcher;
 
     @Override
     public void start(Map<String, String> props) {
 
         log.info("Starting up VENAFI Log Source connector");
+        String endpointsFile;
         try {
             configProperties = setupSourcePropertiesWithDefaultsIfMissing(props);
+            endpointsFile = configProperties.get(ENDPOINTS_FILE_CONFIG);
+            endpoints = resolveEndpoints(isNotNullOrBlank(endpointsFile) ? readEndpointsFile(endpointsFile) : props);
         } catch (ConfigException e) {
             throw new ConnectException("Couldn't start TppLogSourceConnector due to configuration error", e);
+        } catch (IOException e) {
+            throw new ConnectException("Couldn't read the endpoints file of TppLogSourceConnector", e);
+        }
+        log.info("Reading endpoints {}", endpoints);
+        if (isNotNullOrBlank(endpointsFile)) {
+            watchEndpointsFile(endpointsFile, Long.parseLong(configProperties.get(ENDPOINTS_FILE_CHECK_MS_CONFIG)));
         }
     }
 
     private Map<String, String> setupSourcePropertiesWithDefaultsIfMissing(Map<String, String> props) throws ConfigException {
-        return new TppLogSourceConfig(props).returnPropertiesWithDefaultsValuesIfMissing();
+        Map<String, String> config = new TppLogSourceConfig(props).returnPropertiesWithDefaultsValuesIfMissing();
+        if (!isNotNullOrBlank(config.get(BACKFILL_UNTIL_CONFIG))) {
+            //Fixed once per start so every task agrees on where backfill stops and the live tail begins.
+            config.put(BACKFILL_UNTIL_CONFIG, ZonedDateTime.now(ZoneOffset.UTC).format(LogWindow.WINDOW_FORMAT));
+        }
+        if (props.containsKey(NAME_CONFIG)) {
+            config.put(CONNECTOR_NAME, props.get(NAME_CONFIG));
+        }
+        return config;
+    }
+
+    //Endpoint settings come from the connector config or the endpoints file, credentials default to the connector's.
+    private List<TppEndpoint> resolveEndpoints(Map<String, String> endpointProps) {
+        Map<String, String> props = new HashMap<>(configProperties);
+        props.put(ENDPOINTS_CONFIG, endpointProps.getOrDefault(ENDPOINTS_CONFIG, ""));
+        endpointProps.forEach((key, value) -> {
+            if (key.startsWith(ENDPOINT_PREFIX)) {
+                props.put(key, value);
+            }
+        });
+        return TppEndpoint.resolve(props);
+    }
+
+    private static Map<String, String> readEndpointsFile(String endpointsFile) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(Paths.get(endpointsFile), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        Map<String, String> props = new HashMap<>();
+        properties.stringPropertyNames().forEach(key -> props.put(key, properties.getProperty(key)));
+        return props;
+    }
+
+    private void watchEndpointsFile(String endpointsFile, long checkMs) {
+        endpointsWatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "venafi-endpoints-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        endpointsWatcher.scheduleWithFixedDelay(() -> checkEndpointsFile(endpointsFile), checkMs, checkMs, TimeUnit.MILLISECONDS);
+    }
+
+    void checkEndpointsFile(String endpointsFile) {
+        List<TppEndpoint> changed;
+        try {
+            changed = resolveEndpoints(readEndpointsFile(endpointsFile));
+        } catch (IOException | ConfigException e) {
+            log.warn("Keeping endpoints {} as {} couldn't be read", endpoints, endpointsFile, e);
+            return;
+        }
+        if (!changed.equals(endpoints)) {
+            log.info("Endpoints changed from {} to {}, reconfiguring tasks", endpoints, changed);
+            endpoints = changed;
+            context.requestTaskReconfiguration();
+        }
     }
 
     @Override
@@ -40,21 +117,60 @@ public class TppLogSourceConnector extends SourceConnector {
         return TppLogSourceTask.class;
     }
 
+    /**
+     * Shares the endpoints out round robin between the tasks tailing them. With backfill half the tasks at most tail,
+     * the rest each read their share of the windows of every endpoint.
+     */
     @Override
     public List<Map<String, String>> taskConfigs(int maxTasks) {
-        if (maxTasks != 1) {
-            log.info("Ignoring maxTasks as there can only be one.");
+        List<TppEndpoint> endpoints = this.endpoints;
+        boolean backfill = Boolean.parseBoolean(configProperties.get(BACKFILL_ENABLED_CONFIG));
+        if (backfill && maxTasks < 2) {
+            log.info("Backfill needs at least 2 tasks, reading the history in a single task instead.");
+            backfill = false;
+        } else if (!backfill && maxTasks > endpoints.size()) {
+            log.info("Ignoring maxTasks beyond one task per endpoint without backfill, there are {} endpoints.", endpoints.size());
+        }
+        Map<String, String> taskConfig = new HashMap<>(configProperties);
+        taskConfig.put(BACKFILL_ENABLED_CONFIG, String.valueOf(backfill));
+        List<String> names = new ArrayList<>(endpoints.size());
+        for (TppEndpoint endpoint : endpoints) {
+            taskConfig.putAll(endpoint.toProperties());
+            if (!endpoint.isPrimary()) {
+                names.add(endpoint.getName());
+            }
         }
+        taskConfig.put(ENDPOINTS_CONFIG, String.join(",", names));
+
+        int tailTasks = backfill ? Math.max(1, Math.min(endpoints.size(), maxTasks / 2)) : Math.min(endpoints.size(), maxTasks);
         List<Map<String, String>> configs = new ArrayList<>(maxTasks);
-        Map<String, String> taskConfig = new HashMap<>();
-        taskConfig.putAll(configProperties);
-        configs.add(taskConfig);
+        for (int taskIndex = 0; taskIndex < tailTasks; taskIndex++) {
+            List<String> tailed = new ArrayList<>();
+            for (int i = taskIndex; i < endpoints.size(); i += tailTasks) {
+                tailed.add(endpoints.get(i).getName());
+            }
+            Map<String, String> tailConfig = new HashMap<>(taskConfig);
+            tailConfig.put(TASK_ENDPOINTS, String.join(",", tailed));
+            configs.add(tailConfig);
+        }
+
+        if (backfill) {
+            int backfillTasks = maxTasks - tailTasks;
+            for (int taskIndex = 0; taskIndex < backfillTasks; taskIndex++) {
+                Map<String, String> backfillConfig = new HashMap<>(taskConfig);
+                backfillConfig.put(BACKFILL_TASK_INDEX, String.valueOf(taskIndex));
+                backfillConfig.put(BACKFILL_TASK_COUNT, String.valueOf(backfillTasks));
+                configs.add(backfillConfig);
+            }
+        }
         return configs;
     }
 
     @Override
     public void stop() {
-
+        if (endpointsWatcher != null) {
+            endpointsWatcher.shutdownNow();
+        }
     }
 
     @Override
@@ -0,0 +1,148 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.api.client.CircuitBreaker;
+import com.opencredo.connect.venafi.tpp.log.api.client.LogsClient;
+import com.opencredo.connect.venafi.tpp.log.api.client.TokenClient;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.JmxReporter;
+import org.apache.kafka.common.metrics.Measurable;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.*;
+import org.apache.kafka.common.utils.Time;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of one task, registered as MBeans the way Kafka Connect registers its own, e.g.
+ * kafka.connect.venafi:type=source-task-metrics,connector=...,url=...,task=tail. Fetch phases are recorded from
+ * whichever thread fetches, conversion from the task thread. Token metrics belong to the login, which tasks may share.
+ */
+public class TppLogSourceMetrics implements Closeable {
+
+    static final String JMX_PREFIX = "kafka.connect.venafi";
+    static final String GROUP = "source-task-metrics";
+    private static final int HISTOGRAM_BYTES = 4_000;
+    private static final long NANOS_PER_MS_LONG = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double NANOS_PER_MS = NANOS_PER_MS_LONG;
+
+    private final Metrics metrics;
+    private final Map<String, String> tags;
+    private final Sensor records;
+    private final Sensor bytes;
+    private final Sensor authTime;
+    private final Sensor httpTime;
+    private final Sensor decodeTime;
+    private final Sensor convertTime;
+    private final Sensor pageFill;
+    private volatile long lastServerTimestampMs = -1L;
+
+    /**
+     * @param connector name of the connector, left out of the tags if unknown.
+     * @param maxLatencyMs upper bound of the latency histograms, latencies above it land in the last bucket.
+     */
+    public TppLogSourceMetrics(String connector, String url, String task, long maxLatencyMs) {
+        this.metrics = new Metrics(new MetricConfig(), Collections.singletonList(new JmxReporter(JMX_PREFIX)), Time.SYSTEM);
+        Map<String, String> tags = new LinkedHashMap<>();
+        if (TppLogSourceTask.isNotNullOrBlank(connector)) {
+            tags.put("connector", connector);
+        }
+        tags.put("url", url);
+        tags.put("task", task);
+        this.tags = Collections.unmodifiableMap(tags);
+
+        records = metrics.sensor("records");
+        records.add(name("records-rate", "Events handed to Connect per second."), new Rate());
+        records.add(name("records-total", "Events handed to Connect."), new Total());
+        bytes = metrics.sensor("bytes");
+        bytes.add(name("bytes-rate", "Bytes of log responses read per second."), new Rate());
+        bytes.add(name("bytes-total", "Bytes of log responses read."), new Total());
+        authTime = latencySensor("auth-time-ms", "getting a token, mostly handed out without a call to TPP", maxLatencyMs);
+        httpTime = latencySensor("http-time-ms", "a log request until its body starts being decoded", maxLatencyMs);
+        decodeTime = latencySensor("decode-time-ms", "reading and decoding a log response body", maxLatencyMs);
+        convertTime = latencySensor("convert-time-ms", "turning a page into source records", maxLatencyMs);
+        pageFill = metrics.sensor("page-fill");
+        pageFill.add(name("page-fill-ratio-avg", "Average share of the Limit a log response filled."), new Avg());
+        addGauge("event-lag-ms", "Wall clock minus the ServerTimestamp of the last event handed to Connect.",
+                (config, now) -> lastServerTimestampMs < 0 ? Double.NaN : now - lastServerTimestampMs);
+    }
+
+    private Sensor latencySensor(String name, String description, long maxLatencyMs) {
+        Sensor sensor = metrics.sensor(name);
+        sensor.add(name(name + "-avg", "Average time in ms spent " + description + "."), new Avg());
+        sensor.add(name(name + "-max", "Longest time in ms spent " + description + "."), new Max());
+        sensor.add(new Percentiles(HISTOGRAM_BYTES, maxLatencyMs, Percentiles.BucketSizing.LINEAR,
+                new Percentile(name(name + "-p50", "Median time in ms spent " + description + "."), 50),
+                new Percentile(name(name + "-p99", "99th percentile of the time in ms spent " + description + "."), 99)));
+        return sensor;
+    }
+
+    private MetricName name(String name, String description) {
+        return metrics.metricName(name, GROUP, description, tags);
+    }
+
+    private void addGauge(String name, String description, Measurable gauge) {
+        metrics.addMetric(name(name, description), gauge);
+    }
+
+    void bindBatchSizes(BatchSizeController batchSizes) {
+        addGauge("batch-size", "Limit of the next log request.", (config, now) -> batchSizes.getBatchSize());
+    }
+
+    void bindScheduler(PollScheduler scheduler) {
+        addGauge("poll-idle-ratio", "Share of the time spent waiting for the next fetch rather than fetching.",
+                (config, now) -> scheduler.getIdleRatio());
+    }
+
+    void bindClients(TokenClient tokenClient, LogsClient logsClient) {
+        addGauge("token-authorize-total", "New tokens asked for with the credentials of this task's login.",
+                (config, now) -> tokenClient.getAuthorizations());
+        addGauge("token-refresh-total", "Tokens asked for with a refresh token for this task's login.",
+                (config, now) -> tokenClient.getRefreshes());
+        bindCircuitBreaker("auth", tokenClient.getCircuitBreaker());
+        bindCircuitBreaker("logs", logsClient.getCircuitBreaker());
+    }
+
+    private void bindCircuitBreaker(String prefix, CircuitBreaker breaker) {
+        addGauge(prefix + "-circuit-state", "0 when " + prefix + " requests flow, 1 while the circuit is open, 2 during a trial request.",
+                (config, now) -> breaker.getState().ordinal());
+        addGauge(prefix + "-circuit-opened-total", "Times the " + prefix + " circuit opened.",
+                (config, now) -> breaker.getTimesOpened());
+        addGauge(prefix + "-failure-total", "Failed " + prefix + " requests.",
+                (config, now) -> breaker.getTotalFailures());
+        addGauge(prefix + "-backoff-remaining-ms", "Time until " + prefix + " requests are let through again.",
+                (config, now) -> breaker.getBackoffRemainingMs());
+    }
+
+    void recordAuth(long nanos) {
+        authTime.record(nanos / NANOS_PER_MS);
+    }
+
+    void recordFetch(int limit, int events, long requestNanos, long decodeNanos, long responseBytes) {
+        httpTime.record((requestNanos - decodeNanos) / NANOS_PER_MS);
+        decodeTime.record(decodeNanos / NANOS_PER_MS);
+        bytes.record(responseBytes);
+        pageFill.record((double) events / limit);
+    }
+
+    /**
+     * @param lastServerTimeNanos ServerTimestamp of the last record in nanoseconds since the epoch, ignored without records.
+     */
+    void recordConversion(int recordCount, long nanos, long lastServerTimeNanos) {
+        convertTime.record(nanos / NANOS_PER_MS);
+        records.record(recordCount);
+        if (recordCount > 0) {
+            lastServerTimestampMs = Math.floorDiv(lastServerTimeNanos, NANOS_PER_MS_LONG);
+        }
+    }
+
+    @Override
+    public void close() {
+        metrics.close();
+    }
+}
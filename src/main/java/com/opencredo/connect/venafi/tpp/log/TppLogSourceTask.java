@@ -1,33 +1,66 @@
 package com.opencredo.connect.venafi.tpp.log;
 
-import com.opencredo.connect.venafi.tpp.log.api.client.LogsClient;
-import com.opencredo.connect.venafi.tpp.log.api.client.TokenClient;
+import com.opencredo.connect.venafi.tpp.log.api.client.AsyncHttpTransport;
+import com.opencredo.connect.venafi.tpp.log.api.client.AsyncLogsClient;
+import com.opencredo.connect.venafi.tpp.log.jfr.Jfr;
+import com.opencredo.connect.venafi.tpp.log.jfr.PollEvent;
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
 import com.opencredo.connect.venafi.tpp.log.model.EventLog;
-import com.opencredo.connect.venafi.tpp.log.model.LogResponse;
+import com.opencredo.connect.venafi.tpp.log.model.OutputFormat;
+import com.opencredo.connect.venafi.tpp.log.model.RecordTimestamp;
+import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.apache.kafka.connect.source.SourceTask;
 import org.slf4j.LoggerFactory;
 
-import java.time.format.DateTimeFormatter;
+import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static com.opencredo.connect.venafi.tpp.log.TppLogSourceConfig.*;
 
 public class TppLogSourceTask extends SourceTask {
 
     public static final String URL = "url";
+    public static final String WINDOW = "window";
+    public static final String CURSOR_VERSION = "v";
+    public static final String CURSOR_TIME = "ts";
+    public static final String CURSOR_TIES = "n";
+    public static final String CURSOR_TAIL_FROM = "tail";
+    //Offset keys before the cursor was versioned, still read on restore.
     public static final String LAST_READ = "last_read";
     public static final String LAST_API_OFFSET = "last_api_offset";
     public static final String DEFAULT_FROM_TIME = "1984-05-04T00:00:00.0000000Z";
     private static final org.slf4j.Logger log = LoggerFactory.getLogger(TppLogSourceTask.class);
-    private String fromDate = DEFAULT_FROM_TIME;
-    private String baseUrl;
+    private final List<EndpointReader> readers = new ArrayList<>();
+    //Which endpoint each window belongs to, by identity as windows of different endpoints may look alike.
+    private final Map<LogWindow, EndpointReader> windowReaders = new IdentityHashMap<>();
+    private String taskName;
     private String topic;
-    private String batchSize;
-    private long apiOffset;
-    private Long interval;
-    private Long last_execution = 0L;
-    private TokenClient tokenClient;
+    private OutputFormat outputFormat;
+    private RecordKey recordKey;
+    private RecordTimestamp recordTimestamp;
+    private EventHeaders eventHeaders;
+    private EventFilter eventFilter;
+    private EventProcessors processors;
+    private boolean catchUp;
+    private int maxPollBytes;
+    //Pages fetched ahead by the prefetchers or fetcher of all endpoints, null when fetching on the task thread.
+    private BlockingQueue<LogPage> prefetchedPages;
+    //Set when fetching through the non-blocking client.
+    private AsyncHttpTransport asyncTransport;
+    private ExecutorService fetchWorkers;
+    private AsyncLogFetcher fetcher;
+    //Where the next search for an endpoint due a fetch starts, so endpoints catching up take turns.
+    private int nextReader;
+    //The endpoint whose page the last poll handed over.
+    private EndpointReader polled;
+    //A page larger than maxPollBytes, handed to Connect over several polls.
+    private LogPage pendingPage;
 
     static boolean isNotNullOrBlank(String str) {
         return str != null && !str.trim().isEmpty();
@@ -42,109 +75,351 @@ public class TppLogSourceTask extends SourceTask {
     public void start(Map<String, String> props) {
         setupTaskConfig(props);
 
-        log.debug("Trying to get persistedMap.");
-        Map<String, Object> persistedMap = null;
-        if (context != null && context.offsetStorageReader() != null) {
-            persistedMap = context.offsetStorageReader().offset(Collections.singletonMap(URL, baseUrl));
+        List<TppEndpoint> endpoints = TppEndpoint.named(TppEndpoint.resolve(props), props.get(TASK_ENDPOINTS));
+        int prefetchPages = Integer.parseInt(props.get(PREFETCH_PAGES_CONFIG));
+        boolean async = Boolean.parseBoolean(props.get(FETCH_ASYNC_CONFIG));
+        if (async && (isNotNullOrBlank(props.get(CAPTURE_DIR_CONFIG)) || isNotNullOrBlank(props.get(REPLAY_DIR_CONFIG)))) {
+            log.info("Fetching a request at a time while capturing or replaying, as captures are read and written blocking.");
+            async = false;
         }
-        log.info("The persistedMap is {}", persistedMap);
-        if (persistedMap != null) {
-            String lastRead = (String) persistedMap.get(LAST_READ);
-            if (isNotNullOrBlank(lastRead)) {
-                fromDate = lastRead;
-            }
+        int queuedPages = (async ? Math.max(1, prefetchPages) : prefetchPages) * endpoints.size();
+        long maxPageBytes = pageBudget(queuedPages, async || prefetchPages == 0 ? 0 : endpoints.size());
 
-            Object lastApiOffset = persistedMap.get(LAST_API_OFFSET);
-            if (lastApiOffset != null) {
-                apiOffset = (Long) lastApiOffset;
+        Set<String> rawFields = rawFields();
+        for (TppEndpoint endpoint : endpoints) {
+            readers.add(new EndpointReader(endpoint, taskName, props, outputFormat, rawFields, eventFilter.getQuery(), maxPageBytes));
+        }
+        if (readers.isEmpty()) {
+            throw new ConnectException("Task " + taskName + " has none of the endpoints " + props.get(TASK_ENDPOINTS));
+        }
+        polled = readers.get(0);
+        setupWindows(props);
+
+        if (async) {
+            prefetchedPages = new ArrayBlockingQueue<>(queuedPages);
+            startAsyncFetching(props, rawFields, maxPageBytes);
+        } else if (prefetchPages > 0) {
+            prefetchedPages = new ArrayBlockingQueue<>(queuedPages);
+            readers.forEach(reader -> reader.startPrefetching(prefetchedPages, catchUp));
+        }
+    }
+
+    /**
+     * Shares the poll byte budget among every page the task may hold at once: those queued, the one each blocking
+     * prefetcher holds while waiting for room in the queue, and the one being handed to Connect.
+     *
+     * @return bytes of events a page may hold, 0 for no limit.
+     */
+    private long pageBudget(int queuedPages, int prefetchers) {
+        if (maxPollBytes == 0) {
+            return 0L;
+        }
+        return Math.max(1L, maxPollBytes / (queuedPages + prefetchers + 1L));
+    }
+
+    private void startAsyncFetching(Map<String, String> props, Set<String> rawFields, long maxPageBytes) {
+        asyncTransport = new AsyncHttpTransport(
+                Integer.parseInt(props.get(HTTP_CONNECT_TIMEOUT_CONFIG)),
+                Integer.parseInt(props.get(HTTP_READ_TIMEOUT_CONFIG)),
+                Integer.parseInt(props.get(HTTP_MAX_CONNECTIONS_CONFIG)),
+                readers.size());
+        fetchWorkers = Executors.newFixedThreadPool(Math.min(readers.size(), Runtime.getRuntime().availableProcessors()), runnable -> {
+            Thread thread = new Thread(runnable, "venafi-log-worker-" + taskName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<AsyncLogsClient> clients = new ArrayList<>(readers.size());
+        for (EndpointReader reader : readers) {
+            //Shares the breaker of the blocking client, whose metrics are bound already.
+            clients.add(new AsyncLogsClient(reader.getEndpoint().getBaseUrl(), asyncTransport,
+                    reader.getLogsClient().getCircuitBreaker(), outputFormat, rawFields, eventFilter.getQuery(), maxPageBytes, fetchWorkers));
+        }
+        fetcher = new AsyncLogFetcher(prefetchedPages, readers, clients, fetchWorkers,
+                Long.parseLong(props.get(POLL_INTERVAL)), catchUp, Integer.parseInt(props.get(FETCH_MAX_IN_FLIGHT_CONFIG)));
+        fetcher.start("venafi-log-fetch-" + taskName);
+    }
+
+    //Restores the windows of every endpoint from offsets read in one go, rather than a round trip to the offset store per endpoint and window.
+    private void setupWindows(Map<String, String> props) {
+        boolean backfillTask = props.containsKey(BACKFILL_TASK_INDEX);
+        List<Map<String, Object>> partitions = new ArrayList<>();
+        for (EndpointReader reader : readers) {
+            String baseUrl = reader.getEndpoint().getBaseUrl();
+            partitions.add(LogWindow.tail(baseUrl, DEFAULT_FROM_TIME).getPartition());
+            if (backfillTask) {
+                //Windows up to the configured end, those past where the tail started are only dropped once its offset is read.
+                backfillWindows(baseUrl, props, ZonedDateTime.parse(props.get(BACKFILL_UNTIL_CONFIG)))
+                        .forEach(window -> partitions.add(window.getPartition()));
             }
+        }
 
+        log.debug("Trying to get persisted offsets of {} partitions.", partitions.size());
+        Map<Map<String, Object>, Map<String, Object>> persistedMaps = Collections.emptyMap();
+        if (context != null && context.offsetStorageReader() != null) {
+            persistedMaps = context.offsetStorageReader().offsets(partitions);
+        }
 
+        for (EndpointReader reader : readers) {
+            if (backfillTask) {
+                setupBackfillWindows(reader, props, persistedMaps);
+            } else {
+                setupTailWindow(reader, props, persistedMaps);
+            }
+            reader.getWindows().forEach(window -> windowReaders.put(window, reader));
         }
     }
 
-    private void setupTaskConfig(Map<String, String> props) {
-        baseUrl = props.get(BASE_URL_CONFIG);
-        topic = props.get(TOPIC_CONFIG);
-        batchSize = props.get(BATCH_SIZE);
-        interval = Long.parseLong(props.get(POLL_INTERVAL));
+    private void setupTailWindow(EndpointReader reader, Map<String, String> props, Map<Map<String, Object>, Map<String, Object>> persistedMaps) {
+        String baseUrl = reader.getEndpoint().getBaseUrl();
+        LogWindow tail;
+        if (Boolean.parseBoolean(props.get(BACKFILL_ENABLED_CONFIG))) {
+            tail = LogWindow.tailAfterBackfill(baseUrl, props.get(BACKFILL_UNTIL_CONFIG));
+        } else {
+            tail = LogWindow.tail(baseUrl, DEFAULT_FROM_TIME);
+        }
 
-        String username = props.get(USERNAME_CONFIG);
-        String password = props.get(PASSWORD_CONFIG);
-        String scope = props.get(SCOPE_CONFIG);
-        String clientId = props.get(CLIENT_ID_CONFIG);
-        tokenClient = new TokenClient(username, password, scope, clientId);
+        Map<String, Object> persistedMap = persistedMaps.get(tail.getPartition());
+        log.info("The persistedMap of {} is {}", reader.getEndpoint(), persistedMap);
+        tail.restore(persistedMap);
+        reader.getWindows().add(tail);
     }
 
-    @Override
-    public List<SourceRecord> poll() {
-        if (System.currentTimeMillis() > (last_execution + interval)) {
-            last_execution = System.currentTimeMillis();
-            String token = getToken();
-            if (isNotNullOrBlank(token)) {
-                return getTppLogsAsSourceRecords(token);
-            }
+    private void setupBackfillWindows(EndpointReader reader, Map<String, String> props, Map<Map<String, Object>, Map<String, Object>> persistedMaps) {
+        String baseUrl = reader.getEndpoint().getBaseUrl();
+        ZonedDateTime until = ZonedDateTime.parse(props.get(BACKFILL_UNTIL_CONFIG));
+        LogCursor tailCursor = LogCursor.parse(persistedMaps.get(LogWindow.tail(baseUrl, DEFAULT_FROM_TIME).getPartition()));
+        if (tailCursor != null) {
+            //The tail may have started at an earlier boundary, or predate backfill and have read everything itself.
+            long tailFrom = tailCursor.getTailFromNanos();
+            until = tailFrom != LogCursor.NONE ? LogWindow.toDateTime(tailFrom) : ZonedDateTime.parse(props.get(BACKFILL_FROM_CONFIG));
         }
-        return Collections.emptyList();
 
+        //An earlier end only shortens or drops windows, so their partitions are among the ones already read.
+        List<LogWindow> backfill = backfillWindows(baseUrl, props, until);
+        for (LogWindow window : backfill) {
+            window.restore(persistedMaps.get(window.getPartition()));
+        }
+        reader.getWindows().addAll(backfill);
+        log.info("Backfill task {} of {} is reading {} windows of {} until {}", Integer.parseInt(props.get(BACKFILL_TASK_INDEX)) + 1, props.get(BACKFILL_TASK_COUNT), backfill.size(), reader.getEndpoint(), until);
     }
 
+    private static List<LogWindow> backfillWindows(String baseUrl, Map<String, String> props, ZonedDateTime until) {
+        return LogWindow.backfill(baseUrl,
+                ZonedDateTime.parse(props.get(BACKFILL_FROM_CONFIG)),
+                until,
+                Long.parseLong(props.get(BACKFILL_WINDOW_HOURS_CONFIG)),
+                Integer.parseInt(props.get(BACKFILL_TASK_INDEX)),
+                Integer.parseInt(props.get(BACKFILL_TASK_COUNT)));
+    }
 
-    private List<SourceRecord> getTppLogsAsSourceRecords(String token) {
+    private void setupTaskConfig(Map<String, String> props) {
+        taskName = props.containsKey(BACKFILL_TASK_INDEX) ? "backfill-" + props.get(BACKFILL_TASK_INDEX) : "tail";
+        topic = props.get(TOPIC_CONFIG);
+        outputFormat = OutputFormat.parse(props.get(OUTPUT_FORMAT_CONFIG));
+        recordKey = RecordKey.of(props.get(KEY_FIELDS_CONFIG), Integer.parseInt(props.get(KEY_PARTITIONS_CONFIG)));
+        recordTimestamp = RecordTimestamp.parse(props.get(RECORD_TIMESTAMP_CONFIG));
+        eventHeaders = new EventHeaders(props.get(HEADERS_CONFIG));
+        eventFilter = new EventFilter(
+                props.get(FILTER_MIN_SEVERITY_CONFIG),
+                props.get(FILTER_COMPONENTS_CONFIG),
+                props.get(FILTER_GROUPINGS_CONFIG),
+                props.get(FILTER_EVENT_IDS_CONFIG),
+                Boolean.parseBoolean(props.get(FILTER_PUSHDOWN_CONFIG)));
+        processors = new EventProcessors(props.get(PROCESSORS_CONFIG), props);
+        catchUp = Boolean.parseBoolean(props.get(CATCH_UP_CONFIG));
+        maxPollBytes = Integer.parseInt(props.get(POLL_MAX_BYTES_CONFIG));
+    }
 
-        List<EventLog> jsonLogs = getTppLogs(token, fromDate, apiOffset);
-        ArrayList<SourceRecord> records = new ArrayList<>();
-        for (EventLog eventLog : jsonLogs) {
+    //What raw events have to be scanned for besides the cursor fields, Structs have every field anyway.
+    private Set<String> rawFields() {
+        Set<String> fields = new LinkedHashSet<>(recordKey.getFields());
+        fields.addAll(eventHeaders.getFields());
+        fields.addAll(eventFilter.getFields());
+        fields.addAll(processors.getFields());
+        if (recordTimestamp == RecordTimestamp.CLIENT) {
+            fields.add(EventLog.CLIENT_TIMESTAMP);
+        }
+        return fields;
+    }
 
-            String newFromDate = eventLog.getClientTimestamp().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
-            apiOffset = calculateApiOffset(apiOffset, newFromDate, fromDate);
-            fromDate = newFromDate;
+    @Override
+    public List<SourceRecord> poll() {
+        PollEvent event = Jfr.AVAILABLE ? new PollEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        List<SourceRecord> records;
+        if (pendingPage != null) {
+            records = getTppLogsAsSourceRecords(pendingPage);
+        } else {
+            records = prefetchedPages != null ? pollPrefetchedPage() : pollFetchedPage();
+        }
+        if (event != null) {
+            event.finish(polled.getEndpoint().getBaseUrl(), taskName, records.size(), polled.getBatchSizes().getBatchSize(), prefetchedPages != null);
+        }
+        return records;
+    }
 
-            log.debug(" The fromDate is now {}.", fromDate);
-            records.add(buildSourceRecord(eventLog, fromDate, apiOffset));
+    private List<SourceRecord> pollFetchedPage() {
+        EndpointReader reader = nextDueReader();
+        PollScheduler scheduler = reader.getScheduler();
+        try {
+            if (!scheduler.awaitNextFetch()) {
+                return Collections.emptyList();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
         }
 
+        boolean catchingUp = false;
+        List<SourceRecord> records = Collections.emptyList();
+        List<LogWindow> windows = reader.getWindows();
+        LogWindow window = LogWindow.firstOpen(windows);
+        if (window != null) {
+            LogPage page = reader.fetchPage(window);
+            if (page != null) {
+                records = getTppLogsAsSourceRecords(page);
+                //A full page or a finished window means there is more to read right away, a short page means we caught up.
+                //A bounded window is only found finished once the last slice of its short page has been handed over.
+                catchingUp = catchUp && (page.isFull() || (window.isBounded() && !page.isDone())
+                        || (window.isExhausted() && LogWindow.firstOpen(windows) != null));
+            }
+        }
+        scheduler.fetched(catchingUp);
+        log.trace("Poll scheduler idle ratio of {} is {}, log request limit is {}", reader.getEndpoint(), scheduler.getIdleRatio(), reader.getBatchSizes().getBatchSize());
         return records;
     }
 
-    private SourceRecord buildSourceRecord(EventLog eventLog, String lastRead, Long apiOffset) {
-        Map<String, Object> sourceOffset = buildSourceOffset(lastRead, apiOffset);
-        Map<String, Object> sourcePartition = buildSourcePartition();
-        return new SourceRecord(sourcePartition, sourceOffset, topic, EventLog.TppLogSchema(), eventLog.toStruct());
+    //The endpoint due a fetch first, of those due now the first after the one fetched last.
+    private EndpointReader nextDueReader() {
+        int next = nextReader;
+        long nextWait = Long.MAX_VALUE;
+        for (int i = 0; i < readers.size() && nextWait > 0; i++) {
+            int index = (nextReader + i) % readers.size();
+            long wait = readers.get(index).getScheduler().getNanosUntilNextFetch();
+            if (wait < nextWait) {
+                next = index;
+                nextWait = wait;
+            }
+        }
+        nextReader = (next + 1) % readers.size();
+        return readers.get(next);
     }
 
-    private long calculateApiOffset(long currentLoopOffset, String newFromDate, String oldFromDate) {
-        if (newFromDate.equals(oldFromDate)) {
-            return ++currentLoopOffset;
+    private List<SourceRecord> pollPrefetchedPage() {
+        try {
+            LogPage page = prefetchedPages.poll(PollScheduler.MAX_BLOCK_MS, TimeUnit.MILLISECONDS);
+            if (page == null) {
+                return Collections.emptyList();
+            }
+            return getTppLogsAsSourceRecords(page);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
         }
-        return 1L;
     }
 
-    private Map<String, Object> buildSourcePartition() {
-        return Collections.singletonMap(URL, baseUrl);
+    /**
+     * Converts the events of the page not yet handed to Connect, or as many of them as fit in the poll's byte budget,
+     * in which case the rest of the page is left for the next polls. A slice always holds at least one record, unless
+     * the filter and processors drop all the events left on the page.
+     */
+    List<SourceRecord> getTppLogsAsSourceRecords(LogPage page) {
+        long start = System.nanoTime();
+        LogWindow window = page.getWindow();
+        List<DecodedEvent> jsonLogs = page.getEvents();
+
+        ArrayList<SourceRecord> records = new ArrayList<>();
+        long lastServerTimeNanos = 0L;
+        long sliceBytes = 0L;
+        int position = page.getPosition();
+        for (; position < jsonLogs.size(); position++) {
+            DecodedEvent event = jsonLogs.get(position);
+            if (maxPollBytes > 0 && sliceBytes + event.getSizeBytes() > maxPollBytes && !records.isEmpty()) {
+                break;
+            }
+            if (!window.accept(event)) {
+                position = jsonLogs.size();
+                break;
+            }
+            //Dropped events still move the cursor, the next record's offset is past them.
+            if (!eventFilter.accepts(event)) {
+                continue;
+            }
+
+            if (processors.isEmpty()) {
+                sliceBytes += event.getSizeBytes();
+                records.add(buildSourceRecord(event, window));
+            } else {
+                for (DecodedEvent processed : processors.process(event)) {
+                    sliceBytes += processed.getSizeBytes();
+                    records.add(buildSourceRecord(processed, window));
+                }
+            }
+            lastServerTimeNanos = event.getServerTimeNanos();
+        }
+        page.setPosition(position);
+        log.debug(" The fromDate is now {}.", window.getFromDate());
+        polled = windowReaders.getOrDefault(window, readers.get(0));
+        polled.getMetrics().recordConversion(records.size(), System.nanoTime() - start, lastServerTimeNanos);
+
+        if (!page.isDone()) {
+            pendingPage = page;
+            return records;
+        }
+        pendingPage = null;
+        window.pageDone(page.isFull());
+        if (window.isExhausted()) {
+            log.info("Finished reading backfill window {}", window);
+        }
+
+        return records;
     }
 
-    private Map<String, Object> buildSourceOffset(String lastRead, Long apiOffset) {
-        Map<String, Object> sourceOffset = new HashMap<>();
-        sourceOffset.put(LAST_READ, lastRead);
-        sourceOffset.put(LAST_API_OFFSET, apiOffset);
-        return sourceOffset;
+    private SourceRecord buildSourceRecord(DecodedEvent event, LogWindow window) {
+        Object key = recordKey.keyOf(event);
+        return new SourceRecord(window.getPartition(), window.buildSourceOffset(), topic, recordKey.partitionOf(key),
+                recordKey.getSchema(), key, outputFormat.getSchema(), event.getValue(), recordTimestamp.of(event), eventHeaders.headersOf(event));
     }
 
-    List<EventLog> getTppLogs(String token, String date, long offset) {
-        LogResponse logResponse = LogsClient.getLogs(token, date, baseUrl, batchSize, offset);
+    /**
+     * @return a token of the task's first endpoint.
+     */
+    String getToken() {
+        return readers.get(0).getToken();
+    }
 
-        return logResponse.getLogEvents();
+    /**
+     * @return the idle ratio of the task's first endpoint.
+     */
+    double getIdleRatio() {
+        return readers.get(0).getScheduler().getIdleRatio();
     }
 
-    String getToken() {
-        return tokenClient.getToken(baseUrl);
+    /**
+     * @return the Limit the next log request of the task's first endpoint will use.
+     */
+    int getBatchSize() {
+        return readers.get(0).getBatchSizes().getBatchSize();
     }
 
     @Override
     public void stop() {
-
+        if (fetcher != null) {
+            fetcher.stop();
+        }
+        if (fetchWorkers != null) {
+            fetchWorkers.shutdownNow();
+        }
+        if (asyncTransport != null) {
+            asyncTransport.close();
+        }
+        readers.forEach(EndpointReader::stop);
+        readers.forEach(EndpointReader::close);
+        readers.clear();
+        if (processors != null) {
+            processors.close();
+        }
     }
-
-
 }
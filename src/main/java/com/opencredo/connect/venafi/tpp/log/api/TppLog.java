@@ -1,17 +1,19 @@
 package com.opencredo.connect.venafi.tpp.log.api;
 
-import com.opencredo.connect.venafi.tpp.log.model.LogResponse;
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
 import feign.Headers;
 import feign.Param;
 import feign.QueryMap;
 import feign.RequestLine;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public interface TppLog {
 
     String FROM_TIME = "FromTime";
+    String TO_TIME = "ToTime";
     String LIMIT = "Limit";
     String ORDER = "Order";
     String ORDERING = "ServerTimestamp";
@@ -19,16 +21,22 @@ public interface TppLog {
 
     @RequestLine("GET /vedsdk/Log")
     @Headers({"Content-Type: application/json", "Authorization: Bearer {token}"})
-    LogResponse getLogs(@Param("token") String token, @QueryMap Map<String, Object> queryMap);
+    List<DecodedEvent> getLogs(@Param("token") String token, @QueryMap Map<String, Object> queryMap);
 
-    //If we in the future need to send a query Param with +
-    // be aware VENAFI LOG server decodes plus as space so we'd have to actively encode + as %2B
-    default LogResponse getLogs(String token, String fromTime, String limit, long offset) {
-        Map<String, Object> queryParams = new HashMap<>();
+    /**
+     * @param filters further query filters, such as Severity, narrowing down which events TPP returns.
+     */
+    static Map<String, Object> query(String fromTime, String toTime, String limit, long offset, Map<String, Object> filters) {
+        Map<String, Object> queryParams = new HashMap<>(filters);
+        //If we in the future need to send a query Param with +
+        // be aware VENAFI LOG server decodes plus as space so we'd have to actively encode + as %2B
         queryParams.put(FROM_TIME, fromTime);
+        if (toTime != null) {
+            queryParams.put(TO_TIME, toTime);
+        }
         queryParams.put(LIMIT, limit);
         queryParams.put(OFFSET, offset);
         queryParams.put(ORDER, ORDERING);
-        return getLogs(token, queryParams);
+        return queryParams;
     }
 }
@@ -0,0 +1,21 @@
+package com.opencredo.connect.venafi.tpp.log.api;
+
+import feign.Headers;
+import feign.Param;
+import feign.QueryMap;
+import feign.RequestLine;
+import feign.Response;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link TppLog} without blocking the calling thread. The response is handed back undecoded whatever its status,
+ * so decoding happens off the HTTP client's I/O threads.
+ */
+public interface TppLogAsync {
+
+    @RequestLine("GET /vedsdk/Log")
+    @Headers({"Content-Type: application/json", "Authorization: Bearer {token}"})
+    CompletableFuture<Response> getLogs(@Param("token") String token, @QueryMap Map<String, Object> queryMap);
+}
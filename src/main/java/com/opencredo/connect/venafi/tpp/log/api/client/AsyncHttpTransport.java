@@ -0,0 +1,69 @@
+package com.opencredo.connect.venafi.tpp.log.api.client;
+
+import feign.AsyncClient;
+import feign.Request;
+import feign.hc5.AsyncApacheHttp5Client;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A non-blocking HTTP client shared by the endpoints of one task. Requests to all of them are multiplexed over a
+ * single I/O thread, so many TPP servers can be kept busy without a thread per server or per request in flight.
+ */
+public class AsyncHttpTransport implements Closeable {
+
+    private static final TimeValue IDLE_CONNECTION_EVICTION = TimeValue.ofSeconds(30);
+
+    private final CloseableHttpAsyncClient httpClient;
+    private final AsyncClient<HttpClientContext> client;
+    private final Request.Options options;
+
+    /**
+     * @param maxConnectionsPerEndpoint keep-alive connections pooled for each TPP server.
+     * @param endpoints                 number of TPP servers the pool is shared by.
+     */
+    public AsyncHttpTransport(int connectTimeoutMs, int readTimeoutMs, int maxConnectionsPerEndpoint, int endpoints) {
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnectionsPerEndpoint * endpoints)
+                .setMaxConnPerRoute(maxConnectionsPerEndpoint)
+                .build();
+        httpClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(1)
+                        .setSoTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setSoKeepAlive(true)
+                        .build())
+                .evictIdleConnections(IDLE_CONNECTION_EVICTION)
+                //Failed requests back off through the clients' circuit breakers.
+                .disableAutomaticRetries()
+                .build();
+        httpClient.start();
+        client = new AsyncApacheHttp5Client(httpClient);
+        options = new Request.Options(connectTimeoutMs, TimeUnit.MILLISECONDS, readTimeoutMs, TimeUnit.MILLISECONDS, true);
+    }
+
+    public AsyncClient<HttpClientContext> getClient() {
+        return client;
+    }
+
+    public Request.Options getOptions() {
+        return options;
+    }
+
+    @Override
+    public void close() {
+        //Requests still in flight are cancelled, their pages would be fetched again from the committed offsets.
+        httpClient.close(CloseMode.IMMEDIATE);
+    }
+}
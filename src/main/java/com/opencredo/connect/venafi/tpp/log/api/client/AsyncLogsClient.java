@@ -0,0 +1,183 @@
+package com.opencredo.connect.venafi.tpp.log.api.client;
+
+import com.opencredo.connect.venafi.tpp.log.Deserializer.RawEventScanner;
+import com.opencredo.connect.venafi.tpp.log.api.TppLog;
+import com.opencredo.connect.venafi.tpp.log.api.TppLogAsync;
+import com.opencredo.connect.venafi.tpp.log.api.client.LogsClient.Outcome;
+import com.opencredo.connect.venafi.tpp.log.jfr.Jfr;
+import com.opencredo.connect.venafi.tpp.log.jfr.LogRequestEvent;
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+import com.opencredo.connect.venafi.tpp.log.model.OutputFormat;
+import feign.AsyncFeign;
+import feign.Response;
+import feign.codec.ErrorDecoder;
+import feign.slf4j.Slf4jLogger;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link LogsClient} for the {@link AsyncHttpTransport}: requests return straight away and complete once their
+ * response is decoded, on the given executor rather than the transport's I/O thread. Unlike {@link LogsClient} it
+ * keeps no state between requests, so several may be in flight at once.
+ */
+public class AsyncLogsClient {
+    private static final org.slf4j.Logger log = LoggerFactory.getLogger(AsyncLogsClient.class);
+    private static final ErrorDecoder ERROR_DECODER = new ErrorDecoder.Default();
+    private static final String METHOD_KEY = "TppLogAsync#getLogs";
+
+    private final String baseUrl;
+    private final TppLogAsync tppLog;
+    private final CircuitBreaker breaker;
+    private final OutputFormat format;
+    private final RawEventScanner rawScanner;
+    private final Executor decoder;
+    private final Map<String, Object> filters;
+    private final long maxPageBytes;
+
+    /**
+     * @param rawFields    fields to read from events besides the cursor fields with a raw format, Structs have them all.
+     * @param filters      query filters added to every log request, see {@link TppLog#query(String, String, String, long, Map)}.
+     * @param maxPageBytes how many bytes of events to decode from a response at most, 0 for all of them.
+     * @param decoder      runs the decoding of responses.
+     */
+    public AsyncLogsClient(String baseUrl, AsyncHttpTransport transport, CircuitBreaker breaker, OutputFormat format, Collection<String> rawFields,
+                           Map<String, Object> filters, long maxPageBytes, Executor decoder) {
+        this.baseUrl = baseUrl;
+        this.maxPageBytes = maxPageBytes;
+        this.breaker = breaker;
+        this.format = format;
+        this.rawScanner = LogsClient.rawScanner(rawFields);
+        this.decoder = decoder;
+        this.filters = filters;
+        this.tppLog = AsyncFeign.<HttpClientContext>asyncBuilder()
+                .client(transport.getClient())
+                .options(transport.getOptions())
+                .logger(new Slf4jLogger())
+                .target(TppLogAsync.class, baseUrl);
+    }
+
+    /**
+     * @return the decoded page, never completed exceptionally: failures are told by its {@link Result#getOutcome()}.
+     */
+    public CompletableFuture<Result> getLogs(String token, String date, String toDate, String batchSize, long offset) {
+        LogRequestEvent event = Jfr.AVAILABLE ? new LogRequestEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        CompletableFuture<Result> result;
+        if (!breaker.allowRequest()) {
+            result = CompletableFuture.completedFuture(new Result(Outcome.SKIPPED, Collections.emptyList(), false, -1, 0L, 0L));
+        } else {
+            result = tppLog.getLogs(token, TppLog.query(date, toDate, batchSize, offset, filters))
+                    .thenApplyAsync(this::decode, decoder)
+                    .exceptionally(e -> failed(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e, -1));
+        }
+        if (event != null) {
+            result.thenAccept(page -> event.finish(baseUrl, date, toDate, batchSize, offset, page.getStatus(),
+                    page.getResponseBytes(), page.getEvents().size(), page.getDecodeNanos(), page.getOutcome().name()));
+        }
+        return result;
+    }
+
+    private Result decode(Response response) {
+        int status = response.status();
+        if (status < 200 || status >= 300) {
+            //The default decoder turns a Retry-After into a RetryableException, as the blocking client does.
+            return failed(ERROR_DECODER.decode(METHOD_KEY, response), status);
+        }
+        if (response.body() == null) {
+            breaker.onSuccess();
+            return new Result(Outcome.OK, Collections.emptyList(), false, status, 0L, 0L);
+        }
+        try (CountingInputStream body = new CountingInputStream(response.body().asInputStream())) {
+            long start = System.nanoTime();
+            List<DecodedEvent> events = new ArrayList<>();
+            boolean truncated = LogsClient.decode(body, format, rawScanner, maxPageBytes, events);
+            long decodeNanos = System.nanoTime() - start;
+            breaker.onSuccess();
+            return new Result(Outcome.OK, events, truncated, status, body.getCount(), decodeNanos);
+        } catch (Exception e) {
+            return failed(e, status);
+        }
+    }
+
+    private Result failed(Throwable error, int status) {
+        Exception e = error instanceof Exception ? (Exception) error : new RuntimeException(error);
+        if (Failures.isUnauthorized(e)) {
+            log.warn("Log request to {} was unauthorized, the token will be renewed", baseUrl);
+            //TPP answered, which settles a half open trial as much as a page would.
+            breaker.onSuccess();
+            return new Result(Outcome.UNAUTHORIZED, Collections.emptyList(), false, status, 0L, 0L);
+        }
+        log.error("Log request to {} failed with {}, backing off before the next one", baseUrl, Failures.describe(e), e);
+        breaker.onFailure(Failures.retryAfterMs(e));
+        return new Result(Outcome.FAILED, Collections.emptyList(), false, status, 0L, 0L);
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+
+    /**
+     * A log response, decoded, with what the blocking client keeps as its last request's state.
+     */
+    public static final class Result {
+        private final Outcome outcome;
+        private final List<DecodedEvent> events;
+        private final boolean truncated;
+        private final int status;
+        private final long responseBytes;
+        private final long decodeNanos;
+
+        Result(Outcome outcome, List<DecodedEvent> events, boolean truncated, int status, long responseBytes, long decodeNanos) {
+            this.outcome = outcome;
+            this.events = events;
+            this.truncated = truncated;
+            this.status = status;
+            this.responseBytes = responseBytes;
+            this.decodeNanos = decodeNanos;
+        }
+
+        /**
+         * @return how the request went, anything but OK means its empty page doesn't mean there were no events.
+         */
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public List<DecodedEvent> getEvents() {
+            return events;
+        }
+
+        /**
+         * @return true if the page stopped at the page's byte budget, with events of the response left out.
+         */
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        /**
+         * @return the HTTP status, -1 if no response arrived.
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        public long getResponseBytes() {
+            return responseBytes;
+        }
+
+        public long getDecodeNanos() {
+            return decodeNanos;
+        }
+    }
+}
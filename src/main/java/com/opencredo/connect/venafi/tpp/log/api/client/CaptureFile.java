@@ -0,0 +1,199 @@
+package com.opencredo.connect.venafi.tpp.log.api.client;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only file of the HTTP exchanges a task had with TPP, with their timing, to replay them later without TPP.
+ * <p>
+ * The file starts with {@link #MAGIC} and {@link #VERSION}. Every time a task opens it for capture a session entry
+ * holding the wall clock follows, then one entry per exchange: when it started relative to the session, how long
+ * until its body was read, the method and path with query, and the status, reason, headers and body of the response.
+ * A status of {@link #IO_FAILURE} records a request that failed without a response, e.g. a timeout, with the error
+ * as its reason. Request headers and bodies are left out, they hold the token and credentials. Entries are flushed
+ * one by one, so a worker dying mid write only loses the last one, which is skipped when reading and cut off before
+ * the next session is appended.
+ */
+public final class CaptureFile {
+
+    public static final String EXTENSION = ".tppcap";
+    static final int MAGIC = 0x54505043;
+    static final int VERSION = 1;
+    static final int IO_FAILURE = 0;
+    private static final byte SESSION = 'S';
+    private static final byte EXCHANGE = 'E';
+    private static final int NO_BODY = -1;
+
+    private CaptureFile() {
+    }
+
+    /**
+     * Opens the file for appending a new session, creating it if missing. An entry left torn by a worker dying mid
+     * write is cut off first, so the session doesn't follow it.
+     */
+    static Writer append(Path path) throws IOException {
+        long whole = Files.exists(path) ? scan(path, new ArrayList<>()) : 0L;
+        if (whole > 0 && whole < Files.size(path)) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(whole);
+            }
+        }
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(whole == 0
+                ? Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)
+                : Files.newOutputStream(path, StandardOpenOption.APPEND)));
+        if (whole == 0) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+        }
+        out.writeByte(SESSION);
+        out.writeLong(System.currentTimeMillis());
+        out.flush();
+        return new Writer(out);
+    }
+
+    /**
+     * Reads every exchange in the file, laying the sessions out one after the other on a single timeline.
+     */
+    static List<Exchange> read(Path path) throws IOException {
+        List<Exchange> exchanges = new ArrayList<>();
+        if (scan(path, exchanges) == 0) {
+            throw new EOFException(path + " ends before its header");
+        }
+        return exchanges;
+    }
+
+    /**
+     * @return the length of the file up to the end of its last whole entry, 0 if not even the header is whole.
+     */
+    private static long scan(Path path, List<Exchange> exchanges) throws IOException {
+        try (CountingInputStream counted = new CountingInputStream(new BufferedInputStream(Files.newInputStream(path)));
+             DataInputStream in = new DataInputStream(counted)) {
+            long whole = 0L;
+            try {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException(path + " is not a TPP capture");
+                }
+                int version = in.readUnsignedShort();
+                if (version != VERSION) {
+                    throw new IOException(path + " is a version " + version + " capture, only version " + VERSION + " is supported");
+                }
+                whole = counted.getCount();
+                long sessionEpochMillis = 0L;
+                long sessionBaseNanos = 0L;
+                long timelineEndNanos = 0L;
+                for (int tag = in.read(); tag != -1; tag = in.read()) {
+                    if (tag == SESSION) {
+                        sessionEpochMillis = in.readLong();
+                        sessionBaseNanos = timelineEndNanos;
+                    } else if (tag == EXCHANGE) {
+                        Exchange exchange = Exchange.readFrom(in, sessionBaseNanos, sessionEpochMillis);
+                        exchanges.add(exchange);
+                        timelineEndNanos = Math.max(timelineEndNanos, exchange.startNanos + exchange.durationNanos);
+                    } else {
+                        throw new IOException(path + " has an unknown entry " + tag + " after " + exchanges.size() + " exchanges");
+                    }
+                    whole = counted.getCount();
+                }
+            } catch (EOFException e) {
+                //The last entry was cut short, everything before it is whole.
+            }
+            return whole;
+        }
+    }
+
+    static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final long sessionStartNanos = System.nanoTime();
+
+        private Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * @param startNanos {@link System#nanoTime()} when the request was sent.
+         */
+        synchronized void write(long startNanos, long durationNanos, String method, String path, int status, String reason,
+                                Map<String, Collection<String>> headers, byte[] body) throws IOException {
+            out.writeByte(EXCHANGE);
+            out.writeLong(startNanos - sessionStartNanos);
+            out.writeLong(durationNanos);
+            out.writeUTF(method);
+            out.writeUTF(path);
+            out.writeShort(status);
+            out.writeUTF(reason == null ? "" : reason);
+            out.writeShort(headers.size());
+            for (Map.Entry<String, Collection<String>> header : headers.entrySet()) {
+                out.writeUTF(header.getKey());
+                out.writeUTF(String.join(", ", header.getValue()));
+            }
+            out.writeInt(body == null ? NO_BODY : body.length);
+            if (body != null) {
+                out.write(body);
+            }
+            out.flush();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+    }
+
+    static final class Exchange {
+        //Since the start of the first session.
+        final long startNanos;
+        final long durationNanos;
+        //Wall clock when the request was sent.
+        final long epochMillis;
+        final String method;
+        final String path;
+        final int status;
+        final String reason;
+        final Map<String, Collection<String>> headers;
+        final byte[] body;
+
+        Exchange(long startNanos, long durationNanos, long epochMillis, String method, String path, int status, String reason,
+                 Map<String, Collection<String>> headers, byte[] body) {
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.epochMillis = epochMillis;
+            this.method = method;
+            this.path = path;
+            this.status = status;
+            this.reason = reason;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        private static Exchange readFrom(DataInputStream in, long sessionBaseNanos, long sessionEpochMillis) throws IOException {
+            long offsetNanos = in.readLong();
+            long durationNanos = in.readLong();
+            String method = in.readUTF();
+            String path = in.readUTF();
+            int status = in.readUnsignedShort();
+            String reason = in.readUTF();
+            int headerCount = in.readUnsignedShort();
+            Map<String, Collection<String>> headers = new LinkedHashMap<>();
+            for (int i = 0; i < headerCount; i++) {
+                headers.put(in.readUTF(), Collections.singletonList(in.readUTF()));
+            }
+            int length = in.readInt();
+            byte[] body = null;
+            if (length != NO_BODY) {
+                body = new byte[length];
+                in.readFully(body);
+            }
+            return new Exchange(sessionBaseNanos + offsetNanos, durationNanos, sessionEpochMillis + TimeUnit.NANOSECONDS.toMillis(offsetNanos),
+                    method, path, status, reason, headers, body);
+        }
+
+        boolean isAuth() {
+            return path.startsWith(RecordingClient.AUTH_PATH);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.opencredo.connect.venafi.tpp.log.api.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Spaces out requests to TPP after failures. Every failure backs off exponentially, with jitter so tasks don't retry
+ * in lockstep, or for as long as TPP asked through Retry-After if that is longer. After enough failures in a row the
+ * breaker opens; once the backoff has passed it lets a single trial request through and closes again if it succeeds.
+ */
+public class CircuitBreaker {
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+    private static final int MAX_DOUBLINGS = 30;
+
+    public enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final String name;
+    private final int failureThreshold;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long totalFailures;
+    private long timesOpened;
+    private long retryAt;
+
+    public CircuitBreaker(String name, int failureThreshold, long initialBackoffMs, long maxBackoffMs) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = Math.max(initialBackoffMs, maxBackoffMs);
+    }
+
+    /**
+     * @return whether the other breaker backs off the same way, whatever state either is in.
+     */
+    boolean isConfiguredLike(CircuitBreaker other) {
+        return failureThreshold == other.failureThreshold && initialBackoffMs == other.initialBackoffMs && maxBackoffMs == other.maxBackoffMs;
+    }
+
+    /**
+     * @return false while backing off; when the breaker is open, true for one trial request once the backoff passed.
+     */
+    public synchronized boolean allowRequest() {
+        if (System.currentTimeMillis() < retryAt) {
+            return false;
+        }
+        if (state == State.OPEN) {
+            state = State.HALF_OPEN;
+            log.info("Circuit {} is half open, trying one request", name);
+            return true;
+        }
+        return state != State.HALF_OPEN;
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Circuit {} closed after {} failures", name, consecutiveFailures);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        retryAt = 0L;
+    }
+
+    /**
+     * @param retryAfterMs how long TPP asked us to wait, or 0 if it didn't say.
+     */
+    public synchronized void onFailure(long retryAfterMs) {
+        consecutiveFailures++;
+        totalFailures++;
+        long backoffMs = Math.max(retryAfterMs, jitteredBackoffMs());
+        retryAt = System.currentTimeMillis() + backoffMs;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            if (state == State.CLOSED) {
+                timesOpened++;
+            }
+            state = State.OPEN;
+            log.warn("Circuit {} open after {} failures in a row, next try in {} ms", name, consecutiveFailures, backoffMs);
+        } else {
+            log.debug("Circuit {} backing off for {} ms after {} failures in a row", name, backoffMs, consecutiveFailures);
+        }
+    }
+
+    private long jitteredBackoffMs() {
+        int doublings = Math.min(consecutiveFailures - 1, MAX_DOUBLINGS);
+        long backoffMs = Math.min(maxBackoffMs, initialBackoffMs << doublings);
+        //Equal jitter: at least half the backoff, so retries still slow down as failures add up.
+        return backoffMs / 2 + ThreadLocalRandom.current().nextLong(backoffMs / 2 + 1);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public synchronized long getTotalFailures() {
+        return totalFailures;
+    }
+
+    public synchronized long getTimesOpened() {
+        return timesOpened;
+    }
+
+    /**
+     * @return how long until requests are let through again, 0 if they are now.
+     */
+    public synchronized long getBackoffRemainingMs() {
+        return Math.max(0L, retryAt - System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,50 @@
+package com.opencredo.connect.venafi.tpp.log.api.client;
+
+import feign.FeignException;
+import feign.RetryableException;
+
+import java.util.Date;
+
+/**
+ * Sorts failed TPP requests into the ones a new token fixes and the ones to back off from.
+ */
+final class Failures {
+
+    static final int BAD_REQUEST = 400;
+    static final int UNAUTHORIZED = 401;
+
+    private Failures() {
+    }
+
+    static boolean isUnauthorized(Exception e) {
+        return e instanceof FeignException && ((FeignException) e).status() == UNAUTHORIZED;
+    }
+
+    /**
+     * @return true if TPP turned down the credentials or refresh token, so asking again with them won't help.
+     */
+    static boolean isRejected(Exception e) {
+        int status = e instanceof FeignException ? ((FeignException) e).status() : -1;
+        return status == BAD_REQUEST || status == UNAUTHORIZED;
+    }
+
+    /**
+     * Feign turns any response with a Retry-After header, in seconds or as a date, into a {@link RetryableException}.
+     *
+     * @return how long TPP asked us to wait, or 0 if it didn't say.
+     */
+    static long retryAfterMs(Exception e) {
+        if (!(e instanceof RetryableException)) {
+            return 0L;
+        }
+        Date retryAfter = ((RetryableException) e).retryAfter();
+        return retryAfter == null ? 0L : Math.max(0L, retryAfter.getTime() - System.currentTimeMillis());
+    }
+
+    static String describe(Exception e) {
+        if (e instanceof FeignException && ((FeignException) e).status() > 0) {
+            return "HTTP " + ((FeignException) e).status();
+        }
+        return e.getCause() != null ? e.getCause().toString() : e.toString();
+    }
+}
@@ -0,0 +1,116 @@
+package com.opencredo.connect.venafi.tpp.log.api.client;
+
+import feign.Client;
+import feign.Request;
+import feign.hc5.ApacheHttp5Client;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The HTTP connection pool shared by the clients of one task. Pooled connections are kept alive between polls,
+ * so TLS handshakes with TPP only happen when a connection is first opened or has gone idle. For troubleshooting a
+ * transport can capture its exchanges to a {@link CaptureFile}, or replay one without reaching TPP at all.
+ */
+public class HttpTransport implements Closeable {
+    private static final org.slf4j.Logger log = LoggerFactory.getLogger(HttpTransport.class);
+
+    private static final TimeValue IDLE_CONNECTION_EVICTION = TimeValue.ofSeconds(30);
+
+    private final CloseableHttpClient httpClient;
+    private final CaptureFile.Writer capture;
+    private final Client client;
+    private final Request.Options options;
+
+    public HttpTransport(int connectTimeoutMs, int readTimeoutMs, int maxConnections) {
+        this(pooledClient(readTimeoutMs, maxConnections), null, options(connectTimeoutMs, readTimeoutMs));
+    }
+
+    private HttpTransport(CloseableHttpClient httpClient, CaptureFile.Writer capture, Request.Options options) {
+        this.httpClient = httpClient;
+        this.capture = capture;
+        Client pooled = new ApacheHttp5Client(httpClient);
+        this.client = capture == null ? pooled : new RecordingClient(pooled, capture);
+        this.options = options;
+    }
+
+    private HttpTransport(Client client, Request.Options options) {
+        this.httpClient = null;
+        this.capture = null;
+        this.client = client;
+        this.options = options;
+    }
+
+    /**
+     * A transport to TPP that appends every exchange to a {@link CaptureFile}.
+     */
+    public static HttpTransport capturing(Path captureFile, int connectTimeoutMs, int readTimeoutMs, int maxConnections) throws IOException {
+        return new HttpTransport(pooledClient(readTimeoutMs, maxConnections), CaptureFile.append(captureFile), options(connectTimeoutMs, readTimeoutMs));
+    }
+
+    /**
+     * A transport that never reaches TPP, answering from a {@link CaptureFile} instead.
+     *
+     * @param speed how many times faster than captured to answer, 0 for no waiting at all.
+     */
+    public static HttpTransport replaying(Path captureFile, double speed, int connectTimeoutMs, int readTimeoutMs) throws IOException {
+        return new HttpTransport(new ReplayClient(captureFile, speed), options(connectTimeoutMs, readTimeoutMs));
+    }
+
+    private static CloseableHttpClient pooledClient(int readTimeoutMs, int maxConnections) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultSocketConfig(SocketConfig.custom()
+                        .setSoTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setSoKeepAlive(true)
+                        .build())
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .evictIdleConnections(IDLE_CONNECTION_EVICTION)
+                //Failed requests back off through the clients' circuit breakers instead of blocking here on Retry-After.
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    private static Request.Options options(int connectTimeoutMs, int readTimeoutMs) {
+        return new Request.Options(connectTimeoutMs, TimeUnit.MILLISECONDS, readTimeoutMs, TimeUnit.MILLISECONDS, true);
+    }
+
+    public Client getClient() {
+        return client;
+    }
+
+    public Request.Options getOptions() {
+        return options;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (httpClient != null) {
+                httpClient.close();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close HTTP connection pool", e);
+        }
+        try {
+            if (capture != null) {
+                capture.close();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close capture file", e);
+        }
+    }
+}
@@ -1,39 +1,192 @@
 package com.opencredo.connect.venafi.tpp.log.api.client;
 
-import com.google.gson.GsonBuilder;
-import com.opencredo.connect.venafi.tpp.log.Deserializer.ZonedDateTimeDeserializer;
+import com.opencredo.connect.venafi.tpp.log.Deserializer.EventLogStreamDecoder;
+import com.opencredo.connect.venafi.tpp.log.Deserializer.RawEventScanner;
 import com.opencredo.connect.venafi.tpp.log.api.TppLog;
-import com.opencredo.connect.venafi.tpp.log.model.LogResponse;
+import com.opencredo.connect.venafi.tpp.log.jfr.Jfr;
+import com.opencredo.connect.venafi.tpp.log.jfr.LogRequestEvent;
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+import com.opencredo.connect.venafi.tpp.log.model.OutputFormat;
 import feign.Feign;
+import feign.FeignException;
+import feign.Response;
 import feign.Retryer;
-import feign.gson.GsonDecoder;
 import feign.slf4j.Slf4jLogger;
 import org.slf4j.LoggerFactory;
 
-import java.time.ZonedDateTime;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 public class LogsClient {
     private static final org.slf4j.Logger log = LoggerFactory.getLogger(LogsClient.class);
+    private static final EventLogStreamDecoder LOG_DECODER = new EventLogStreamDecoder();
+    private static final RawEventScanner RAW_SCANNER = new RawEventScanner();
 
-    public static LogResponse getLogs(String token, String date, String baseUrl, String batchSize, long offset) {
+    public enum Outcome {
+        OK,
+        //The token was turned down, getting a new one fixes it.
+        UNAUTHORIZED,
+        //Timed out, throttled or TPP errored, the breaker backs off before the next request.
+        FAILED,
+        //Not sent because the breaker is backing off.
+        SKIPPED
+    }
+
+    private final String baseUrl;
+    private final TppLog tppLog;
+    private final CircuitBreaker breaker;
+    private final OutputFormat format;
+    private final RawEventScanner rawScanner;
+    private final Map<String, Object> filters;
+    private final long maxPageBytes;
+    //Only ever touched by the one thread fetching for the task.
+    private long lastResponseBytes;
+    private boolean lastTruncated;
+    private long lastDecodeNanos;
+    private int lastStatus;
+    private Outcome lastOutcome = Outcome.OK;
+
+    /**
+     * @param format       decides whether events are decoded into Structs or only scanned for their cursor fields.
+     * @param rawFields    fields to read from events besides the cursor fields with a raw format, Structs have them all.
+     * @param filters      query filters added to every log request, see {@link TppLog#query(String, String, String, long, Map)}.
+     * @param maxPageBytes how many bytes of events to decode from a response at most, 0 for all of them.
+     */
+    public LogsClient(String baseUrl, HttpTransport transport, CircuitBreaker breaker, OutputFormat format, Collection<String> rawFields,
+                      Map<String, Object> filters, long maxPageBytes) {
+        this.baseUrl = baseUrl;
+        this.filters = filters;
+        this.maxPageBytes = maxPageBytes;
+        this.breaker = breaker;
+        this.format = format;
+        this.rawScanner = rawScanner(rawFields);
+        this.tppLog = Feign.builder()
+                .client(transport.getClient())
+                .options(transport.getOptions())
+                .logger(new Slf4jLogger())
+                .decoder(this::decode)
+                .retryer(Retryer.NEVER_RETRY)
+                .target(TppLog.class, baseUrl);
+    }
+
+    public List<DecodedEvent> getLogs(String token, String date, String toDate, String batchSize, long offset) {
+        LogRequestEvent event = Jfr.AVAILABLE ? new LogRequestEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        List<DecodedEvent> events = request(token, date, toDate, batchSize, offset);
+        if (event != null) {
+            event.finish(baseUrl, date, toDate, batchSize, offset, lastStatus, lastResponseBytes, events.size(), lastDecodeNanos, lastOutcome.name());
+        }
+        return events;
+    }
+
+    private List<DecodedEvent> request(String token, String date, String toDate, String batchSize, long offset) {
+        lastResponseBytes = 0L;
+        lastDecodeNanos = 0L;
+        lastTruncated = false;
+        lastStatus = -1;
+        if (!breaker.allowRequest()) {
+            lastOutcome = Outcome.SKIPPED;
+            return new ArrayList<>();
+        }
         try {
-            return Feign.builder()
-                    .logger(new Slf4jLogger())
-                    .decoder(logDecoder())
-                    .retryer(Retryer.NEVER_RETRY)
-                    .target(TppLog.class, baseUrl)
-                    .getLogs(token, date, batchSize, offset);
+            List<DecodedEvent> events = tppLog.getLogs(token, TppLog.query(date, toDate, batchSize, offset, filters));
+            breaker.onSuccess();
+            lastOutcome = Outcome.OK;
+            return events;
         } catch (Exception e) {
-            log.error("Caught following exception, ignoring to ensure connector doesn't fail", e);
-            return new LogResponse(new ArrayList<>());
+            if (e instanceof FeignException) {
+                lastStatus = ((FeignException) e).status();
+            }
+            if (Failures.isUnauthorized(e)) {
+                log.warn("Log request was unauthorized, the token will be renewed");
+                //TPP answered, which settles a half open trial as much as a page would.
+                breaker.onSuccess();
+                lastOutcome = Outcome.UNAUTHORIZED;
+            } else {
+                log.error("Log request failed with {}, backing off before the next one", Failures.describe(e), e);
+                breaker.onFailure(Failures.retryAfterMs(e));
+                lastOutcome = Outcome.FAILED;
+            }
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * @return true if the last page stopped at the page's byte budget, with events of the response left out.
+     */
+    public boolean isLastTruncated() {
+        return lastTruncated;
+    }
+
+    /**
+     * @return the size of the body of the last log response.
+     */
+    public long getLastResponseBytes() {
+        return lastResponseBytes;
+    }
+
+    /**
+     * @return the time spent reading and decoding the body of the last log response, which streams in while decoding.
+     */
+    public long getLastDecodeNanos() {
+        return lastDecodeNanos;
+    }
+
+    /**
+     * @return how the last request went, anything but OK means its empty result doesn't mean there were no events.
+     */
+    public Outcome getLastOutcome() {
+        return lastOutcome;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+
+    private List<DecodedEvent> decode(Response response, Type type) throws IOException {
+        lastStatus = response.status();
+        if (response.body() == null) {
+            return Collections.emptyList();
+        }
+        try (CountingInputStream body = new CountingInputStream(response.body().asInputStream())) {
+            long start = System.nanoTime();
+            List<DecodedEvent> events = new ArrayList<>();
+            lastTruncated = decode(body, format, rawScanner, maxPageBytes, events);
+            lastDecodeNanos = System.nanoTime() - start;
+            lastResponseBytes = body.getCount();
+            return events;
+        }
+    }
+
+    /**
+     * Decodes a log response body into events, or only scans it for the cursor and raw fields with a raw format, up
+     * to maxBytes of events.
+     *
+     * @return true if events of the response were left out.
+     */
+    static boolean decode(CountingInputStream body, OutputFormat format, RawEventScanner rawScanner, long maxBytes, List<DecodedEvent> events) throws IOException {
+        if (format.isRaw()) {
+            return rawScanner.decode(body, format, maxBytes, events);
+        }
+        try (Reader reader = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+            return LOG_DECODER.decode(reader, maxBytes, events);
         }
     }
 
-    private static GsonDecoder logDecoder() {
-        return new GsonDecoder(
-                new GsonBuilder()
-                        .registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeDeserializer())
-                        .create());
+    /**
+     * @return the scanner reading the given fields from raw events besides the cursor fields.
+     */
+    static RawEventScanner rawScanner(Collection<String> rawFields) {
+        return rawFields.isEmpty() ? RAW_SCANNER : new RawEventScanner(rawFields);
     }
 }
@@ -0,0 +1,76 @@
+package com.opencredo.connect.venafi.tpp.log.api.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Sends requests on to TPP and appends each exchange to a {@link CaptureFile}. Response bodies are read in full
+ * before they are handed on, so while capturing the time spent reading a body counts as waiting on the request.
+ * Access and refresh tokens in auth responses are replaced, a capture shouldn't let anyone log in.
+ */
+final class RecordingClient implements Client {
+    private static final org.slf4j.Logger log = LoggerFactory.getLogger(RecordingClient.class);
+
+    static final String AUTH_PATH = "/vedauth/";
+    private static final Pattern TOKENS = Pattern.compile("(\"(?:access_token|refresh_token)\"\\s*:\\s*)\"[^\"]*\"");
+    private static final String REDACTED = "$1\"redacted\"";
+
+    private final Client delegate;
+    private final CaptureFile.Writer capture;
+
+    RecordingClient(Client delegate, CaptureFile.Writer capture) {
+        this.delegate = delegate;
+        this.capture = capture;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        String path = pathOf(request.url());
+        long start = System.nanoTime();
+        byte[] body;
+        Response response;
+        try {
+            response = delegate.execute(request, options);
+            try (Response read = response) {
+                body = read.body() == null ? null : Util.toByteArray(read.body().asInputStream());
+            }
+        } catch (IOException e) {
+            record(start, request, path, CaptureFile.IO_FAILURE, e.toString(), Collections.emptyMap(), null);
+            throw e;
+        }
+        record(start, request, path, response.status(), response.reason(), response.headers(), redact(path, body));
+        return response.toBuilder().body(body).build();
+    }
+
+    private void record(long start, Request request, String path, int status, String reason, Map<String, Collection<String>> headers, byte[] body) {
+        try {
+            capture.write(start, System.nanoTime() - start, request.httpMethod().name(), path, status, reason, headers, body);
+        } catch (IOException e) {
+            log.warn("Failed to capture {} {}", request.httpMethod(), path, e);
+        }
+    }
+
+    static String pathOf(String url) {
+        int scheme = url.indexOf("://");
+        int path = url.indexOf('/', scheme < 0 ? 0 : scheme + 3);
+        return path < 0 ? "/" : url.substring(path);
+    }
+
+    private static byte[] redact(String path, byte[] body) {
+        if (body == null || !path.startsWith(AUTH_PATH)) {
+            return body;
+        }
+        String json = new String(body, StandardCharsets.UTF_8);
+        return TOKENS.matcher(json).replaceAll(REDACTED).getBytes(StandardCharsets.UTF_8);
+    }
+}
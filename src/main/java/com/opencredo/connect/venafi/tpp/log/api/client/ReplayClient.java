@@ -0,0 +1,137 @@
+package com.opencredo.connect.venafi.tpp.log.api.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Answers requests from a {@link CaptureFile} instead of TPP. Log requests get the captured log responses in the
+ * order they were captured, whatever they ask for, and an empty page once those run out. Auth requests get the
+ * captured auth responses, the last one again once they run out, with their expiry moved on by the time since they
+ * were captured so tokens stay valid as long as they did originally.
+ * <p>
+ * At a speed of 1 each response takes as long as it did originally and isn't answered before it was in the
+ * capture, counting from the first request. A speed of 10 replays ten times faster, 0 answers straight away.
+ */
+final class ReplayClient implements Client {
+    private static final org.slf4j.Logger log = LoggerFactory.getLogger(ReplayClient.class);
+
+    private static final byte[] EMPTY_PAGE = "{\"LogEvents\":[]}".getBytes(StandardCharsets.UTF_8);
+    private static final Pattern EXPIRIES = Pattern.compile("(\"(?:expires|refresh_until)\"\\s*:\\s*)(\\d+)");
+
+    private final Path path;
+    private final double speed;
+    private final Deque<CaptureFile.Exchange> auth = new ArrayDeque<>();
+    private final Deque<CaptureFile.Exchange> logs = new ArrayDeque<>();
+    private final long originNanos;
+    private CaptureFile.Exchange lastAuth;
+    private long replayStartNanos;
+    private boolean started;
+    private boolean reportedMismatch;
+    private boolean reportedEnd;
+
+    ReplayClient(Path path, double speed) throws IOException {
+        this.path = path;
+        this.speed = speed;
+        List<CaptureFile.Exchange> exchanges = CaptureFile.read(path);
+        for (CaptureFile.Exchange exchange : exchanges) {
+            (exchange.isAuth() ? auth : logs).add(exchange);
+        }
+        this.originNanos = exchanges.isEmpty() ? 0L : exchanges.get(0).startNanos;
+        log.info("Replaying {} log and {} auth responses from {} at speed {}", logs.size(), auth.size(), path, speed);
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        String requestPath = RecordingClient.pathOf(request.url());
+        long now = System.nanoTime();
+        CaptureFile.Exchange exchange = next(requestPath, now);
+        if (exchange == null) {
+            byte[] body = requestPath.startsWith(RecordingClient.AUTH_PATH) ? unexpiringToken() : EMPTY_PAGE;
+            return Response.builder().request(request).status(200).reason("OK")
+                    .headers(Collections.emptyMap()).body(body).build();
+        }
+        awaitDue(exchange, now);
+        if (exchange.status == CaptureFile.IO_FAILURE) {
+            throw new IOException("Replayed failure: " + exchange.reason);
+        }
+        byte[] body = exchange.isAuth() ? rebaseExpiries(exchange) : exchange.body;
+        return Response.builder().request(request).status(exchange.status).reason(exchange.reason)
+                .headers(exchange.headers).body(body).build();
+    }
+
+    private synchronized CaptureFile.Exchange next(String requestPath, long now) {
+        if (!started) {
+            started = true;
+            replayStartNanos = now;
+        }
+        if (requestPath.startsWith(RecordingClient.AUTH_PATH)) {
+            if (!auth.isEmpty()) {
+                lastAuth = auth.poll();
+            }
+            return lastAuth;
+        }
+        CaptureFile.Exchange exchange = logs.poll();
+        if (exchange == null) {
+            if (!reportedEnd) {
+                reportedEnd = true;
+                log.info("Replayed every log response in {}, answering with empty pages from now on", path);
+            }
+        } else if (!exchange.path.equals(requestPath) && !reportedMismatch) {
+            reportedMismatch = true;
+            log.warn("Replay of {} has diverged from the capture, {} was asked for but {} was captured. "
+                    + "Captured responses are served in order regardless", path, requestPath, exchange.path);
+        }
+        return exchange;
+    }
+
+    private void awaitDue(CaptureFile.Exchange exchange, long requestNanos) throws InterruptedIOException {
+        if (speed <= 0) {
+            return;
+        }
+        long due = Math.max(
+                requestNanos + (long) (exchange.durationNanos / speed),
+                replayStartNanos + (long) ((exchange.startNanos - originNanos + exchange.durationNanos) / speed));
+        try {
+            for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while replaying " + exchange.path);
+        }
+    }
+
+    //For captures without a login, e.g. cut short before the first one was written.
+    private static byte[] unexpiringToken() {
+        long expires = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + TimeUnit.DAYS.toSeconds(1);
+        return ("{\"access_token\":\"replay\",\"expires\":" + expires + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] rebaseExpiries(CaptureFile.Exchange exchange) {
+        if (exchange.body == null) {
+            return null;
+        }
+        long shiftSeconds = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - exchange.epochMillis);
+        Matcher matcher = EXPIRIES.matcher(new String(exchange.body, StandardCharsets.UTF_8));
+        StringBuffer rebased = new StringBuffer();
+        while (matcher.find()) {
+            matcher.appendReplacement(rebased, matcher.group(1) + (Long.parseLong(matcher.group(2)) + shiftSeconds));
+        }
+        matcher.appendTail(rebased);
+        return rebased.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
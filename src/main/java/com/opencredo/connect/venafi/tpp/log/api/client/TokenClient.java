@@ -4,6 +4,8 @@ import com.google.gson.FieldNamingPolicy;
 import com.google.gson.GsonBuilder;
 import com.opencredo.connect.venafi.tpp.log.Deserializer.EpochSecondsDeserializer;
 import com.opencredo.connect.venafi.tpp.log.api.TppPlatformAuthorization;
+import com.opencredo.connect.venafi.tpp.log.jfr.Jfr;
+import com.opencredo.connect.venafi.tpp.log.jfr.TokenRequestEvent;
 import com.opencredo.connect.venafi.tpp.log.model.Credentials;
 import com.opencredo.connect.venafi.tpp.log.model.TppRefreshToken;
 import com.opencredo.connect.venafi.tpp.log.model.TppToken;
@@ -16,21 +18,61 @@ import feign.slf4j.Slf4jLogger;
 import org.slf4j.LoggerFactory;
 
 import java.time.ZonedDateTime;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Holds the access token for one set of credentials, shared by every task using them through {@link TokenRegistry}.
+ * A valid token is handed out without locking; getting or refreshing one is single flight, so tasks asking at the
+ * same time wait for one auth call instead of each making their own. Tokens are refreshed in the background ahead
+ * of expiry, by {@link #REFRESH_AHEAD_MS} or half their lifetime if that is shorter, so polls normally never wait on
+ * TPP's auth endpoints. Failed auth calls back off through a
+ * {@link CircuitBreaker}, during which no token is handed out.
+ */
 public class TokenClient {
 
     private static final org.slf4j.Logger log = LoggerFactory.getLogger(TokenClient.class);
+    private static final GsonDecoder TOKEN_DECODER = customDecoder();
+    private static final GsonEncoder TOKEN_ENCODER = new GsonEncoder();
+    static final long REFRESH_AHEAD_MS = TimeUnit.SECONDS.toMillis(60);
+    private static final long MIN_REFRESH_DELAY_MS = TimeUnit.SECONDS.toMillis(1);
+    private static final long REFRESH_RETRY_MS = TimeUnit.SECONDS.toMillis(10);
+    private static final long REFRESH_TOKEN_MARGIN_MS = TimeUnit.SECONDS.toMillis(10);
+    private static final int OK = 200;
 
-    private String tokenValue;
-    private ZonedDateTime tokenExpiry = ZonedDateTime.now();
-    private ZonedDateTime tokenRefreshUntil = ZonedDateTime.now();
-    private Credentials credentials;
-    private TppRefreshToken tppRefreshToken;
-    private String clientId;
+    private final Object renewing = new Object();
+    private final String baseUrl;
+    private final Credentials credentials;
+    private final String clientId;
+    private final TppPlatformAuthorization tppAuth;
+    private final ScheduledExecutorService refresher;
+    private final CircuitBreaker breaker;
+    private final AtomicLong authorizations = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private volatile Token token;
+    private ScheduledFuture<?> scheduledRefresh;
+    private boolean closed;
+    //What the last renewal asked TPP for and the status it got, only touched while renewing.
+    private String lastGrant;
+    private int lastStatus;
 
-    public TokenClient(String username, String password, String scope, String clientId) {
+    public TokenClient(String baseUrl, HttpTransport transport, String username, String password, String scope, String clientId, ScheduledExecutorService refresher, CircuitBreaker breaker) {
+        this.baseUrl = baseUrl;
         this.credentials = new Credentials(username, password, scope, clientId);
         this.clientId = clientId;
+        this.refresher = refresher;
+        this.breaker = breaker;
+        this.tppAuth = Feign.builder()
+                .client(transport.getClient())
+                .options(transport.getOptions())
+                .encoder(TOKEN_ENCODER)
+                .logger(new Slf4jLogger())
+                .decoder(TOKEN_DECODER)
+                .retryer(Retryer.NEVER_RETRY)
+                .target(TppPlatformAuthorization.class, baseUrl);
     }
 
     private static GsonDecoder customDecoder() {
@@ -41,64 +83,223 @@ public class TokenClient {
                         .create());
     }
 
-    public String getToken(String baseUrl) {
-        try {
-            TppToken token;
-            TppPlatformAuthorization tppAuth = tppAuth(baseUrl);
-
-            if (isTokenValid()) {
-                return tokenValue;
-            } else if (isTokenInvalid()) {
-                log.info("Getting new authorization token");
-                 token = tppAuth.getToken(credentials);
-            } else if (isTokenExpired()) {
-                log.info("Refreshing authorization token");
-                token = tppAuth.refreshToken(tppRefreshToken);
-            } else {
-                token = tppAuth.getToken(credentials);
+    /**
+     * @return a valid access token, or an empty String if TPP didn't grant one.
+     */
+    public String getToken() {
+        Token current = token;
+        if (current != null && current.isValidAt(System.currentTimeMillis())) {
+            return current.value;
+        }
+        TokenRequestEvent event = Jfr.AVAILABLE ? new TokenRequestEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        synchronized (renewing) {
+            String value = renewIfNeeded();
+            if (event != null) {
+                event.finish(baseUrl, lastGrant, false, lastStatus, !value.isEmpty());
             }
+            return value;
+        }
+    }
 
-            tokenValue = token.getAccessToken();
-            tokenExpiry = token.getExpires();
-            tokenRefreshUntil = token.getRefresh_until();
-            tppRefreshToken = new TppRefreshToken(token.getRefresh_token(), clientId);
-        } catch (FeignException e) {
-            log.error("Caught following exception, ignoring to ensure connector doesn't fail", e);
-            tokenValue = "";
-            tokenExpiry = ZonedDateTime.now();
-            tokenRefreshUntil = ZonedDateTime.now();
-            tppRefreshToken = null;
+    private String renewIfNeeded() {
+        lastGrant = "none";
+        lastStatus = -1;
+        Token current = token;
+        if (current != null && current.isValidAt(System.currentTimeMillis())) {
+            return current.value;
+        }
+        if (!breaker.allowRequest()) {
+            return "";
+        }
+        try {
+            Token renewed = renew(current);
+            breaker.onSuccess();
+            return renewed.value;
+        } catch (RuntimeException e) {
+            //Anything a renewal admitted by the breaker throws has to settle it, or a half open trial never ends.
+            renewFailed(e);
             return "";
         }
-        return tokenValue;
     }
 
     /**
-     * If it is the first time we are calling /authorize endpoint at connector startup
-     *
+     * Marks a token TPP turned down as expired, so the next {@link #getToken()} renews it. Other tasks may have
+     * renewed it already, in which case the current token is left alone.
      */
-    private boolean isTokenInvalid() {
-        return tokenValue == null && tppRefreshToken == null;
+    public void invalidate(String rejectedToken) {
+        synchronized (renewing) {
+            Token current = token;
+            if (current != null && Objects.equals(current.value, rejectedToken)) {
+                token = current.expired();
+            }
+        }
     }
 
-    private boolean isTokenValid() {
-        return tokenValue != null && tokenExpiry.isAfter(ZonedDateTime.now().minusSeconds(10L));
+    public CircuitBreaker getCircuitBreaker() {
+        return breaker;
     }
 
     /**
-     * If token is expired but the refresh_token is still valid
+     * @return the number of new tokens asked for with the credentials.
      */
-    private boolean isTokenExpired() {
-        return tokenExpiry.isBefore(ZonedDateTime.now().minusSeconds(10L)) &&
-                tokenRefreshUntil.isAfter(ZonedDateTime.now().plusSeconds(10L));
+    public long getAuthorizations() {
+        return authorizations.get();
     }
 
-    private TppPlatformAuthorization tppAuth(String baseUrl) {
-        return Feign.builder()
-                .encoder(new GsonEncoder())
-                .logger(new Slf4jLogger())
-                .decoder(customDecoder())
-                .retryer(Retryer.NEVER_RETRY)
-                .target(TppPlatformAuthorization.class, baseUrl);
+    /**
+     * @return the number of tokens asked for with a refresh token, in the background or not.
+     */
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    /**
+     * Stops refreshing in the background, the last token can still be handed out until it expires.
+     */
+    public void close() {
+        synchronized (renewing) {
+            closed = true;
+            if (scheduledRefresh != null) {
+                scheduledRefresh.cancel(false);
+            }
+        }
+    }
+
+    private Token renew(Token current) {
+        long now = System.currentTimeMillis();
+        TppToken granted;
+        if (current != null && current.canRefreshAt(now)) {
+            granted = refresh(current);
+        } else {
+            granted = authorize();
+        }
+        lastStatus = OK;
+        Token renewed = new Token(granted, System.currentTimeMillis());
+        token = renewed;
+        scheduleRefresh(renewed.refreshAt - System.currentTimeMillis());
+        return renewed;
+    }
+
+    private TppToken authorize() {
+        log.info("Getting new authorization token");
+        lastGrant = "authorize";
+        authorizations.incrementAndGet();
+        return tppAuth.getToken(credentials);
+    }
+
+    private TppToken refresh(Token current) {
+        log.info("Refreshing authorization token");
+        lastGrant = "refresh";
+        refreshes.incrementAndGet();
+        try {
+            return tppAuth.refreshToken(new TppRefreshToken(current.refreshToken, clientId));
+        } catch (FeignException e) {
+            if (!Failures.isRejected(e)) {
+                throw e;
+            }
+            log.warn("Refresh token was turned down with {}", Failures.describe(e));
+            return authorize();
+        }
+    }
+
+    private void renewFailed(RuntimeException e) {
+        if (e instanceof FeignException) {
+            lastStatus = ((FeignException) e).status();
+        }
+        if (Failures.isRejected(e)) {
+            log.error("TPP turned down the credentials with {}, backing off before asking again", Failures.describe(e), e);
+            token = null;
+        } else {
+            //Keep the current token, its refresh token may still work once TPP recovers.
+            log.error("Renewing the authorization token failed with {}, backing off before asking again", Failures.describe(e), e);
+        }
+        breaker.onFailure(Failures.retryAfterMs(e));
+    }
+
+    private void scheduleRefresh(long delayMs) {
+        if (closed || refresher == null) {
+            return;
+        }
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+        scheduledRefresh = refresher.schedule(this::refreshInBackground, Math.max(MIN_REFRESH_DELAY_MS, delayMs), TimeUnit.MILLISECONDS);
+    }
+
+    private void refreshInBackground() {
+        synchronized (renewing) {
+            Token current = token;
+            if (closed || current == null || System.currentTimeMillis() < current.refreshAt) {
+                return;
+            }
+            if (!breaker.allowRequest()) {
+                scheduleRefresh(Math.max(REFRESH_RETRY_MS, breaker.getBackoffRemainingMs()));
+                return;
+            }
+            TokenRequestEvent event = Jfr.AVAILABLE ? new TokenRequestEvent() : null;
+            if (event != null) {
+                event.begin();
+            }
+            lastStatus = -1;
+            boolean granted = false;
+            try {
+                renew(current);
+                breaker.onSuccess();
+                granted = true;
+            } catch (RuntimeException e) {
+                //The current token may still be good for a while, a poll after it expires renews it itself.
+                long retryMs = REFRESH_RETRY_MS;
+                if (e instanceof FeignException) {
+                    lastStatus = ((FeignException) e).status();
+                }
+                breaker.onFailure(Failures.retryAfterMs(e));
+                retryMs = Math.max(retryMs, breaker.getBackoffRemainingMs());
+                log.warn("Failed to refresh authorization token in the background, retrying in {} ms", retryMs, e);
+                scheduleRefresh(retryMs);
+            }
+            if (event != null) {
+                event.finish(baseUrl, lastGrant, true, lastStatus, granted);
+            }
+        }
+    }
+
+    private static final class Token {
+        private final String value;
+        private final long expiresAt;
+        //A token living no longer than REFRESH_AHEAD_MS would otherwise be due for a refresh as soon as it is granted.
+        private final long refreshAt;
+        private final long refreshUntil;
+        private final String refreshToken;
+
+        private Token(TppToken token, long grantedAt) {
+            this(token.getAccessToken(), toEpochMilli(token.getExpires()), grantedAt, toEpochMilli(token.getRefresh_until()), token.getRefresh_token());
+        }
+
+        private Token(String value, long expiresAt, long grantedAt, long refreshUntil, String refreshToken) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.refreshAt = expiresAt - Math.min(REFRESH_AHEAD_MS, Math.max(0L, expiresAt - grantedAt) / 2);
+            this.refreshUntil = refreshUntil;
+            this.refreshToken = refreshToken;
+        }
+
+        private Token expired() {
+            return new Token(value, 0L, 0L, refreshUntil, refreshToken);
+        }
+
+        private static long toEpochMilli(ZonedDateTime dateTime) {
+            return dateTime == null ? 0L : dateTime.toInstant().toEpochMilli();
+        }
+
+        private boolean isValidAt(long now) {
+            return value != null && expiresAt > now;
+        }
+
+        private boolean canRefreshAt(long now) {
+            return refreshToken != null && refreshUntil > now + REFRESH_TOKEN_MARGIN_MS;
+        }
     }
 }
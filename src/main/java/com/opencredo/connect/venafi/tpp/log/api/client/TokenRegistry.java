@@ -0,0 +1,147 @@
+package com.opencredo.connect.venafi.tpp.log.api.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Shares one {@link TokenClient} between all the tasks of a worker that log in to the same TPP with the same
+ * user, password, client id and scope, so a worker running many connectors against one TPP holds one token per login
+ * instead of one per task. Clients are reference counted and closed when the last task releases them.
+ * <p>
+ * A shared client keeps the HTTP timeouts and auth breaker of the task that created it; tasks acquiring it later with
+ * other settings are logged, their settings don't apply until every task has released the client.
+ */
+public final class TokenRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRegistry.class);
+    private static final int AUTH_CONNECTIONS = 2;
+    private static final ScheduledThreadPoolExecutor REFRESHER = createRefresher();
+    private static final Map<Key, Entry> CLIENTS = new HashMap<>();
+
+    private TokenRegistry() {
+    }
+
+    private static ScheduledThreadPoolExecutor createRefresher() {
+        ScheduledThreadPoolExecutor refresher = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "venafi-token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.setRemoveOnCancelPolicy(true);
+        return refresher;
+    }
+
+    /**
+     * @param breaker backs off failed auth calls, only used, like the timeouts, if no task has the client for these
+     *                credentials yet.
+     * @return the client for these credentials, which must be given back through {@link #release(TokenClient)}.
+     */
+    public static synchronized TokenClient acquire(String baseUrl, String username, String password, String scope, String clientId, int connectTimeoutMs, int readTimeoutMs, CircuitBreaker breaker) {
+        Key key = new Key(baseUrl, username, digest(password), clientId, scope);
+        Entry entry = CLIENTS.get(key);
+        if (entry == null) {
+            HttpTransport transport = new HttpTransport(connectTimeoutMs, readTimeoutMs, AUTH_CONNECTIONS);
+            entry = new Entry(transport, new TokenClient(baseUrl, transport, username, password, scope, clientId, REFRESHER, breaker),
+                    connectTimeoutMs, readTimeoutMs);
+            CLIENTS.put(key, entry);
+        } else if (connectTimeoutMs != entry.connectTimeoutMs || readTimeoutMs != entry.readTimeoutMs
+                || !breaker.isConfiguredLike(entry.client.getCircuitBreaker())) {
+            log.warn("Sharing the token client for {} at {} with the timeouts and auth backoff it was created with "
+                            + "(connect {} ms, read {} ms), the differing settings of this task are ignored until every task has released it",
+                    username, baseUrl, entry.connectTimeoutMs, entry.readTimeoutMs);
+        }
+        entry.references++;
+        return entry.client;
+    }
+
+    /**
+     * Keys hold a digest of the password rather than the password itself, so a task with another or a rotated
+     * password never gets a token obtained with someone else's.
+     */
+    private static String digest(String password) {
+        if (password == null) {
+            return null;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            //Every Java platform has SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static synchronized void release(TokenClient client) {
+        CLIENTS.entrySet().removeIf(keyAndEntry -> {
+            Entry entry = keyAndEntry.getValue();
+            if (entry.client != client || --entry.references > 0) {
+                return false;
+            }
+            entry.client.close();
+            entry.transport.close();
+            return true;
+        });
+    }
+
+    static synchronized int size() {
+        return CLIENTS.size();
+    }
+
+    private static final class Entry {
+        private final HttpTransport transport;
+        private final TokenClient client;
+        private final int connectTimeoutMs;
+        private final int readTimeoutMs;
+        private int references;
+
+        private Entry(HttpTransport transport, TokenClient client, int connectTimeoutMs, int readTimeoutMs) {
+            this.transport = transport;
+            this.client = client;
+            this.connectTimeoutMs = connectTimeoutMs;
+            this.readTimeoutMs = readTimeoutMs;
+        }
+    }
+
+    private static final class Key {
+        private final String baseUrl;
+        private final String username;
+        private final String passwordDigest;
+        private final String clientId;
+        private final String scope;
+
+        private Key(String baseUrl, String username, String passwordDigest, String clientId, String scope) {
+            this.baseUrl = baseUrl;
+            this.username = username;
+            this.passwordDigest = passwordDigest;
+            this.clientId = clientId;
+            this.scope = scope;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(baseUrl, key.baseUrl) && Objects.equals(username, key.username)
+                    && Objects.equals(passwordDigest, key.passwordDigest) && Objects.equals(clientId, key.clientId) && Objects.equals(scope, key.scope);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(baseUrl, username, passwordDigest, clientId, scope);
+        }
+    }
+}
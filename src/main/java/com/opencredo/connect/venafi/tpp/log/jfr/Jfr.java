@@ -0,0 +1,24 @@
+package com.opencredo.connect.venafi.tpp.log.jfr;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Guards the Flight Recorder events, as older Java 8 runtimes don't ship jdk.jfr. Callers check {@link #AVAILABLE}
+ * before creating an event, so the event classes are never loaded where they can't be. Where it is available an
+ * event costs little more than an allocation until a recording enables it.
+ */
+public final class Jfr {
+
+    public static final boolean AVAILABLE = isAvailable();
+
+    private Jfr() {
+    }
+
+    private static boolean isAvailable() {
+        try {
+            return FlightRecorder.isAvailable();
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
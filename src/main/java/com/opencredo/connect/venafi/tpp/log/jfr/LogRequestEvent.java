@@ -0,0 +1,66 @@
+package com.opencredo.connect.venafi.tpp.log.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.opencredo.venafi.LogRequest")
+@Label("TPP Log Request")
+@Description("A request to /vedsdk/Log, including decoding the response.")
+@Category({"Kafka Connect", "Venafi"})
+@StackTrace(false)
+public class LogRequestEvent extends Event {
+
+    @Label("URL")
+    private String url;
+
+    @Label("From Time")
+    private String fromTime;
+
+    @Label("To Time")
+    private String toTime;
+
+    @Label("Limit")
+    private int limit;
+
+    @Label("Offset")
+    private long offset;
+
+    @Label("HTTP Status")
+    @Description("Status of the response, -1 if none arrived.")
+    private int status;
+
+    @Label("Response Size")
+    @DataAmount
+    private long responseBytes;
+
+    @Label("Events")
+    private int events;
+
+    @Label("Decode Time")
+    @Timespan
+    private long decodeTime;
+
+    @Label("Outcome")
+    private String outcome;
+
+    /**
+     * Ends the event and commits it if a recording wants it; the fields are only set then.
+     */
+    public void finish(String url, String fromTime, String toTime, String limit, long offset, int status,
+                       long responseBytes, int events, long decodeNanos, String outcome) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        this.url = url;
+        this.fromTime = fromTime;
+        this.toTime = toTime;
+        this.limit = Integer.parseInt(limit);
+        this.offset = offset;
+        this.status = status;
+        this.responseBytes = responseBytes;
+        this.events = events;
+        this.decodeTime = decodeNanos;
+        this.outcome = outcome;
+        commit();
+    }
+}
@@ -0,0 +1,42 @@
+package com.opencredo.connect.venafi.tpp.log.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.opencredo.venafi.Poll")
+@Label("Venafi Source Task Poll")
+@Description("One call of the task's poll by the Connect worker.")
+@Category({"Kafka Connect", "Venafi"})
+@StackTrace(false)
+public class PollEvent extends Event {
+
+    @Label("URL")
+    private String url;
+
+    @Label("Task")
+    private String task;
+
+    @Label("Records")
+    @Description("Records handed to Connect.")
+    private int records;
+
+    @Label("Limit")
+    @Description("Limit of the next log request.")
+    private int limit;
+
+    @Label("Prefetched")
+    @Description("The records came from a page fetched ahead on another thread.")
+    private boolean prefetched;
+
+    public void finish(String url, String task, int records, int limit, boolean prefetched) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        this.url = url;
+        this.task = task;
+        this.records = records;
+        this.limit = limit;
+        this.prefetched = prefetched;
+        commit();
+    }
+}
@@ -0,0 +1,41 @@
+package com.opencredo.connect.venafi.tpp.log.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.opencredo.venafi.TokenRequest")
+@Label("TPP Token Request")
+@Description("Getting a new token or refreshing it, including waiting for another thread doing so.")
+@Category({"Kafka Connect", "Venafi"})
+@StackTrace(false)
+public class TokenRequestEvent extends Event {
+
+    @Label("URL")
+    private String url;
+
+    @Label("Grant")
+    @Description("authorize, refresh, or none if another thread renewed the token or the circuit is open.")
+    private String grant;
+
+    @Label("Background")
+    private boolean background;
+
+    @Label("HTTP Status")
+    @Description("Status of a failed response, 200 on success, -1 if none arrived.")
+    private int status;
+
+    @Label("Granted")
+    private boolean granted;
+
+    public void finish(String url, String grant, boolean background, int status, boolean granted) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        this.url = url;
+        this.grant = grant;
+        this.background = background;
+        this.status = status;
+        this.granted = granted;
+        commit();
+    }
+}
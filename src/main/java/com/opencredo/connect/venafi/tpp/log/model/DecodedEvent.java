@@ -0,0 +1,185 @@
+package com.opencredo.connect.venafi.tpp.log.model;
+
+import org.apache.kafka.connect.data.ConnectSchema;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A log event decoded into the value handed to Connect, alongside the Id and ServerTimestamp the task moves its
+ * cursor by, the latter in nanoseconds since the epoch so it keeps TPP's 100ns precision and compares cheaply.
+ * The value is an {@link EventLog#SCHEMA} Struct, or for raw {@link OutputFormat}s the event as TPP sent it, in
+ * which case only the cursor fields were read.
+ * <p>
+ * Struct events hold their field values until the Struct is first asked for, so events the task drops before they
+ * become records never cost one.
+ */
+public class DecodedEvent {
+    private Object value;
+    private final Long id;
+    private final ZonedDateTime clientTimestamp;
+    private final long serverTimeNanos;
+    private int sizeBytes;
+    //Values of a Struct event by schema field index, null for raw events.
+    private final Object[] values;
+    //Fields read from raw events besides the cursor fields, null for Structs.
+    private Map<String, Object> fields;
+
+    /**
+     * @param values    the event's values by {@link EventLog#SCHEMA} field index, typed as in the schema.
+     * @param sizeBytes rough size of the values, see {@link #getSizeBytes()}.
+     */
+    public DecodedEvent(Object[] values, ZonedDateTime clientTimestamp, long serverTimeNanos, int sizeBytes) {
+        this(null, (Long) values[EventLog.SCHEMA.field(EventLog.ID).index()], clientTimestamp, serverTimeNanos, sizeBytes, values, null);
+    }
+
+    private DecodedEvent(Object value, Long id, ZonedDateTime clientTimestamp, long serverTimeNanos, int sizeBytes, Object[] values, Map<String, Object> fields) {
+        this.value = value;
+        this.id = id;
+        this.clientTimestamp = clientTimestamp;
+        this.serverTimeNanos = serverTimeNanos;
+        this.sizeBytes = sizeBytes;
+        this.values = values;
+        this.fields = fields;
+    }
+
+    /**
+     * @param value     the event's JSON object as bytes or a String.
+     * @param fields    other fields read from it, typed as in {@link EventLog#SCHEMA}.
+     * @param sizeBytes the length of the JSON in UTF-8.
+     */
+    public static DecodedEvent raw(Object value, Long id, long serverTimeNanos, Map<String, Object> fields, int sizeBytes) {
+        return new DecodedEvent(value, id, null, serverTimeNanos, sizeBytes, null, fields);
+    }
+
+    /**
+     * @return how many bytes the text takes up in UTF-8, without encoding it.
+     */
+    public static int utf8Length(String text) {
+        int bytes = text.length();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                //Two bytes up to U+07FF, three above, and a surrogate pair makes four.
+                bytes += c >= 0x800 && !Character.isSurrogate(c) ? 2 : 1;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return a copy to change apart from this event, e.g. when one event is fanned out into several.
+     */
+    public DecodedEvent copy() {
+        return new DecodedEvent(values == null ? value : null, id, clientTimestamp, serverTimeNanos, sizeBytes,
+                values == null ? null : Arrays.copyOf(values, values.length), fields == null ? null : new HashMap<>(fields));
+    }
+
+    /**
+     * Replaces the JSON of a raw event, keeping its cursor fields and the fields read from it.
+     *
+     * @param value the changed JSON as bytes or a String.
+     * @return this event.
+     */
+    public DecodedEvent withValue(Object value) {
+        if (values != null) {
+            throw new IllegalStateException("The value of a Struct event is changed field by field, see put");
+        }
+        this.value = value;
+        this.sizeBytes = value instanceof byte[] ? ((byte[]) value).length : utf8Length((String) value);
+        return this;
+    }
+
+    /**
+     * Changes an {@link EventLog#SCHEMA} field of the event. For a Struct event that changes the record's value, for a
+     * raw event only what later processors, keys and headers read, its JSON is replaced through {@link #withValue(Object)}.
+     *
+     * @param value typed as in the schema, null to clear an optional field.
+     * @return this event.
+     * @throws DataException if the event has no such field or the value doesn't fit its schema.
+     */
+    public DecodedEvent put(String field, Object value) {
+        Field schemaField = EventLog.SCHEMA.field(field);
+        if (schemaField == null || EventLog.ID.equals(field)) {
+            throw new DataException(field + " is not a field that can be changed");
+        }
+        ConnectSchema.validateValue(field, schemaField.schema(), value);
+        if (values == null) {
+            if (fields.isEmpty()) {
+                fields = new HashMap<>();
+            }
+            fields.put(field, value);
+            return this;
+        }
+        Object old = values[schemaField.index()];
+        sizeBytes += textBytes(value) - textBytes(old);
+        values[schemaField.index()] = value;
+        this.value = null;
+        return this;
+    }
+
+    private static int textBytes(Object value) {
+        return value instanceof String ? utf8Length((String) value) : 0;
+    }
+
+    /**
+     * @return the value of an {@link EventLog#SCHEMA} field, typed as in the schema. Raw events only know their Id
+     * and the fields their scanner was asked to read, null for any other.
+     */
+    public Object get(String field) {
+        if (values != null) {
+            Field schemaField = EventLog.SCHEMA.field(field);
+            return schemaField == null ? null : values[schemaField.index()];
+        }
+        return EventLog.ID.equals(field) ? id : fields.get(field);
+    }
+
+    /**
+     * @return the Struct of a {@link OutputFormat#STRUCT} event, built the first time it's asked for.
+     */
+    public Struct getStruct() {
+        if (value == null) {
+            Struct struct = new Struct(EventLog.SCHEMA);
+            for (Field field : EventLog.SCHEMA.fields()) {
+                if (values[field.index()] != null) {
+                    struct.put(field, values[field.index()]);
+                }
+            }
+            value = struct;
+        }
+        return (Struct) value;
+    }
+
+    public Object getValue() {
+        return values != null ? getStruct() : value;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return the ClientTimestamp, null for raw events.
+     */
+    public ZonedDateTime getClientTimestamp() {
+        return clientTimestamp;
+    }
+
+    public long getServerTimeNanos() {
+        return serverTimeNanos;
+    }
+
+    /**
+     * Roughly how many bytes the value takes up, about what a converter makes of it: the UTF-8 JSON of raw events,
+     * the UTF-8 text of a Struct's fields plus a little for the rest. Used to cap how much of a response is decoded
+     * and how much a single poll hands to Connect.
+     */
+    public int getSizeBytes() {
+        return sizeBytes;
+    }
+}
@@ -0,0 +1,35 @@
+package com.opencredo.connect.venafi.tpp.log.model;
+
+import org.apache.kafka.connect.data.Schema;
+
+import java.util.Locale;
+
+/**
+ * How each event is handed to Connect.
+ */
+public enum OutputFormat {
+    //An EventLog Struct, for converters that serialise it themselves such as JsonConverter or AvroConverter.
+    STRUCT(EventLog.SCHEMA),
+    //The event's JSON object as TPP sent it, for ByteArrayConverter.
+    BYTES(Schema.BYTES_SCHEMA),
+    //The event's JSON object as TPP sent it, for StringConverter.
+    STRING(Schema.STRING_SCHEMA);
+
+    private final Schema schema;
+
+    OutputFormat(Schema schema) {
+        this.schema = schema;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    public boolean isRaw() {
+        return this != STRUCT;
+    }
+
+    public static OutputFormat parse(String format) {
+        return valueOf(format.toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,39 @@
+package com.opencredo.connect.venafi.tpp.log.model;
+
+import com.opencredo.connect.venafi.tpp.log.Deserializer.TimestampParser;
+
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Which time of an event its record is stamped with, so Kafka's time index follows the log rather than ingestion.
+ */
+public enum RecordTimestamp {
+    //When TPP logged the event, what the cursor follows.
+    SERVER,
+    //When the client that raised the event says it happened.
+    CLIENT,
+    //Left to the producer, as in the time the record was produced.
+    NONE;
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /**
+     * @return epoch millis of the event's time, or null to leave it to the producer or if the event doesn't have it.
+     */
+    public Long of(DecodedEvent event) {
+        switch (this) {
+            case SERVER:
+                return event.getServerTimeNanos() == TimestampParser.INVALID ? null : Math.floorDiv(event.getServerTimeNanos(), NANOS_PER_MILLI);
+            case CLIENT:
+                Date clientTimestamp = (Date) event.get(EventLog.CLIENT_TIMESTAMP);
+                return clientTimestamp == null ? null : clientTimestamp.getTime();
+            default:
+                return null;
+        }
+    }
+
+    public static RecordTimestamp parse(String timestamp) {
+        return valueOf(timestamp.toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,83 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSizeControllerTest {
+
+    public static final int MIN = 10;
+    public static final int MAX = 210;
+    public static final long TARGET_LATENCY_MS = 1_000L;
+    public static final long MAX_RESPONSE_BYTES = 1_000_000L;
+    public static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    public static final long SLOW = TimeUnit.MILLISECONDS.toNanos(TARGET_LATENCY_MS + 1);
+
+    @Test
+    void as_a_controller_I_want_to_start_at_the_minimum_and_step_up_on_full_fast_pages() {
+        BatchSizeController controller = given_an_adaptive_controller();
+        assertEquals(MIN, controller.getBatchSize());
+
+        controller.pageFetched(MIN, MIN, FAST, 1_000L);
+        assertEquals(MIN + 10, controller.getBatchSize());
+    }
+
+    @Test
+    void as_a_controller_I_want_to_hold_on_short_pages() {
+        BatchSizeController controller = given_an_adaptive_controller();
+        controller.pageFetched(MIN, MIN - 1, FAST, 1_000L);
+        assertEquals(MIN, controller.getBatchSize());
+    }
+
+    @Test
+    void as_a_controller_I_want_to_stay_within_the_bounds() {
+        BatchSizeController controller = given_an_adaptive_controller();
+        for (int i = 0; i < 100; i++) {
+            controller.pageFetched(controller.getBatchSize(), controller.getBatchSize(), FAST, 1_000L);
+        }
+        assertEquals(MAX, controller.getBatchSize());
+        for (int i = 0; i < 100; i++) {
+            controller.fetchFailed(controller.getBatchSize());
+        }
+        assertEquals(MIN, controller.getBatchSize());
+    }
+
+    @Test
+    void as_a_controller_I_want_to_halve_on_slow_large_or_failed_requests() {
+        BatchSizeController controller = given_an_adaptive_controller();
+        controller.pageFetched(200, 200, SLOW, 1_000L);
+        assertEquals(100, controller.getBatchSize());
+        controller.pageFetched(100, 100, FAST, MAX_RESPONSE_BYTES + 1);
+        assertEquals(50, controller.getBatchSize());
+        controller.fetchFailed(50);
+        assertEquals(25, controller.getBatchSize());
+    }
+
+    @Test
+    void as_a_controller_I_want_a_fixed_size_to_never_move() {
+        BatchSizeController controller = BatchSizeController.fixed(100, 0L);
+        controller.pageFetched(100, 100, FAST, 1_000L);
+        controller.pageFetched(100, 100, Long.MAX_VALUE - 1, Long.MAX_VALUE - 1);
+        controller.fetchFailed(100);
+        assertEquals(100, controller.getBatchSize());
+    }
+
+    @Test
+    void as_a_controller_I_want_to_cut_the_limit_to_the_page_byte_budget() {
+        BatchSizeController controller = BatchSizeController.fixed(100, 10_000L);
+        assertEquals(100, controller.getLimit());
+
+        controller.pageFetched(100, 100, FAST, 100_000L);
+        assertEquals(10, controller.getLimit());
+        assertEquals(100, controller.getBatchSize());
+
+        controller.pageFetched(10, 10, FAST, 1_000_000L);
+        assertEquals(TppLogSourceConfig.MIN_BATCH_SIZE, controller.getLimit());
+    }
+
+    private BatchSizeController given_an_adaptive_controller() {
+        return new BatchSizeController(MIN, MAX, TARGET_LATENCY_MS, MAX_RESPONSE_BYTES, 0L);
+    }
+}
@@ -0,0 +1,109 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.api.client.CaptureFile;
+import com.opencredo.connect.venafi.tpp.log.simulator.InMemoryOffsets;
+import com.opencredo.connect.venafi.tpp.log.simulator.SyntheticEventStream;
+import com.opencredo.connect.venafi.tpp.log.simulator.TppSimulator;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static com.opencredo.connect.venafi.tpp.log.TppLogSourceConfig.*;
+import static com.opencredo.connect.venafi.tpp.log.model.EventLog.ID;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaptureReplayTest {
+
+    private static final int EVENTS = 300;
+    private static final int MAX_POLLS = 100;
+    //Nothing listens here, a replaying task must never call it.
+    private static final String UNREACHABLE_URL = "http://127.0.0.1:1";
+
+    private Path captureDir;
+
+    @BeforeEach
+    void setup() throws IOException {
+        captureDir = Files.createTempDirectory("tppcap");
+    }
+
+    @AfterEach
+    void shutdown() throws IOException {
+        try (Stream<Path> files = Files.list(captureDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(captureDir);
+    }
+
+    @Test
+    void as_a_developer_I_want_to_replay_a_capture_without_tpp() throws IOException {
+        List<Long> captured;
+        try (TppSimulator simulator = new TppSimulator(SyntheticEventStream.backlog(EVENTS, 4, 64)).start()) {
+            captured = when_the_task_reads(given_a_task_is_started_with(simulator.getBaseUrl(), CAPTURE_DIR_CONFIG));
+        }
+
+        List<Long> replayed = when_the_task_reads(given_a_task_is_started_with(UNREACHABLE_URL, REPLAY_DIR_CONFIG));
+
+        assertEquals(EVENTS, captured.size());
+        assertEquals(captured, replayed);
+    }
+
+    @Test
+    void as_a_developer_I_want_no_usable_tokens_in_a_capture() throws IOException {
+        try (TppSimulator simulator = new TppSimulator(SyntheticEventStream.backlog(10, 1, 0)).start()) {
+            when_the_task_reads(given_a_task_is_started_with(simulator.getBaseUrl(), CAPTURE_DIR_CONFIG));
+        }
+
+        String capture = new String(Files.readAllBytes(captureDir.resolve("tail" + CaptureFile.EXTENSION)), StandardCharsets.ISO_8859_1);
+        assertTrue(capture.contains("\"access_token\":\"redacted\""));
+        assertTrue(capture.contains("\"refresh_token\":\"redacted\""));
+        assertFalse(capture.contains("placeholder_password"));
+    }
+
+    private TppLogSourceTask given_a_task_is_started_with(String baseUrl, String captureOrReplay) {
+        Map<String, String> config = new HashMap<>();
+        config.put(BASE_URL_CONFIG, baseUrl);
+        config.put(USERNAME_CONFIG, "placeholder_username");
+        config.put(PASSWORD_CONFIG, "placeholder_password");
+        config.put(SCOPE_CONFIG, "any");
+        config.put(CLIENT_ID_CONFIG, "venafi-kafka-connect-logs-test");
+        config.put(POLL_INTERVAL, "0");
+        config.put(BATCH_SIZE, "50");
+        config.put(captureOrReplay, captureDir.toString());
+        config.put(REPLAY_SPEED_CONFIG, "0");
+        TppLogSourceTask task = new TppLogSourceTask();
+        task.initialize(new InMemoryOffsets());
+        task.start(new TppLogSourceConfig(config).returnPropertiesWithDefaultsValuesIfMissing());
+        return task;
+    }
+
+    //Reads until a page comes back short, which the capture ends with too.
+    private List<Long> when_the_task_reads(TppLogSourceTask task) {
+        List<Long> ids = new ArrayList<>();
+        try {
+            for (int poll = 0; poll < MAX_POLLS; poll++) {
+                List<SourceRecord> records = task.poll();
+                records.forEach(record -> ids.add(((Struct) record.value()).getInt64(ID)));
+                if (records.size() < task.getBatchSize()) {
+                    break;
+                }
+            }
+        } finally {
+            task.stop();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,125 @@
+package com.opencredo.connect.venafi.tpp.log.Deserializer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+import com.opencredo.connect.venafi.tpp.log.model.EventLog;
+import com.opencredo.connect.venafi.tpp.log.model.LogResponse;
+import org.apache.kafka.connect.errors.DataException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventLogStreamDecoderTest {
+
+    public static final EventLogStreamDecoder DECODER = new EventLogStreamDecoder();
+    public static final String CLIENT_TIMESTAMP = "2019-10-17T15:23:06.9830000Z";
+    public static final String SERVER_TIMESTAMP = "2019-10-17T15:23:07.9671234";
+    public static final String COMPLETE_EVENT = "{\n" +
+            "  \"ClientTimestamp\": \"" + CLIENT_TIMESTAMP + "\",\n" +
+            "  \"Component\": \"\\\\VED\\\\Policy\\\\certificates\",\n" +
+            "  \"ComponentId\": 123185,\n" +
+            "  \"ComponentSubsystem\": \"Config\",\n" +
+            "  \"Data\": \"<data/>\",\n" +
+            "  \"EventId\": \"1C0008\",\n" +
+            "  \"Grouping\": 7,\n" +
+            "  \"Id\": 1835016,\n" +
+            "  \"Name\": \"Certificate Revocation - CRL Failure\",\n" +
+            "  \"ServerTimestamp\": \"" + SERVER_TIMESTAMP + "\",\n" +
+            "  \"Severity\": \"Info\",\n" +
+            "  \"SourceIP\": \"[::1]\",\n" +
+            "  \"Text1\": \"CN=traininglab-Root-CA\",\n" +
+            "  \"Text2\": \"ldap:///CN=traininglab-Root-CA\",\n" +
+            "  \"Value1\": 1,\n" +
+            "  \"Value2\": 2\n" +
+            "}";
+    public static final String MINIMAL_EVENT = "{\n" +
+            "  \"ClientTimestamp\": \"" + CLIENT_TIMESTAMP + "\",\n" +
+            "  \"Component\": null,\n" +
+            "  \"Data\": null,\n" +
+            "  \"Grouping\": 0,\n" +
+            "  \"Id\": 65542,\n" +
+            "  \"Name\": \"Log - SMTP Configuration Error\",\n" +
+            "  \"NotInTheSchema\": {\"Nested\": [1, 2]},\n" +
+            "  \"ServerTimestamp\": \"" + SERVER_TIMESTAMP + "\",\n" +
+            "  \"Severity\": \"Notice\",\n" +
+            "  \"SourceIP\": \"127.0.0.1\"\n" +
+            "}";
+
+    @Test
+    void decode_the_same_structs_as_the_reflective_decoder() throws IOException {
+        String json = given_a_response_of(COMPLETE_EVENT, MINIMAL_EVENT);
+        List<DecodedEvent> events = when_the_response_is_decoded(json);
+        List<EventLog> expected = given_the_reflectively_decoded_events(json);
+
+        assertEquals(expected.size(), events.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toStruct(), events.get(i).getStruct());
+        }
+    }
+
+    @Test
+    void keep_the_full_precision_of_the_timestamps() throws IOException {
+        List<DecodedEvent> events = when_the_response_is_decoded(given_a_response_of(COMPLETE_EVENT));
+        assertEquals(ZonedDateTime.parse(CLIENT_TIMESTAMP), events.get(0).getClientTimestamp());
+        assertEquals(TimestampParser.toEpochNanos(ZonedDateTimeDeserializer.parse(SERVER_TIMESTAMP)), events.get(0).getServerTimeNanos());
+    }
+
+    @Test
+    void build_the_struct_from_the_changed_fields() throws IOException {
+        DecodedEvent event = when_the_response_is_decoded(given_a_response_of(COMPLETE_EVENT)).get(0);
+        event.put(EventLog.SOURCE_IP, "masked").put(EventLog.DATA, null);
+        assertEquals("masked", event.get(EventLog.SOURCE_IP));
+        assertEquals("masked", event.getStruct().get(EventLog.SOURCE_IP));
+        assertNull(event.getStruct().get(EventLog.DATA));
+        assertThrows(DataException.class, () -> event.put(EventLog.GROUPING, "not a number"));
+        assertThrows(DataException.class, () -> event.put("NotInTheSchema", 1));
+    }
+
+    @Test
+    void stop_decoding_at_the_byte_budget() throws IOException {
+        String json = given_a_response_of(COMPLETE_EVENT, MINIMAL_EVENT, COMPLETE_EVENT);
+        List<DecodedEvent> events = new ArrayList<>();
+        assertTrue(DECODER.decode(new StringReader(json), 1L, events));
+        assertEquals(1, events.size());
+        assertEquals(1835016L, (long) events.get(0).getId());
+
+        events.clear();
+        assertFalse(DECODER.decode(new StringReader(json), 1_000_000L, events));
+        assertEquals(3, events.size());
+    }
+
+    @Test
+    void count_the_size_of_text_in_utf8_bytes() {
+        assertEquals(3, DecodedEvent.utf8Length("abc"));
+        assertEquals(2 + 3 + 4, DecodedEvent.utf8Length("\u00e9\u20ac\ud83d\ude00"));
+    }
+
+    @Test
+    void decode_an_empty_or_missing_list_of_events() throws IOException {
+        assertTrue(when_the_response_is_decoded("{\"LogEvents\": []}").isEmpty());
+        assertTrue(when_the_response_is_decoded("{\"LogEvents\": null}").isEmpty());
+        assertTrue(when_the_response_is_decoded("{}").isEmpty());
+    }
+
+    private String given_a_response_of(String... events) {
+        return "{\"Other\": 1, \"LogEvents\": [" + String.join(",", events) + "]}";
+    }
+
+    private List<EventLog> given_the_reflectively_decoded_events(String json) {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeDeserializer())
+                .create();
+        return gson.fromJson(json, LogResponse.class).getLogEvents();
+    }
+
+    private List<DecodedEvent> when_the_response_is_decoded(String json) throws IOException {
+        return DECODER.decode(new StringReader(json));
+    }
+}
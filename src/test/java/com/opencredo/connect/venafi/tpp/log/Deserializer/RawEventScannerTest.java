@@ -0,0 +1,110 @@
+package com.opencredo.connect.venafi.tpp.log.Deserializer;
+
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+import com.opencredo.connect.venafi.tpp.log.model.EventLog;
+import com.opencredo.connect.venafi.tpp.log.model.OutputFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.opencredo.connect.venafi.tpp.log.Deserializer.EventLogStreamDecoderTest.COMPLETE_EVENT;
+import static com.opencredo.connect.venafi.tpp.log.Deserializer.EventLogStreamDecoderTest.MINIMAL_EVENT;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RawEventScannerTest {
+
+    private static final RawEventScanner SCANNER = new RawEventScanner();
+    private static final String TRICKY_EVENT = "{\"Text1\":\"café \\\"{[\\\\\",\"Data\":{\"Id\":7,\"ServerTimestamp\":\"1984-05-04T00:00:00Z\"},"
+            + "\"Idle\":1,\"Id\":-42,\"ServerTimestamp\":\"2019-10-17T15:23:07.1234567+01:00\",\"Values\":[1,[2,{}]],\"Empty\":null}";
+
+    @Test
+    void scan_each_event_as_it_was_sent() throws IOException {
+        String json = "{\"Before\":{\"LogEvents\":[]},\"LogEvents\":[" + COMPLETE_EVENT + ",\n" + MINIMAL_EVENT + "],\"After\":[\"]\"]}";
+
+        List<DecodedEvent> events = when_the_response_is_scanned(json, OutputFormat.STRING);
+
+        assertEquals(2, events.size());
+        assertEquals(COMPLETE_EVENT, events.get(0).getValue());
+        assertEquals(MINIMAL_EVENT, events.get(1).getValue());
+    }
+
+    @Test
+    void read_the_same_cursor_fields_as_the_stream_decoder() throws IOException {
+        String json = "{\"LogEvents\":[" + COMPLETE_EVENT + "," + MINIMAL_EVENT + "]}";
+
+        List<DecodedEvent> scanned = when_the_response_is_scanned(json, OutputFormat.BYTES);
+        List<DecodedEvent> decoded = new EventLogStreamDecoder().decode(new StringReader(json));
+
+        for (int i = 0; i < decoded.size(); i++) {
+            assertEquals(decoded.get(i).getId(), scanned.get(i).getId());
+            assertEquals(decoded.get(i).getServerTimeNanos(), scanned.get(i).getServerTimeNanos());
+        }
+    }
+
+    @Test
+    void read_the_fields_it_was_asked_for_as_the_stream_decoder_does() throws IOException {
+        String json = "{\"LogEvents\":[" + COMPLETE_EVENT + "," + MINIMAL_EVENT + "]}";
+        List<String> fields = Arrays.asList(EventLog.COMPONENT, EventLog.COMPONENT_ID, EventLog.GROUPING, EventLog.CLIENT_TIMESTAMP, EventLog.ID);
+        RawEventScanner scanner = new RawEventScanner(fields);
+
+        List<DecodedEvent> scanned = scanner.scan(json.getBytes(StandardCharsets.UTF_8), json.length(), OutputFormat.STRING);
+        List<DecodedEvent> decoded = new EventLogStreamDecoder().decode(new StringReader(json));
+
+        for (int i = 0; i < decoded.size(); i++) {
+            for (String field : fields) {
+                assertEquals(decoded.get(i).get(field), scanned.get(i).get(field), field);
+            }
+        }
+        assertEquals("\\VED\\Policy\\certificates", scanned.get(0).get(EventLog.COMPONENT));
+        assertNull(scanned.get(1).get(EventLog.COMPONENT));
+        assertNull(scanned.get(0).get(EventLog.SEVERITY));
+    }
+
+    @Test
+    void only_read_the_top_level_cursor_fields_of_an_event() throws IOException {
+        List<DecodedEvent> events = when_the_response_is_scanned("{ \"LogEvents\" : [ " + TRICKY_EVENT + " ] }", OutputFormat.BYTES);
+
+        assertEquals(1, events.size());
+        assertArrayEquals(TRICKY_EVENT.getBytes(StandardCharsets.UTF_8), (byte[]) events.get(0).getValue());
+        assertEquals(-42L, (long) events.get(0).getId());
+        assertEquals(TimestampParser.toEpochNanos(ZonedDateTime.parse("2019-10-17T14:23:07.123456700Z")), events.get(0).getServerTimeNanos());
+    }
+
+    @Test
+    void stop_scanning_at_the_byte_budget() throws IOException {
+        String json = "{\"LogEvents\":[" + TRICKY_EVENT + "," + MINIMAL_EVENT + "]}";
+        List<DecodedEvent> events = new ArrayList<>();
+
+        assertTrue(SCANNER.decode(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), OutputFormat.STRING, 1L, events));
+        assertEquals(1, events.size());
+        assertEquals(TRICKY_EVENT, events.get(0).getValue());
+        assertEquals(TRICKY_EVENT.getBytes(StandardCharsets.UTF_8).length, events.get(0).getSizeBytes());
+    }
+
+    @Test
+    void scan_a_response_without_events() throws IOException {
+        assertTrue(when_the_response_is_scanned("{}", OutputFormat.STRING).isEmpty());
+        assertTrue(when_the_response_is_scanned("{\"LogEvents\":null}", OutputFormat.STRING).isEmpty());
+        assertTrue(when_the_response_is_scanned("{\"LogEvents\":[ ]}", OutputFormat.STRING).isEmpty());
+    }
+
+    @Test
+    void fail_on_a_response_cut_short() {
+        String json = "{\"LogEvents\":[" + COMPLETE_EVENT + "," + MINIMAL_EVENT + "]}";
+
+        for (int length : new int[]{0, 10, json.length() / 2, json.length() - 2, json.length() - 1}) {
+            assertThrows(IOException.class, () -> when_the_response_is_scanned(json.substring(0, length), OutputFormat.STRING));
+        }
+    }
+
+    private List<DecodedEvent> when_the_response_is_scanned(String json, OutputFormat format) throws IOException {
+        return SCANNER.decode(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), format);
+    }
+}
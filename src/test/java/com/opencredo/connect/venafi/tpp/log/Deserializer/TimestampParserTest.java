@@ -0,0 +1,67 @@
+package com.opencredo.connect.venafi.tpp.log.Deserializer;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimestampParserTest {
+
+    @Test
+    void parse_iso_timestamps_like_java_time() {
+        assertEquals(ZonedDateTime.parse("2019-10-17T15:23:06.9830000Z"), TimestampParser.parseIsoDateTime("2019-10-17T15:23:06.9830000Z"));
+        assertEquals(ZonedDateTime.parse("2019-10-17T15:23:06.1234567+01:00"), TimestampParser.parseIsoDateTime("2019-10-17T15:23:06.1234567+01:00"));
+        assertEquals(ZonedDateTime.parse("2019-10-17T15:23:06-05:30"), TimestampParser.parseIsoDateTime("2019-10-17T15:23:06-05:30"));
+        assertEquals(ZonedDateTime.parse("2019-10-17T15:23Z"), TimestampParser.parseIsoDateTime("2019-10-17T15:23Z"));
+        assertEquals(ZonedDateTime.parse("2019-10-17T15:23:06.123456789Z"), TimestampParser.parseIsoDateTime("2019-10-17T15:23:06.123456789Z"));
+        assertEquals(LocalDateTime.parse("2019-10-17T15:23:06.9").atZone(ZoneOffset.UTC), TimestampParser.parseIsoDateTime("2019-10-17T15:23:06.9"));
+    }
+
+    @Test
+    void leave_unusual_iso_timestamps_to_java_time() {
+        assertNull(TimestampParser.parseIsoDateTime(""));
+        assertNull(TimestampParser.parseIsoDateTime("2019-10-17"));
+        assertNull(TimestampParser.parseIsoDateTime("2019-02-30T15:23:06Z"));
+        assertNull(TimestampParser.parseIsoDateTime("2019-10-17T15:23:06.Z"));
+        assertNull(TimestampParser.parseIsoDateTime("2019-10-17T15:23:06.1234567890Z"));
+        assertNull(TimestampParser.parseIsoDateTime("2019-10-17T15:23:06+0100"));
+        assertNull(TimestampParser.parseIsoDateTime("2019-10-17T15:23:06Z[Europe/London]"));
+        assertEquals(ZonedDateTime.parse("2019-10-17T15:23:06Z[Europe/London]"), ZonedDateTimeDeserializer.parse("2019-10-17T15:23:06Z[Europe/London]"));
+    }
+
+    @Test
+    void parse_iso_timestamps_to_epoch_nanos_like_java_time() {
+        for (String text : new String[]{"2019-10-17T15:23:06.9830000Z", "2019-10-17T15:23:06.1234567+01:00", "2019-10-17T15:23:06-05:30",
+                "2019-10-17T15:23Z", "2019-10-17T15:23:06.123456789Z", "2019-10-17T15:23:06.9", "1984-05-04T00:00:00.0000000Z",
+                "2000-02-29T23:59:59.9999999Z", "1900-03-01T00:00:00Z", "1969-12-31T23:59:59.9999999Z", "2261-12-31T23:59:59Z"}) {
+            assertEquals(TimestampParser.toEpochNanos(ZonedDateTimeDeserializer.parse(text)), TimestampParser.parseIsoEpochNanos(text), text);
+        }
+        for (ZonedDateTime day = ZonedDateTime.parse("1970-01-01T00:00:00Z").minusYears(3); day.getYear() < 2030; day = day.plusDays(1)) {
+            assertEquals(TimestampParser.toEpochNanos(day), TimestampParser.parseIsoEpochNanos(day.toLocalDateTime() + "Z"));
+        }
+        assertEquals(TimestampParser.INVALID, TimestampParser.parseIsoEpochNanos("2019-02-29T15:23:06Z"));
+        assertEquals(TimestampParser.INVALID, TimestampParser.parseIsoEpochNanos("2019-10-17T24:00:00Z"));
+        assertEquals(TimestampParser.INVALID, TimestampParser.parseIsoEpochNanos("2019-10-17T15:23:06+0100"));
+        assertEquals(TimestampParser.INVALID, TimestampParser.parseIsoEpochNanos("1500-10-17T15:23:06Z"));
+    }
+
+    @Test
+    void parse_dot_net_dates() {
+        assertEquals(Instant.ofEpochMilli(-1000L), TimestampParser.parseDotNetDate("/Date(-1000)/").toInstant());
+        assertEquals(ZoneOffset.ofHoursMinutes(-5, -30), TimestampParser.parseDotNetDate("/Date(1000-0530)/").getOffset());
+        assertNull(TimestampParser.parseDotNetDate("/Date(1000+01)/"));
+        assertNull(TimestampParser.parseDotNetDate("/Date(abc)/"));
+    }
+
+    @Test
+    void parse_epoch_seconds() {
+        assertEquals(Instant.ofEpochSecond(1635153150L), TimestampParser.parseEpochSeconds("1635153150").toInstant());
+        assertNull(TimestampParser.parseEpochSeconds(""));
+        assertNull(TimestampParser.parseEpochSeconds("-1"));
+        assertNull(TimestampParser.parseEpochSeconds("99999999999999999999"));
+    }
+}
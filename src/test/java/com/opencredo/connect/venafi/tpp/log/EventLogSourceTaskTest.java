@@ -3,6 +3,13 @@ package com.opencredo.connect.venafi.tpp.log;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import com.opencredo.connect.venafi.tpp.log.Deserializer.TimestampParser;
+import com.opencredo.connect.venafi.tpp.log.model.DecodedEvent;
+import com.opencredo.connect.venafi.tpp.log.simulator.InMemoryOffsets;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.apache.kafka.connect.source.SourceTaskContext;
@@ -14,6 +21,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
@@ -24,7 +35,9 @@ import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.opencredo.connect.venafi.tpp.log.TppLogSourceConfig.*;
 import static com.opencredo.connect.venafi.tpp.log.TppLogSourceTask.*;
 import static com.opencredo.connect.venafi.tpp.log.api.TppLog.FROM_TIME;
+import static com.opencredo.connect.venafi.tpp.log.api.TppLog.LIMIT;
 import static com.opencredo.connect.venafi.tpp.log.api.TppLog.OFFSET;
+import static com.opencredo.connect.venafi.tpp.log.api.TppLog.TO_TIME;
 import static com.opencredo.connect.venafi.tpp.log.model.EventLog.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -36,6 +49,9 @@ public class EventLogSourceTaskTest {
     public static final String AUTHORIZE_REFRESH_API_REGEX_PATH = "/vedauth/[Aa]uthorize/token?";
 
     private static final ZonedDateTime TODAY = ZonedDateTime.now();
+    private static final String BACKFILL_WINDOW_1 = "2019-01-01T00:00:00.0000000Z";
+    private static final String BACKFILL_WINDOW_2 = "2019-01-02T00:00:00.0000000Z";
+    private static final String BACKFILL_END = "2019-01-03T00:00:00.0000000Z";
     private WireMockServer wireMockServer = new WireMockServer(
             new WireMockConfiguration().dynamicPort()
                     .extensions(new ResponseTemplateTransformer(false))
@@ -46,8 +62,12 @@ public class EventLogSourceTaskTest {
     }
 
     static String createLogEventBody(ZonedDateTime dateTime) {
+        return createLogEventBody(dateTime, dateTime);
+    }
+
+    static String createLogEventBody(ZonedDateTime clientDateTime, ZonedDateTime dateTime) {
         return "        {\n" +
-                "            \"ClientTimestamp\": \"" + dateTime.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME) + "\",\n" +
+                "            \"ClientTimestamp\": \"" + clientDateTime.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME) + "\",\n" +
                 "            \"Component\": \"\\\\VED\\\\Policy\\\\certificates\\\\_Discovered\\\\TrustNet\\\\defaultwebsite.lab.venafi.com - 83\",\n" +
                 "            \"ComponentId\": 123185,\n" +
                 "            \"ComponentSubsystem\": \"Config\",\n" +
@@ -66,7 +86,7 @@ public class EventLogSourceTaskTest {
     }
 
     String getStringOfTodayPlus(int seconds) {
-        return getTodayPlus(seconds).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+        return getTodayPlus(seconds).withZoneSameInstant(ZoneOffset.UTC).format(LogWindow.WINDOW_FORMAT);
     }
 
     @BeforeEach
@@ -135,6 +155,203 @@ public class EventLogSourceTaskTest {
         wireMockServer.verify(1, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)));
     }
 
+    @Test
+    public void as_a_task_I_want_to_skip_the_poll_interval_while_pages_come_back_full() {
+
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log_for_catching_up();
+        TppLogSourceTask task = given_a_task_is_setup_with(1000000, 2);
+
+        List<SourceRecord> fullPage = when_the_task_is_polled(task);
+        then_the_logs_are_of_size(fullPage, 2);
+        List<SourceRecord> shortPage = when_the_task_is_polled(task);
+        then_the_logs_are_of_size(shortPage, 1);
+        List<SourceRecord> caughtUp = when_the_task_is_polled(task);
+        then_the_logs_are_of_size(caughtUp, 0);
+        wireMockServer.verify(2, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)));
+    }
+
+    @Test
+    public void as_a_task_I_want_to_raise_the_limit_while_pages_come_back_full_and_fast() {
+
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log();
+        TppLogSourceTask task = given_an_adaptive_task_is_setup_with(2, 42);
+
+        then_the_logs_are_of_size(when_the_task_is_polled(task), 2);
+        assertEquals(4, task.getBatchSize());
+        then_the_logs_are_of_size(when_the_task_is_polled(task), 2);
+        assertEquals(4, task.getBatchSize());
+        wireMockServer.verify(1, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)).withQueryParam(LIMIT, equalTo("2")));
+        wireMockServer.verify(1, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)).withQueryParam(LIMIT, equalTo("4")));
+    }
+
+    @Test
+    public void as_a_task_I_want_filters_TPP_can_apply_pushed_into_the_log_query() {
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log();
+        TppLogSourceTask task = given_a_task_is_setup_with_filters("Warning", "\\VED\\Engines\\tpp", "0,7", "", true, "struct");
+
+        //The mock doesn't filter, so only the Groupings listed are matched by the task.
+        then_the_logs_are_of_size(when_the_task_is_polled(task), 2);
+        wireMockServer.verify(1, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH))
+                .withQueryParam(EventFilter.SEVERITY_QUERY, equalTo("1:5"))
+                .withQueryParam(EventFilter.COMPONENT_QUERY, equalTo("\\VED\\Engines\\tpp"))
+                .withQueryParam(EventFilter.GROUPING_QUERY, absent()));
+    }
+
+    @Test
+    public void as_a_task_I_want_events_filtered_before_they_become_records() {
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log_with_severities("Info", "Error", "Debug");
+        TppLogSourceTask task = given_a_task_is_setup_with_filters("Warning", "", "", "", false, "string");
+
+        List<SourceRecord> logs = when_the_task_is_polled(task);
+        then_the_logs_are_of_size(logs, 1);
+        then_the_number_of_logs_with_timestamp_is(1, logs, getTodayPlus(2));
+        wireMockServer.verify(1, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH))
+                .withQueryParam(EventFilter.SEVERITY_QUERY, absent()));
+
+        //The cursor moved past the dropped Debug event.
+        when_the_task_is_polled(task);
+        wireMockServer.verify(1, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH))
+                .withQueryParam(FROM_TIME, equalTo(getStringOfTodayPlus(3))));
+    }
+
+    @Test
+    public void as_a_task_I_want_processors_to_drop_and_change_events_before_they_are_keyed() {
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log_with_severities("Info", "Debug", "Error");
+        TppLogSourceTask task = given_a_task_is_setup_with_processors(MaskingProcessor.class.getName(), SOURCE_IP, "struct");
+
+        List<SourceRecord> logs = when_the_task_is_polled(task);
+        then_the_logs_are_of_size(logs, 2);
+        for (SourceRecord record : logs) {
+            assertEquals("masked", record.key());
+            assertEquals("masked", ((Struct) record.value()).get(SOURCE_IP));
+        }
+        then_the_number_of_logs_with_timestamp_is(1, logs, getTodayPlus(3));
+    }
+
+    @Test
+    public void as_a_task_I_want_processors_chained_to_fan_out_events() {
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log_with_severities("Info", "Debug");
+        TppLogSourceTask task = given_a_task_is_setup_with_processors(
+                DuplicatingProcessor.class.getName() + "," + DebugDroppingProcessor.class.getName(), "", "string");
+
+        List<SourceRecord> logs = when_the_task_is_polled(task);
+        then_the_logs_are_of_size(logs, 2);
+        then_the_number_of_logs_with_timestamp_is(2, logs, getTodayPlus(1));
+        assertEquals(logs.get(0).value(), logs.get(1).value());
+        task.stop();
+    }
+
+    @Test
+    public void as_a_task_I_want_pages_fetched_ahead_to_keep_their_order_and_offsets() {
+
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log_for_catching_up();
+        TppLogSourceTask task = given_a_prefetching_task_is_setup_with(1000000, 2);
+
+        List<SourceRecord> fullPage = when_the_task_is_polled_until_records_arrive(task);
+        then_the_logs_are_of_size(fullPage, 2);
+        then_the_number_of_logs_with_timestamp_is(1, fullPage, getTodayPlus(2));
+        List<SourceRecord> shortPage = when_the_task_is_polled_until_records_arrive(task);
+        then_the_logs_are_of_size(shortPage, 1);
+        then_the_number_of_logs_with_timestamp_is(1, shortPage, getTodayPlus(3));
+        task.stop();
+        wireMockServer.verify(2, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)));
+    }
+
+    @Test
+    public void as_a_task_I_want_pages_fetched_without_blocking_to_keep_their_order_and_offsets() {
+
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log_for_catching_up();
+        TppLogSourceTask task = given_an_async_task_is_setup_with(1000000, 2);
+
+        List<SourceRecord> fullPage = when_the_task_is_polled_until_records_arrive(task);
+        then_the_logs_are_of_size(fullPage, 2);
+        then_the_number_of_logs_with_timestamp_is(1, fullPage, getTodayPlus(2));
+        List<SourceRecord> shortPage = when_the_task_is_polled_until_records_arrive(task);
+        then_the_logs_are_of_size(shortPage, 1);
+        then_the_number_of_logs_with_timestamp_is(1, shortPage, getTodayPlus(3));
+        task.stop();
+        wireMockServer.verify(2, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)));
+    }
+
+    @Test
+    public void as_a_task_I_want_the_windows_of_several_endpoints_fetched_at_once() {
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log_for_backfill_windows();
+        WireMockServer otherServer = given_another_server_answering_like_the_mock();
+        try {
+            TppLogSourceTask task = given_an_async_backfill_task_is_setup_with_endpoint(otherServer.baseUrl());
+
+            List<SourceRecord> records = new ArrayList<>();
+            for (int attempt = 0; attempt < 20 && records.size() < 6; attempt++) {
+                records.addAll(task.poll());
+            }
+            task.stop();
+            then_the_logs_are_of_size(records, 6);
+            for (String url : Arrays.asList(wireMockServer.baseUrl(), otherServer.baseUrl())) {
+                assertEquals(2, records.stream().filter(record -> url.equals(record.sourcePartition().get(URL))
+                        && BACKFILL_WINDOW_1.equals(record.sourcePartition().get(WINDOW))).count());
+                assertEquals(1, records.stream().filter(record -> url.equals(record.sourcePartition().get(URL))
+                        && BACKFILL_WINDOW_2.equals(record.sourcePartition().get(WINDOW))).count());
+            }
+            wireMockServer.verify(2, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)));
+            otherServer.verify(2, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)));
+        } finally {
+            otherServer.shutdown();
+        }
+    }
+
+    @Test
+    public void as_a_task_I_want_windows_that_fetched_nothing_to_wait_for_the_poll_interval() {
+        given_the_mock_will_respond_to_auth();
+        and_given_the_mock_will_respond_to_auth_refresh();
+        wireMockServer.stubFor(get(urlPathMatching(LOG_API_REGEX_PATH)).willReturn(aResponse().withStatus(401)));
+        TppLogSourceTask task = given_an_async_backfill_task_is_setup_with(1000000);
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            then_the_logs_are_of_size(task.poll(), 0);
+        }
+        task.stop();
+        //One request per window, each turned down and then left until the next interval.
+        wireMockServer.verify(2, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)));
+    }
+
+    @Test
+    public void as_a_task_I_want_flight_recorder_events_for_each_api_call_and_poll() throws IOException {
+
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log();
+        TppLogSourceTask task = given_a_task_is_setup();
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("com.opencredo.venafi.LogRequest");
+            recording.enable("com.opencredo.venafi.TokenRequest");
+            recording.enable("com.opencredo.venafi.Poll");
+            recording.start();
+            then_the_logs_are_of_size(when_the_task_is_polled(task), 2);
+            recording.stop();
+            events = then_the_recorded_events_are(recording);
+        }
+
+        RecordedEvent logRequest = then_the_only_recorded_event_is(events, "com.opencredo.venafi.LogRequest");
+        assertEquals(DEFAULT_FROM_TIME, logRequest.getString("fromTime"));
+        assertEquals(100, logRequest.getInt("limit"));
+        assertEquals(0L, logRequest.getLong("offset"));
+        assertEquals(200, logRequest.getInt("status"));
+        assertEquals(2, logRequest.getInt("events"));
+        assertTrue(logRequest.getLong("responseBytes") > 0);
+        assertEquals("authorize", then_the_only_recorded_event_is(events, "com.opencredo.venafi.TokenRequest").getString("grant"));
+        assertEquals(2, then_the_only_recorded_event_is(events, "com.opencredo.venafi.Poll").getInt("records"));
+    }
+
     @Test
     public void as_a_client_I_want_a_token_to_only_generate_once_while_before_token_expiry() {
 
@@ -187,6 +404,25 @@ public class EventLogSourceTaskTest {
         then_the_logs_will_have_an_expected_number_of_records_with_a_specific_apioffset(sourceRecords2, 1, 3L);
     }
 
+    @Test
+    public void as_a_task_I_want_to_resume_from_offsets_written_before_the_cursor_was_versioned() {
+        Map<String, Object> legacyOffset = new HashMap<>(2);
+        legacyOffset.put(LAST_READ, getTodayPlus(2).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+        legacyOffset.put(LAST_API_OFFSET, 1L);
+        SourceTaskContext mockSourceTaskContext = given_a_mock_source_context_with(legacyOffset);
+
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log_for_offsetsStorage();
+
+        TppLogSourceTask task = given_a_task_is_setup(mockSourceTaskContext);
+
+        List<SourceRecord> sourceRecords = when_the_task_is_polled(task);
+        then_the_logs_are_of_size(sourceRecords, 3);
+        then_the_logs_will_have_an_expected_number_of_records_with_a_specific_apioffset(sourceRecords, 1, 2L);
+        assertEquals(LogCursor.VERSION, sourceRecords.get(2).sourceOffset().get(CURSOR_VERSION));
+        assertFalse(sourceRecords.get(2).sourceOffset().containsKey(LAST_READ));
+    }
+
     @Test
     public void as_a_task_I_want_to_handle_an_empty_context() {
         SourceTaskContext mockSourceTaskContext = given_a_mock_source_context_with(Collections.emptyMap());
@@ -220,6 +456,88 @@ public class EventLogSourceTaskTest {
         then_the_logs_will_have_an_expected_number_of_records_with_a_specific_apioffset(logs, 2, 1L);
     }
 
+    @Test
+    public void as_a_task_I_want_to_hand_on_events_as_sent_in_bytes_format() {
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log();
+        TppLogSourceTask task = given_a_task_is_setup_with_output_format("bytes");
+
+        List<SourceRecord> logs = when_the_task_is_polled(task);
+
+        then_the_logs_are_of_size(logs, 2);
+        then_the_logs_will_have_an_expected_number_of_records_with_a_specific_apioffset(logs, 2, 1L);
+        assertEquals(Schema.BYTES_SCHEMA, logs.get(0).valueSchema());
+        assertEquals(createLogEventBody(getTodayPlus(1)).trim(), new String((byte[]) logs.get(0).value(), StandardCharsets.UTF_8));
+        assertEquals(createLogEventBody(getTodayPlus(2)).trim(), new String((byte[]) logs.get(1).value(), StandardCharsets.UTF_8));
+        assertEquals(TimestampParser.toEpochNanos(getTodayPlus(2)), logs.get(1).sourceOffset().get(CURSOR_TIME));
+    }
+
+    @Test
+    public void as_a_task_I_want_to_key_records_by_the_component() {
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log();
+        TppLogSourceTask task = given_a_task_is_setup_with_key(COMPONENT, 0, "struct");
+
+        List<SourceRecord> logs = when_the_task_is_polled(task);
+
+        then_the_logs_are_of_size(logs, 2);
+        assertEquals(Schema.Type.STRING, logs.get(0).keySchema().type());
+        assertEquals("\\VED\\Policy\\certificates\\_Discovered\\TrustNet\\defaultwebsite.lab.venafi.com - 83", logs.get(0).key());
+        assertNull(logs.get(0).kafkaPartition());
+    }
+
+    @Test
+    public void as_a_task_I_want_to_pick_the_partition_of_raw_events_by_a_composite_key() {
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log();
+        TppLogSourceTask task = given_a_task_is_setup_with_key(COMPONENT_ID + "," + GROUPING, 12, "bytes");
+
+        List<SourceRecord> logs = when_the_task_is_polled(task);
+
+        then_the_logs_are_of_size(logs, 2);
+        Struct key = (Struct) logs.get(0).key();
+        assertEquals(RecordKey.KEY_SCHEMA_NAME, logs.get(0).keySchema().name());
+        assertEquals(123185, key.get(COMPONENT_ID));
+        assertEquals(0, key.get(GROUPING));
+        assertEquals(key, logs.get(1).key());
+        assertNotNull(logs.get(0).kafkaPartition());
+        assertTrue(logs.get(0).kafkaPartition() >= 0 && logs.get(0).kafkaPartition() < 12);
+        assertEquals(logs.get(0).kafkaPartition(), logs.get(1).kafkaPartition());
+    }
+
+    @Test
+    public void as_a_task_I_want_records_stamped_with_the_server_or_client_timestamp() {
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log_with_client_timestamps_out_of_order();
+
+        List<SourceRecord> server = when_the_task_is_polled(given_a_task_is_setup());
+        then_the_logs_are_of_size(server, 2);
+        assertEquals(getTodayPlus(3).toInstant().toEpochMilli(), (long) server.get(0).timestamp());
+        assertEquals(getTodayPlus(3).toInstant().toEpochMilli(), (long) server.get(1).timestamp());
+
+        List<SourceRecord> client = when_the_task_is_polled(given_a_task_is_setup_with_metadata("client", "", "bytes"));
+        then_the_logs_are_of_size(client, 2);
+        assertEquals(getTodayPlus(2).toInstant().toEpochMilli(), (long) client.get(0).timestamp());
+        assertEquals(getTodayPlus(1).toInstant().toEpochMilli(), (long) client.get(1).timestamp());
+    }
+
+    @Test
+    public void as_a_task_I_want_to_route_raw_events_by_headers() {
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log();
+        TppLogSourceTask task = given_a_task_is_setup_with_metadata("none", SEVERITY + "," + EVENT_ID + "," + GROUPING, "string");
+
+        List<SourceRecord> logs = when_the_task_is_polled(task);
+
+        then_the_logs_are_of_size(logs, 2);
+        assertNull(logs.get(0).timestamp());
+        assertEquals("Info", logs.get(0).headers().lastWithName(SEVERITY).value());
+        assertEquals(0, logs.get(0).headers().lastWithName(GROUPING).value());
+        assertEquals(Schema.Type.INT32, logs.get(0).headers().lastWithName(GROUPING).schema().type());
+        assertNull(logs.get(0).headers().lastWithName(EVENT_ID));
+        assertEquals(2, logs.get(0).headers().size());
+    }
+
     @Test
     public void as_a_client_I_want_some_logs_and_handle_token_expiry() {
 
@@ -231,6 +549,46 @@ public class EventLogSourceTaskTest {
         then_the_logs_are_of_size(logs, 0);
     }
 
+    @Test
+    public void as_a_client_I_want_to_renew_a_token_the_logs_api_turns_down() {
+
+        given_the_mock_will_respond_to_auth();
+        and_given_the_mock_will_respond_to_auth_refresh();
+        given_the_mock_will_respond_to_log_as_expired_token();
+        TppLogSourceTask task = given_a_task_is_setup();
+
+        then_the_logs_are_of_size(when_the_task_is_polled(task), 0);
+        then_the_logs_are_of_size(when_the_task_is_polled(task), 0);
+        wireMockServer.verify(1, postRequestedFor(urlPathMatching(AUTHORIZE_API_REGEX_PATH)));
+        wireMockServer.verify(1, postRequestedFor(urlPathMatching(AUTHORIZE_REFRESH_API_REGEX_PATH)));
+        wireMockServer.verify(2, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)));
+    }
+
+    @Test
+    public void as_a_task_I_want_to_wait_as_long_as_the_api_asks_when_throttled() {
+
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log_as_throttled(30);
+        TppLogSourceTask task = given_a_task_is_setup();
+
+        then_the_logs_are_of_size(when_the_task_is_polled(task), 0);
+        then_the_logs_are_of_size(when_the_task_is_polled(task), 0);
+        wireMockServer.verify(1, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)));
+        task.stop();
+    }
+
+    @Test
+    public void as_a_client_I_want_no_logs_if_the_api_is_slower_than_the_read_timeout() {
+
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log_slowly(1000);
+        TppLogSourceTask task = given_a_task_is_setup_with_read_timeout(200);
+
+        List<SourceRecord> logs = when_the_task_is_polled(task);
+        then_the_logs_are_of_size(logs, 0);
+        task.stop();
+    }
+
     @Test
     public void as_a_client_I_want_to_paginate_logs() {
 
@@ -266,8 +624,162 @@ public class EventLogSourceTaskTest {
 
     }
 
+    @Test
+    public void as_a_task_I_want_no_more_of_a_page_decoded_than_the_poll_byte_budget() {
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log_from_each_event();
+        TppLogSourceTask task = given_a_task_is_setup_with_max_poll_bytes(1);
+
+        for (int second = 1; second <= 3; second++) {
+            List<SourceRecord> page = when_the_task_is_polled(task);
+            then_the_logs_are_of_size(page, 1);
+            then_the_number_of_logs_with_timestamp_is(1, page, getTodayPlus(second));
+            then_the_logs_will_have_an_expected_number_of_records_with_a_specific_apioffset(page, 1, 1L);
+        }
+        //Each request starts right after the one event decoded from the last.
+        wireMockServer.verify(3, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)));
+        wireMockServer.verify(1, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH))
+                .withQueryParam(FROM_TIME, equalTo(getStringOfTodayPlus(2)))
+                .withQueryParam(OFFSET, equalTo(String.valueOf(1))));
+    }
+
+    @Test
+    public void as_a_client_I_want_to_page_on_the_server_timestamp_the_log_is_ordered_by() {
+
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log_with_client_timestamps_out_of_order();
+        TppLogSourceTask task = given_a_task_is_setup();
+
+        List<SourceRecord> page_1_of_logs = when_the_task_is_polled(task);
+        then_the_logs_are_of_size(page_1_of_logs, 2);
+        then_the_number_of_logs_with_timestamp_is(2, page_1_of_logs, getTodayPlus(3));
+        then_the_logs_will_have_an_expected_number_of_records_with_a_specific_apioffset(page_1_of_logs, 1, 2L);
+
+        List<SourceRecord> page_2_of_logs = when_the_task_is_polled(task);
+        then_the_logs_are_of_size(page_2_of_logs, 1);
+        then_the_number_of_logs_with_timestamp_is(1, page_2_of_logs, getTodayPlus(4));
+        then_the_logs_will_have_an_expected_number_of_records_with_a_specific_apioffset(page_2_of_logs, 1, 1L);
+    }
+
+    @Test
+    public void as_a_backfill_task_I_want_to_read_my_windows_one_after_another() {
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log_for_backfill_windows();
+        TppLogSourceTask task = given_a_backfill_task_is_setup(null);
+
+        List<SourceRecord> window_1 = when_the_task_is_polled(task);
+        then_the_logs_are_of_size(window_1, 2);
+        then_the_logs_are_from_window(window_1, BACKFILL_WINDOW_1);
+
+        List<SourceRecord> window_2 = when_the_task_is_polled(task);
+        then_the_logs_are_of_size(window_2, 1);
+        then_the_logs_are_from_window(window_2, BACKFILL_WINDOW_2);
+
+        List<SourceRecord> finished = when_the_task_is_polled(task);
+        then_the_logs_are_of_size(finished, 0);
+        wireMockServer.verify(2, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)));
+    }
+
+    @Test
+    public void as_a_backfill_task_I_want_to_stop_where_the_live_tail_started() {
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log_for_backfill_windows();
+        SourceTaskContext mockSourceTaskContext = given_a_mock_source_context_with(new LogCursor(LogCursor.NONE, 0L, LogCursor.parseTime(BACKFILL_WINDOW_2)));
+        TppLogSourceTask task = given_a_backfill_task_is_setup(mockSourceTaskContext);
+
+        List<SourceRecord> window_1 = when_the_task_is_polled(task);
+        then_the_logs_are_of_size(window_1, 2);
+
+        List<SourceRecord> finished = when_the_task_is_polled(task);
+        then_the_logs_are_of_size(finished, 0);
+        wireMockServer.verify(1, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)));
+    }
+
+    @Test
+    public void as_a_restarted_connector_I_want_backfill_to_stop_where_the_tail_first_started() {
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log();
+        InMemoryOffsets offsets = new InMemoryOffsets();
+
+        //First started at the end of the first window, then restarted a day later.
+        TppLogSourceTask tail = given_a_tail_task_after_backfill_is_setup(BACKFILL_WINDOW_2, offsets);
+        offsets.commit(when_the_task_is_polled(tail));
+        tail.stop();
+        tail = given_a_tail_task_after_backfill_is_setup(BACKFILL_END, offsets);
+        List<SourceRecord> restarted = when_the_task_is_polled(tail);
+        tail.stop();
+        then_the_logs_are_of_size(restarted, 2);
+        assertEquals(LogCursor.parseTime(BACKFILL_WINDOW_2), restarted.get(1).sourceOffset().get(CURSOR_TAIL_FROM));
+        offsets.commit(restarted);
+
+        wireMockServer.resetAll();
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log_for_backfill_windows();
+        TppLogSourceTask backfill = given_a_backfill_task_is_setup(offsets);
+        then_the_logs_are_of_size(when_the_task_is_polled(backfill), 2);
+        then_the_logs_are_of_size(when_the_task_is_polled(backfill), 0);
+        wireMockServer.verify(1, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)));
+    }
+
+    @Test
+    public void as_a_task_I_want_to_read_several_endpoints_each_in_its_own_partition() {
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log();
+        WireMockServer otherServer = given_another_server_answering_like_the_mock();
+        try {
+            TppLogSourceTask task = given_a_task_is_setup_with_endpoints(otherServer.baseUrl(), null);
+
+            List<SourceRecord> first = when_the_task_is_polled(task);
+            then_the_logs_are_of_size(first, 2);
+            then_the_logs_are_from_url(first, wireMockServer.baseUrl());
+
+            List<SourceRecord> second = when_the_task_is_polled(task);
+            then_the_logs_are_of_size(second, 2);
+            then_the_logs_are_from_url(second, otherServer.baseUrl());
+            task.stop();
+            wireMockServer.verify(1, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)));
+            otherServer.verify(1, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)));
+        } finally {
+            otherServer.shutdown();
+        }
+    }
+
+    @Test
+    public void as_a_task_I_want_to_only_read_the_endpoints_handed_to_me() {
+        given_the_mock_will_respond_to_auth();
+        given_the_mock_will_respond_to_log();
+        WireMockServer otherServer = given_another_server_answering_like_the_mock();
+        try {
+            TppLogSourceTask task = given_a_task_is_setup_with_endpoints(otherServer.baseUrl(), "other");
+
+            List<SourceRecord> logs = when_the_task_is_polled(task);
+            then_the_logs_are_of_size(logs, 2);
+            then_the_logs_are_from_url(logs, otherServer.baseUrl());
+            task.stop();
+            wireMockServer.verify(0, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)));
+        } finally {
+            otherServer.shutdown();
+        }
+    }
+
+    private WireMockServer given_another_server_answering_like_the_mock() {
+        WireMockServer otherServer = new WireMockServer(new WireMockConfiguration().dynamicPort()
+                .extensions(new ResponseTemplateTransformer(false)));
+        otherServer.start();
+        wireMockServer.getStubMappings().forEach(otherServer::addStubMapping);
+        return otherServer;
+    }
+
+    private void then_the_logs_are_from_url(List<SourceRecord> logs, String url) {
+        logs.forEach(sourceRecord -> assertEquals(url, sourceRecord.sourcePartition().get(URL)));
+    }
+
+    private void then_the_logs_are_from_window(List<SourceRecord> logs, String window) {
+        logs.forEach(sourceRecord -> assertEquals(window, sourceRecord.sourcePartition().get(WINDOW)));
+    }
+
     private void then_the_logs_will_have_an_expected_number_of_records_with_a_specific_apioffset(List<SourceRecord> logs, int expectedNumberOfRecords, long specificApiOffset) {
-        assertEquals(expectedNumberOfRecords, logs.stream().filter(sourceRecord -> specificApiOffset == (Long) sourceRecord.sourceOffset().get(LAST_API_OFFSET)).count());
+        assertEquals(expectedNumberOfRecords, logs.stream().filter(sourceRecord -> specificApiOffset == (Long) sourceRecord.sourceOffset().get(CURSOR_TIES)).count());
     }
 
     @Test
@@ -292,18 +804,28 @@ public class EventLogSourceTaskTest {
         return task.poll();
     }
 
-    private SourceTaskContext given_a_mock_source_context_with(ZonedDateTime lastReadDate, Long lastApiOffset) {
-        Map<String, Object> config = new HashMap<>(2);
-        config.put(LAST_READ, lastReadDate.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
-        config.put(LAST_API_OFFSET, lastApiOffset);
+    private List<SourceRecord> when_the_task_is_polled_until_records_arrive(TppLogSourceTask task) {
+        List<SourceRecord> records = Collections.emptyList();
+        for (int attempt = 0; attempt < 10 && records.isEmpty(); attempt++) {
+            records = task.poll();
+        }
+        return records;
+    }
 
-        return given_a_mock_source_context_with(config);
+    private SourceTaskContext given_a_mock_source_context_with(ZonedDateTime lastReadDate, Long lastApiOffset) {
+        return given_a_mock_source_context_with(new LogCursor(TimestampParser.toEpochNanos(lastReadDate), lastApiOffset, LogCursor.NONE));
     }
 
     private SourceTaskContext given_a_mock_source_context_with(Map<String, Object> config) {
         SourceTaskContext mockSourceTaskContext = Mockito.mock(SourceTaskContext.class);
         OffsetStorageReader mockOffsetStorageReader = Mockito.mock(OffsetStorageReader.class);
-        Mockito.when(mockOffsetStorageReader.offset(Mockito.anyMap())).thenReturn(config);
+        //The offset of each tail, backfill windows start afresh.
+        Mockito.when(mockOffsetStorageReader.offsets(Mockito.anyCollection())).thenAnswer(invocation -> {
+            Collection<Map<String, Object>> partitions = invocation.getArgument(0);
+            Map<Map<String, Object>, Map<String, Object>> offsets = new HashMap<>();
+            partitions.stream().filter(partition -> !partition.containsKey(WINDOW)).forEach(partition -> offsets.put(partition, config));
+            return offsets;
+        });
         Mockito.when(mockSourceTaskContext.offsetStorageReader()).thenReturn(mockOffsetStorageReader);
         return mockSourceTaskContext;
     }
@@ -318,7 +840,25 @@ public class EventLogSourceTaskTest {
     }
 
     private long getCountOfLogsWithLastRead(ZonedDateTime date, List<SourceRecord> logs) {
-        return logs.stream().filter(sourceRecord -> date.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME).equals(sourceRecord.sourceOffset().get(LAST_READ))).count();
+        Long nanos = TimestampParser.toEpochNanos(date);
+        return logs.stream().filter(sourceRecord -> nanos.equals(sourceRecord.sourceOffset().get(CURSOR_TIME))).count();
+    }
+
+    private List<RecordedEvent> then_the_recorded_events_are(Recording recording) throws IOException {
+        Path file = Files.createTempFile("venafi", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private RecordedEvent then_the_only_recorded_event_is(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> named = new ArrayList<>();
+        events.stream().filter(event -> event.getEventType().getName().equals(name)).forEach(named::add);
+        assertEquals(1, named.size(), name);
+        return named.get(0);
     }
 
     private String when_a_token_is_got(TppLogSourceTask task) {
@@ -343,6 +883,184 @@ public class EventLogSourceTaskTest {
         return task;
     }
 
+    private TppLogSourceTask given_a_task_is_setup_with(Integer pollInterval, Integer batchSize) {
+        TppLogSourceTask task = new TppLogSourceTask();
+        Map<String, String> config = getTaskConfig();
+        config.put(POLL_INTERVAL, String.valueOf(pollInterval));
+        config.put(BATCH_SIZE, String.valueOf(batchSize));
+        task.start(config);
+        return task;
+    }
+
+    private TppLogSourceTask given_an_adaptive_task_is_setup_with(Integer minBatchSize, Integer maxBatchSize) {
+        TppLogSourceTask task = new TppLogSourceTask();
+        Map<String, String> config = getTaskConfig();
+        config.put(BATCH_ADAPTIVE_CONFIG, "true");
+        config.put(BATCH_SIZE_MIN_CONFIG, String.valueOf(minBatchSize));
+        config.put(BATCH_SIZE, String.valueOf(maxBatchSize));
+        task.start(config);
+        return task;
+    }
+
+    private TppLogSourceTask given_a_task_is_setup_with_output_format(String outputFormat) {
+        TppLogSourceTask task = new TppLogSourceTask();
+        Map<String, String> config = getTaskConfig();
+        config.put(OUTPUT_FORMAT_CONFIG, outputFormat);
+        task.start(config);
+        return task;
+    }
+
+    private TppLogSourceTask given_a_task_is_setup_with_max_poll_bytes(Integer maxPollBytes) {
+        TppLogSourceTask task = new TppLogSourceTask();
+        Map<String, String> config = getTaskConfig();
+        config.put(POLL_MAX_BYTES_CONFIG, String.valueOf(maxPollBytes));
+        task.start(config);
+        return task;
+    }
+
+    private TppLogSourceTask given_a_task_is_setup_with_key(String keyFields, Integer keyPartitions, String outputFormat) {
+        TppLogSourceTask task = new TppLogSourceTask();
+        Map<String, String> config = getTaskConfig();
+        config.put(KEY_FIELDS_CONFIG, keyFields);
+        config.put(KEY_PARTITIONS_CONFIG, String.valueOf(keyPartitions));
+        config.put(OUTPUT_FORMAT_CONFIG, outputFormat);
+        task.start(config);
+        return task;
+    }
+
+    private TppLogSourceTask given_a_task_is_setup_with_metadata(String recordTimestamp, String headers, String outputFormat) {
+        TppLogSourceTask task = new TppLogSourceTask();
+        Map<String, String> config = getTaskConfig();
+        config.put(RECORD_TIMESTAMP_CONFIG, recordTimestamp);
+        config.put(HEADERS_CONFIG, headers);
+        config.put(OUTPUT_FORMAT_CONFIG, outputFormat);
+        task.start(config);
+        return task;
+    }
+
+    private TppLogSourceTask given_a_task_is_setup_with_filters(String minSeverity, String components, String groupings, String eventIds, boolean pushDown, String outputFormat) {
+        TppLogSourceTask task = new TppLogSourceTask();
+        Map<String, String> config = getTaskConfig();
+        config.put(FILTER_MIN_SEVERITY_CONFIG, minSeverity);
+        config.put(FILTER_COMPONENTS_CONFIG, components);
+        config.put(FILTER_GROUPINGS_CONFIG, groupings);
+        config.put(FILTER_EVENT_IDS_CONFIG, eventIds);
+        config.put(FILTER_PUSHDOWN_CONFIG, String.valueOf(pushDown));
+        config.put(OUTPUT_FORMAT_CONFIG, outputFormat);
+        task.start(config);
+        return task;
+    }
+
+    private TppLogSourceTask given_a_task_is_setup_with_processors(String processors, String keyFields, String outputFormat) {
+        TppLogSourceTask task = new TppLogSourceTask();
+        Map<String, String> config = getTaskConfig();
+        config.put(PROCESSORS_CONFIG, processors);
+        config.put(MaskingProcessor.MASK_CONFIG, "masked");
+        config.put(KEY_FIELDS_CONFIG, keyFields);
+        config.put(OUTPUT_FORMAT_CONFIG, outputFormat);
+        task.start(config);
+        return task;
+    }
+
+    private TppLogSourceTask given_a_task_is_setup_with_endpoints(String otherUrl, String taskEndpoints) {
+        TppLogSourceTask task = new TppLogSourceTask();
+        Map<String, String> config = getTaskConfig();
+        config.put(ENDPOINTS_CONFIG, "other");
+        config.put(ENDPOINT_PREFIX + "other." + TppEndpoint.BASE_URL, otherUrl);
+        if (taskEndpoints != null) {
+            config.put(TASK_ENDPOINTS, taskEndpoints);
+        }
+        task.start(config);
+        return task;
+    }
+
+    private TppLogSourceTask given_a_task_is_setup_with_read_timeout(Integer readTimeoutMs) {
+        TppLogSourceTask task = new TppLogSourceTask();
+        Map<String, String> config = getTaskConfig();
+        config.put(HTTP_READ_TIMEOUT_CONFIG, String.valueOf(readTimeoutMs));
+        task.start(config);
+        return task;
+    }
+
+    private TppLogSourceTask given_a_prefetching_task_is_setup_with(Integer pollInterval, Integer batchSize) {
+        TppLogSourceTask task = new TppLogSourceTask();
+        Map<String, String> config = getTaskConfig();
+        config.put(POLL_INTERVAL, String.valueOf(pollInterval));
+        config.put(BATCH_SIZE, String.valueOf(batchSize));
+        config.put(PREFETCH_PAGES_CONFIG, "1");
+        task.start(config);
+        return task;
+    }
+
+    private TppLogSourceTask given_an_async_task_is_setup_with(Integer pollInterval, Integer batchSize) {
+        TppLogSourceTask task = new TppLogSourceTask();
+        Map<String, String> config = getTaskConfig();
+        config.put(POLL_INTERVAL, String.valueOf(pollInterval));
+        config.put(BATCH_SIZE, String.valueOf(batchSize));
+        config.put(FETCH_ASYNC_CONFIG, "true");
+        task.start(config);
+        return task;
+    }
+
+    private TppLogSourceTask given_an_async_backfill_task_is_setup_with(Integer pollInterval) {
+        TppLogSourceTask task = new TppLogSourceTask();
+        Map<String, String> config = getTaskConfig();
+        config.put(POLL_INTERVAL, String.valueOf(pollInterval));
+        config.put(BACKFILL_ENABLED_CONFIG, "true");
+        config.put(BACKFILL_FROM_CONFIG, BACKFILL_WINDOW_1);
+        config.put(BACKFILL_UNTIL_CONFIG, BACKFILL_END);
+        config.put(BACKFILL_WINDOW_HOURS_CONFIG, "24");
+        config.put(BACKFILL_TASK_INDEX, "0");
+        config.put(BACKFILL_TASK_COUNT, "1");
+        config.put(FETCH_ASYNC_CONFIG, "true");
+        task.start(config);
+        return task;
+    }
+
+    private TppLogSourceTask given_an_async_backfill_task_is_setup_with_endpoint(String otherUrl) {
+        TppLogSourceTask task = new TppLogSourceTask();
+        Map<String, String> config = getTaskConfig();
+        config.put(BACKFILL_ENABLED_CONFIG, "true");
+        config.put(BACKFILL_FROM_CONFIG, BACKFILL_WINDOW_1);
+        config.put(BACKFILL_UNTIL_CONFIG, BACKFILL_END);
+        config.put(BACKFILL_WINDOW_HOURS_CONFIG, "24");
+        config.put(BACKFILL_TASK_INDEX, "0");
+        config.put(BACKFILL_TASK_COUNT, "1");
+        config.put(ENDPOINTS_CONFIG, "other");
+        config.put(ENDPOINT_PREFIX + "other." + TppEndpoint.BASE_URL, otherUrl);
+        config.put(FETCH_ASYNC_CONFIG, "true");
+        config.put(PREFETCH_PAGES_CONFIG, "2");
+        task.start(config);
+        return task;
+    }
+
+    private TppLogSourceTask given_a_tail_task_after_backfill_is_setup(String until, SourceTaskContext context) {
+        TppLogSourceTask task = new TppLogSourceTask();
+        Map<String, String> config = getTaskConfig();
+        config.put(BACKFILL_ENABLED_CONFIG, "true");
+        config.put(BACKFILL_FROM_CONFIG, BACKFILL_WINDOW_1);
+        config.put(BACKFILL_UNTIL_CONFIG, until);
+        task.initialize(context);
+        task.start(config);
+        return task;
+    }
+
+    private TppLogSourceTask given_a_backfill_task_is_setup(SourceTaskContext context) {
+        TppLogSourceTask task = new TppLogSourceTask();
+        Map<String, String> config = getTaskConfig();
+        config.put(BACKFILL_ENABLED_CONFIG, "true");
+        config.put(BACKFILL_FROM_CONFIG, BACKFILL_WINDOW_1);
+        config.put(BACKFILL_UNTIL_CONFIG, BACKFILL_END);
+        config.put(BACKFILL_WINDOW_HOURS_CONFIG, "24");
+        config.put(BACKFILL_TASK_INDEX, "0");
+        config.put(BACKFILL_TASK_COUNT, "1");
+        if (context != null) {
+            task.initialize(context);
+        }
+        task.start(config);
+        return task;
+    }
+
     private TppLogSourceTask given_a_task_is_setup() {
         return given_a_task_is_setup(null);
     }
@@ -430,6 +1148,30 @@ public class EventLogSourceTaskTest {
                 ));
     }
 
+    private void given_the_mock_will_respond_to_log_with_severities(String... severities) {
+        StringJoiner events = new StringJoiner(",");
+        for (int i = 0; i < severities.length; i++) {
+            events.add(createLogEventBody(getTodayPlus(i + 1)).replace("\"Severity\": \"Info\"", "\"Severity\": \"" + severities[i] + "\""));
+        }
+        wireMockServer.stubFor(get(urlPathMatching(LOG_API_REGEX_PATH))
+                .willReturn(okJson("{\n" +
+                        "    \"LogEvents\": [\n" +
+                        events +
+                        "    ]\n" +
+                        "}")
+                ));
+    }
+
+    private void given_the_mock_will_respond_to_log_slowly(int delayMs) {
+        wireMockServer.stubFor(get(urlPathMatching(LOG_API_REGEX_PATH))
+                .willReturn(okJson("{\n" +
+                        "    \"LogEvents\": [\n" +
+                        createLogEventBody(getTodayPlus(1)) +
+                        "    ]\n" +
+                        "}").withFixedDelay(delayMs)
+                ));
+    }
+
     private void given_the_mock_will_respond_to_log_as_expired_token() {
         wireMockServer.stubFor(get(urlPathMatching(LOG_API_REGEX_PATH))
                 .willReturn(aResponse()
@@ -440,6 +1182,13 @@ public class EventLogSourceTaskTest {
         );
     }
 
+    private void given_the_mock_will_respond_to_log_as_throttled(int retryAfterSeconds) {
+        wireMockServer.stubFor(get(urlPathMatching(LOG_API_REGEX_PATH))
+                .willReturn(aResponse()
+                        .withStatus(429)
+                        .withHeader("Retry-After", String.valueOf(retryAfterSeconds))));
+    }
+
     private void given_the_mock_will_respond_to_log_for_windowing() {
 
 
@@ -493,6 +1242,99 @@ public class EventLogSourceTaskTest {
 
     }
 
+    private void given_the_mock_will_respond_to_log_from_each_event() {
+        wireMockServer.stubFor(get(urlPathMatching(LOG_API_REGEX_PATH))
+                .withQueryParam(FROM_TIME, equalTo(DEFAULT_FROM_TIME))
+                .willReturn(okJson("{\n" +
+                        "    \"LogEvents\": [\n" +
+                        createLogEventBody(getTodayPlus(1)) + "," +
+                        createLogEventBody(getTodayPlus(2)) + "," +
+                        createLogEventBody(getTodayPlus(3)) +
+                        "    ]\n" +
+                        "}")
+                ));
+        for (int second = 1; second <= 2; second++) {
+            StringJoiner events = new StringJoiner(",");
+            for (int next = second + 1; next <= 3; next++) {
+                events.add(createLogEventBody(getTodayPlus(next)));
+            }
+            wireMockServer.stubFor(get(urlPathMatching(LOG_API_REGEX_PATH))
+                    .withQueryParam(FROM_TIME, equalTo(getStringOfTodayPlus(second)))
+                    .withQueryParam(OFFSET, equalTo(String.valueOf(1)))
+                    .willReturn(okJson("{\n" +
+                            "    \"LogEvents\": [\n" +
+                            events +
+                            "    ]\n" +
+                            "}")
+                    ));
+        }
+    }
+
+    private void given_the_mock_will_respond_to_log_for_catching_up() {
+        wireMockServer.stubFor(get(urlPathMatching(LOG_API_REGEX_PATH))
+                .withQueryParam(FROM_TIME, equalTo(DEFAULT_FROM_TIME))
+                .willReturn(okJson("{\n" +
+                        "    \"LogEvents\": [\n" +
+                        createLogEventBody(getTodayPlus(1)) + "," +
+                        createLogEventBody(getTodayPlus(2)) +
+                        "    ]\n" +
+                        "}")
+                ));
+        wireMockServer.stubFor(get(urlPathMatching(LOG_API_REGEX_PATH))
+                .withQueryParam(FROM_TIME, equalTo(getStringOfTodayPlus(2)))
+                .withQueryParam(OFFSET, equalTo(String.valueOf(1)))
+                .willReturn(okJson("{\n" +
+                        "    \"LogEvents\": [\n" +
+                        createLogEventBody(getTodayPlus(3)) +
+                        "    ]\n" +
+                        "}")
+                ));
+    }
+
+    private void given_the_mock_will_respond_to_log_with_client_timestamps_out_of_order() {
+        wireMockServer.stubFor(get(urlPathMatching(LOG_API_REGEX_PATH))
+                .withQueryParam(FROM_TIME, equalTo(DEFAULT_FROM_TIME))
+                .willReturn(okJson("{\n" +
+                        "    \"LogEvents\": [\n" +
+                        createLogEventBody(getTodayPlus(2), getTodayPlus(3)) + "," +
+                        createLogEventBody(getTodayPlus(1), getTodayPlus(3)) +
+                        "    ]\n" +
+                        "}")
+                ));
+        wireMockServer.stubFor(get(urlPathMatching(LOG_API_REGEX_PATH))
+                .withQueryParam(FROM_TIME, equalTo(getStringOfTodayPlus(3)))
+                .withQueryParam(OFFSET, equalTo(String.valueOf(2)))
+                .willReturn(okJson("{\n" +
+                        "    \"LogEvents\": [\n" +
+                        createLogEventBody(getTodayPlus(0), getTodayPlus(4)) +
+                        "    ]\n" +
+                        "}")
+                ));
+    }
+
+    private void given_the_mock_will_respond_to_log_for_backfill_windows() {
+        wireMockServer.stubFor(get(urlPathMatching(LOG_API_REGEX_PATH))
+                .withQueryParam(FROM_TIME, equalTo(BACKFILL_WINDOW_1))
+                .withQueryParam(TO_TIME, equalTo(BACKFILL_WINDOW_2))
+                .willReturn(okJson("{\n" +
+                        "    \"LogEvents\": [\n" +
+                        createLogEventBody(ZonedDateTime.parse(BACKFILL_WINDOW_1).plusHours(1)) + "," +
+                        createLogEventBody(ZonedDateTime.parse(BACKFILL_WINDOW_1).plusHours(2)) +
+                        "    ]\n" +
+                        "}")
+                ));
+        wireMockServer.stubFor(get(urlPathMatching(LOG_API_REGEX_PATH))
+                .withQueryParam(FROM_TIME, equalTo(BACKFILL_WINDOW_2))
+                .withQueryParam(TO_TIME, equalTo(BACKFILL_END))
+                .willReturn(okJson("{\n" +
+                        "    \"LogEvents\": [\n" +
+                        createLogEventBody(ZonedDateTime.parse(BACKFILL_WINDOW_2).plusHours(1)) + "," +
+                        createLogEventBody(ZonedDateTime.parse(BACKFILL_END)) +
+                        "    ]\n" +
+                        "}")
+                ));
+    }
+
     private void given_the_mock_will_respond_to_log_for_offsetsStorage() {
 
         wireMockServer.stubFor(get(urlPathMatching(LOG_API_REGEX_PATH))
@@ -541,4 +1383,52 @@ public class EventLogSourceTaskTest {
                 ));
     }
 
+
+    public static class MaskingProcessor implements EventProcessor {
+        static final String MASK_CONFIG = "venafi.processor.mask.with";
+        private String mask;
+
+        @Override
+        public void configure(Map<String, ?> configs) {
+            mask = (String) configs.get(MASK_CONFIG);
+        }
+
+        @Override
+        public void process(DecodedEvent event, List<DecodedEvent> out) {
+            if ("Debug".equals(event.get(SEVERITY))) {
+                return;
+            }
+            out.add(event.put(SOURCE_IP, mask));
+        }
+    }
+
+    public static class DuplicatingProcessor implements EventProcessor {
+        @Override
+        public void configure(Map<String, ?> configs) {
+        }
+
+        @Override
+        public void process(DecodedEvent event, List<DecodedEvent> out) {
+            out.add(event);
+            out.add(event);
+        }
+    }
+
+    public static class DebugDroppingProcessor implements EventProcessor {
+        @Override
+        public void configure(Map<String, ?> configs) {
+        }
+
+        @Override
+        public Collection<String> getFields() {
+            return Collections.singletonList(SEVERITY);
+        }
+
+        @Override
+        public void process(DecodedEvent event, List<DecodedEvent> out) {
+            if (!"Debug".equals(event.get(SEVERITY))) {
+                out.add(event);
+            }
+        }
+    }
 }
@@ -0,0 +1,65 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.Deserializer.TimestampParser;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.opencredo.connect.venafi.tpp.log.TppLogSourceTask.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogCursorTest {
+
+    private static final String SERVER_TIMESTAMP = "2019-10-17T15:23:06.1234567+01:00";
+    private static final long SERVER_TIME_NANOS = TimestampParser.toEpochNanos(ZonedDateTime.parse(SERVER_TIMESTAMP));
+
+    @Test
+    void as_a_cursor_I_want_to_read_back_what_the_offset_store_kept_of_me() {
+        LogCursor cursor = new LogCursor(SERVER_TIME_NANOS, 3L, LogCursor.NONE);
+
+        //The offset store hands back a plain map, with small numbers narrowed to Integer.
+        Map<String, Object> stored = new HashMap<>(cursor);
+        stored.put(CURSOR_TIES, 3);
+        LogCursor restored = LogCursor.parse(stored);
+
+        assertEquals(3, cursor.size());
+        assertEquals(cursor, restored);
+        assertEquals(SERVER_TIME_NANOS, restored.getServerTimeNanos());
+        assertEquals(3L, restored.getTieCount());
+        assertEquals(LogCursor.NONE, restored.getTailFromNanos());
+        assertFalse(cursor.containsKey(CURSOR_TAIL_FROM));
+    }
+
+    @Test
+    void as_a_cursor_I_want_to_read_offsets_written_before_I_was_versioned() {
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put(LAST_READ, SERVER_TIMESTAMP);
+        legacy.put(LAST_API_OFFSET, 2L);
+
+        LogCursor cursor = LogCursor.parse(legacy);
+
+        assertEquals(SERVER_TIME_NANOS, cursor.getServerTimeNanos());
+        assertEquals(2L, cursor.getTieCount());
+        assertEquals(LogCursor.NONE, cursor.getTailFromNanos());
+        assertEquals(LogCursor.VERSION, cursor.get(CURSOR_VERSION));
+    }
+
+    @Test
+    void as_a_cursor_I_want_nothing_to_restore_without_an_offset() {
+        assertNull(LogCursor.parse(null));
+        assertNull(LogCursor.parse(new HashMap<>()));
+    }
+
+    @Test
+    void as_a_window_I_want_to_request_from_the_cursor_in_utc() {
+        LogWindow window = LogWindow.tail("https://tpp", DEFAULT_FROM_TIME);
+        assertEquals(DEFAULT_FROM_TIME, window.getFromDate());
+
+        window.restore(new LogCursor(SERVER_TIME_NANOS, 1L, LogCursor.NONE));
+
+        assertEquals("2019-10-17T14:23:06.1234567Z", window.getFromDate());
+        assertEquals(1L, window.getApiOffset());
+    }
+}
@@ -0,0 +1,68 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PollSchedulerTest {
+
+    public static final long LONG_INTERVAL_MS = 60_000L;
+    public static final long SHORT_BLOCK_MS = 50L;
+
+    @Test
+    void as_a_scheduler_I_want_the_first_fetch_to_be_due_straight_away() throws InterruptedException {
+        PollScheduler scheduler = given_a_scheduler_with(LONG_INTERVAL_MS);
+        assertTrue(scheduler.awaitNextFetch());
+    }
+
+    @Test
+    void as_a_scheduler_I_want_to_block_until_the_interval_has_passed() throws InterruptedException {
+        PollScheduler scheduler = given_a_scheduler_with(LONG_INTERVAL_MS);
+        when_a_fetch_is_done(scheduler, false);
+
+        long start = System.nanoTime();
+        assertFalse(scheduler.awaitNextFetch());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= SHORT_BLOCK_MS);
+        assertTrue(scheduler.getIdleNanos() > 0);
+    }
+
+    @Test
+    void as_a_scheduler_I_want_to_fetch_straight_away_while_more_is_available() throws InterruptedException {
+        PollScheduler scheduler = given_a_scheduler_with(LONG_INTERVAL_MS);
+        when_a_fetch_is_done(scheduler, true);
+        assertTrue(scheduler.awaitNextFetch());
+    }
+
+    @Test
+    void as_a_scheduler_I_want_stop_to_wake_up_a_waiting_poll() throws InterruptedException {
+        PollScheduler scheduler = new PollScheduler(LONG_INTERVAL_MS, LONG_INTERVAL_MS);
+        when_a_fetch_is_done(scheduler, false);
+        new Thread(scheduler::stop).start();
+
+        long start = System.nanoTime();
+        assertFalse(scheduler.awaitNextFetch());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < LONG_INTERVAL_MS);
+        assertTrue(scheduler.isStopped());
+    }
+
+    @Test
+    void as_a_scheduler_I_want_an_idle_ratio_between_zero_and_one() throws InterruptedException {
+        PollScheduler scheduler = given_a_scheduler_with(LONG_INTERVAL_MS);
+        assertEquals(0d, scheduler.getIdleRatio());
+        when_a_fetch_is_done(scheduler, false);
+        scheduler.awaitNextFetch();
+        assertTrue(scheduler.getIdleRatio() > 0d);
+        assertTrue(scheduler.getIdleRatio() <= 1d);
+    }
+
+    private PollScheduler given_a_scheduler_with(long intervalMs) {
+        return new PollScheduler(intervalMs, SHORT_BLOCK_MS);
+    }
+
+    private void when_a_fetch_is_done(PollScheduler scheduler, boolean moreAvailable) throws InterruptedException {
+        assertTrue(scheduler.awaitNextFetch());
+        scheduler.fetched(moreAvailable);
+    }
+}
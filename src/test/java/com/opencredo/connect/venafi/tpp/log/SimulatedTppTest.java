@@ -0,0 +1,102 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.simulator.InMemoryOffsets;
+import com.opencredo.connect.venafi.tpp.log.simulator.SyntheticEventStream;
+import com.opencredo.connect.venafi.tpp.log.simulator.TppSimulator;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.opencredo.connect.venafi.tpp.log.TppLogSourceConfig.*;
+import static com.opencredo.connect.venafi.tpp.log.model.EventLog.ID;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulatedTppTest {
+
+    private static final int EVENTS = 1000;
+    private static final int EVENTS_PER_TIMESTAMP = 7;
+    private static final int MAX_POLLS = 1000;
+
+    private TppSimulator simulator;
+
+    @AfterEach
+    void shutdown() {
+        if (simulator != null) {
+            simulator.close();
+        }
+    }
+
+    @Test
+    void as_a_task_I_want_to_read_every_event_once_across_pages_splitting_a_timestamp() throws IOException {
+        given_a_simulator_with_a_backlog_of(EVENTS);
+        TppLogSourceTask task = given_a_task_is_started_with(new InMemoryOffsets(), "100");
+
+        List<Long> ids = when_the_task_is_polled_until(task, new InMemoryOffsets(), EVENTS);
+        task.stop();
+
+        then_the_ids_are_read_once_in_order(ids, 1L, EVENTS);
+    }
+
+    @Test
+    void as_a_task_I_want_to_carry_on_from_my_offsets_after_a_restart() throws IOException {
+        given_a_simulator_with_a_backlog_of(EVENTS);
+        InMemoryOffsets offsets = new InMemoryOffsets();
+        TppLogSourceTask task = given_a_task_is_started_with(offsets, "64");
+        List<Long> ids = when_the_task_is_polled_until(task, offsets, EVENTS / 3);
+        task.stop();
+
+        TppLogSourceTask restarted = given_a_task_is_started_with(offsets, "64");
+        ids.addAll(when_the_task_is_polled_until(restarted, offsets, EVENTS - ids.size()));
+        restarted.stop();
+
+        then_the_ids_are_read_once_in_order(ids, 1L, EVENTS);
+        assertEquals(2, simulator.getAuthorizeRequests());
+    }
+
+    private void given_a_simulator_with_a_backlog_of(int events) throws IOException {
+        simulator = new TppSimulator(SyntheticEventStream.backlog(events, EVENTS_PER_TIMESTAMP, 0)).start();
+    }
+
+    private TppLogSourceTask given_a_task_is_started_with(InMemoryOffsets offsets, String batchSize) {
+        Map<String, String> config = new HashMap<>();
+        config.put(BASE_URL_CONFIG, simulator.getBaseUrl());
+        config.put(USERNAME_CONFIG, "placeholder_username");
+        config.put(PASSWORD_CONFIG, "placeholder_password");
+        config.put(SCOPE_CONFIG, "any");
+        config.put(CLIENT_ID_CONFIG, "venafi-kafka-connect-logs-test");
+        config.put(POLL_INTERVAL, "0");
+        config.put(BATCH_SIZE, batchSize);
+        TppLogSourceTask task = new TppLogSourceTask();
+        task.initialize(offsets);
+        task.start(new TppLogSourceConfig(config).returnPropertiesWithDefaultsValuesIfMissing());
+        return task;
+    }
+
+    private List<Long> when_the_task_is_polled_until(TppLogSourceTask task, InMemoryOffsets offsets, int events) {
+        List<Long> ids = new ArrayList<>();
+        for (int poll = 0; poll < MAX_POLLS && ids.size() < events; poll++) {
+            List<SourceRecord> records = task.poll();
+            //Commit only up to the count asked for, as if the worker stopped the task there.
+            if (ids.size() + records.size() > events) {
+                records = records.subList(0, events - ids.size());
+            }
+            records.forEach(record -> ids.add(((Struct) record.value()).getInt64(ID)));
+            offsets.commit(records);
+        }
+        return ids;
+    }
+
+    private void then_the_ids_are_read_once_in_order(List<Long> ids, long firstId, int count) {
+        assertEquals(count, ids.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(firstId + i, (long) ids.get(i));
+        }
+    }
+}
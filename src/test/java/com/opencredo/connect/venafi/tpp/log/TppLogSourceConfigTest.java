@@ -47,6 +47,42 @@ class TppLogSourceConfigTest {
         return props;
     }
 
+    @Test
+    void as_a_config_I_should_only_accept_known_key_fields() {
+        Map<String, Object> props = given_a_minimum_list_of_properties();
+        props.put(KEY_FIELDS_CONFIG, "Component, Grouping");
+        then_I_expect_no_config_exception_when_run_this(given_a_config_with(props));
+
+        props.put(KEY_FIELDS_CONFIG, "Component,Severity");
+        then_I_expect_a_config_exception_when_I_run_this(given_a_config_with(props));
+    }
+
+    @Test
+    void as_a_config_I_should_only_accept_known_severities_and_integer_groupings() {
+        Map<String, Object> props = given_a_minimum_list_of_properties();
+        props.put(FILTER_MIN_SEVERITY_CONFIG, "warning");
+        props.put(FILTER_GROUPINGS_CONFIG, "0, 42");
+        then_I_expect_no_config_exception_when_run_this(given_a_config_with(props));
+
+        props.put(FILTER_MIN_SEVERITY_CONFIG, "Loud");
+        then_I_expect_a_config_exception_when_I_run_this(given_a_config_with(props));
+        props.put(FILTER_MIN_SEVERITY_CONFIG, "");
+        props.put(FILTER_GROUPINGS_CONFIG, "0,x");
+        then_I_expect_a_config_exception_when_I_run_this(given_a_config_with(props));
+    }
+
+    @Test
+    void as_a_config_I_should_only_accept_event_processor_classes() {
+        Map<String, Object> props = given_a_minimum_list_of_properties();
+        props.put(PROCESSORS_CONFIG, EventLogSourceTaskTest.DuplicatingProcessor.class.getName());
+        then_I_expect_no_config_exception_when_run_this(given_a_config_with(props));
+
+        props.put(PROCESSORS_CONFIG, String.class.getName());
+        then_I_expect_a_config_exception_when_I_run_this(given_a_config_with(props));
+        props.put(PROCESSORS_CONFIG, "com.example.Missing");
+        then_I_expect_a_config_exception_when_I_run_this(given_a_config_with(props));
+    }
+
     @Test
     void as_a_config_I_should_throw_a_config_exception_if_base_URL_is_not_set() {
         Map<String, Object> props = given_a_minimum_list_of_properties();
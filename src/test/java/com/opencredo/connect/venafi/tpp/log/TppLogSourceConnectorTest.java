@@ -4,6 +4,7 @@ import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
 import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.connect.connector.ConnectorContext;
 import org.apache.kafka.connect.connector.Task;
 import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.source.SourceRecord;
@@ -12,11 +13,17 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
+import org.mockito.Mockito;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -79,6 +86,99 @@ class TppLogSourceConnectorTest {
         assertEquals(taskProperties.size(), 1);
     }
 
+    @Test
+    void as_a_connector_I_should_split_backfill_across_all_but_one_task() {
+        TppLogSourceConnector source = given_a_source();
+        when_the_source_is_started_with_backfill_enabled(source);
+        List<Map<String, String>> taskProperties = then_I_can_get_the_task_properties(4, source);
+        assertEquals(4, taskProperties.size());
+        assertFalse(taskProperties.get(FIRST_VALUE_IN_LIST).containsKey(TppLogSourceConfig.BACKFILL_TASK_INDEX));
+        for (int i = 1; i < taskProperties.size(); i++) {
+            assertEquals(String.valueOf(i - 1), taskProperties.get(i).get(TppLogSourceConfig.BACKFILL_TASK_INDEX));
+            assertEquals("3", taskProperties.get(i).get(TppLogSourceConfig.BACKFILL_TASK_COUNT));
+        }
+        String until = taskProperties.get(FIRST_VALUE_IN_LIST).get(TppLogSourceConfig.BACKFILL_UNTIL_CONFIG);
+        assertNotEquals("", until);
+        taskProperties.forEach(config -> assertEquals(until, config.get(TppLogSourceConfig.BACKFILL_UNTIL_CONFIG)));
+    }
+
+    @Test
+    void as_a_connector_I_should_fall_back_to_a_single_task_if_backfill_has_only_one() {
+        TppLogSourceConnector source = given_a_source();
+        when_the_source_is_started_with_backfill_enabled(source);
+        List<Map<String, String>> taskProperties = then_I_can_get_the_task_properties(ONE_MAX_TASK, source);
+        assertEquals(1, taskProperties.size());
+        assertEquals("false", taskProperties.get(FIRST_VALUE_IN_LIST).get(TppLogSourceConfig.BACKFILL_ENABLED_CONFIG));
+    }
+
+    @Test
+    void as_a_connector_I_should_share_endpoints_out_between_tasks() {
+        TppLogSourceConnector source = given_a_source();
+        when_the_source_is_started_with_endpoints(source, "east,west");
+        List<Map<String, String>> taskProperties = then_I_can_get_the_task_properties(2, source);
+        assertEquals(2, taskProperties.size());
+        assertEquals("default,west", taskProperties.get(0).get(TppLogSourceConfig.TASK_ENDPOINTS));
+        assertEquals("east", taskProperties.get(1).get(TppLogSourceConfig.TASK_ENDPOINTS));
+
+        Map<String, String> east = taskProperties.get(1);
+        assertEquals("https://east.example.com", east.get(TppLogSourceConfig.ENDPOINT_PREFIX + "east." + TppEndpoint.BASE_URL));
+        assertEquals("east_username", east.get(TppLogSourceConfig.ENDPOINT_PREFIX + "east." + TppEndpoint.USERNAME));
+        assertEquals("placeholder_password", east.get(TppLogSourceConfig.ENDPOINT_PREFIX + "east." + TppEndpoint.PASSWORD));
+    }
+
+    @Test
+    void as_a_connector_I_should_tail_endpoints_in_half_the_tasks_at_most_with_backfill() {
+        TppLogSourceConnector source = given_a_source();
+        Map<String, String> props = given_properties_with_endpoints("east,west");
+        props.put(TppLogSourceConfig.BACKFILL_ENABLED_CONFIG, "true");
+        when_the_source_is_started_with_properties(source, props);
+        List<Map<String, String>> taskProperties = then_I_can_get_the_task_properties(5, source);
+        assertEquals(5, taskProperties.size());
+        assertEquals("default,west", taskProperties.get(0).get(TppLogSourceConfig.TASK_ENDPOINTS));
+        assertEquals("east", taskProperties.get(1).get(TppLogSourceConfig.TASK_ENDPOINTS));
+        for (int i = 2; i < taskProperties.size(); i++) {
+            assertEquals(String.valueOf(i - 2), taskProperties.get(i).get(TppLogSourceConfig.BACKFILL_TASK_INDEX));
+            assertEquals("3", taskProperties.get(i).get(TppLogSourceConfig.BACKFILL_TASK_COUNT));
+            assertFalse(taskProperties.get(i).containsKey(TppLogSourceConfig.TASK_ENDPOINTS));
+        }
+    }
+
+    @Test
+    void as_a_connector_I_should_refuse_two_endpoints_with_one_url() {
+        TppLogSourceConnector source = given_a_source();
+        Map<String, String> props = given_properties_with_endpoints("east");
+        props.put(TppLogSourceConfig.ENDPOINT_PREFIX + "east." + TppEndpoint.BASE_URL, wireMockServer.baseUrl());
+        then_I_expect_a_(ConnectException.class, () -> when_the_source_is_started_with_properties(source, props));
+    }
+
+    @Test
+    void as_a_connector_I_should_reconfigure_tasks_when_the_endpoints_file_changes() throws IOException {
+        Path endpointsFile = Files.createTempFile("venafi-endpoints", ".properties");
+        try {
+            Files.write(endpointsFile, Collections.singletonList(TppLogSourceConfig.ENDPOINTS_CONFIG + "="));
+            TppLogSourceConnector source = given_a_source();
+            ConnectorContext context = Mockito.mock(ConnectorContext.class);
+            source.initialize(context);
+            Map<String, String> props = given_properties_with_endpoints("");
+            props.put(TppLogSourceConfig.ENDPOINTS_FILE_CONFIG, endpointsFile.toString());
+            when_the_source_is_started_with_properties(source, props);
+            assertEquals(1, then_I_can_get_the_task_properties(TEN_MAX_TASKS, source).size());
+
+            source.checkEndpointsFile(endpointsFile.toString());
+            Mockito.verify(context, Mockito.never()).requestTaskReconfiguration();
+
+            Files.write(endpointsFile, Arrays.asList(
+                    TppLogSourceConfig.ENDPOINTS_CONFIG + "=east",
+                    TppLogSourceConfig.ENDPOINT_PREFIX + "east." + TppEndpoint.BASE_URL + "=https://east.example.com"));
+            source.checkEndpointsFile(endpointsFile.toString());
+            Mockito.verify(context).requestTaskReconfiguration();
+            assertEquals(2, then_I_can_get_the_task_properties(TEN_MAX_TASKS, source).size());
+            source.stop();
+        } finally {
+            Files.delete(endpointsFile);
+        }
+    }
+
     @Test
     void as_a_connector_I_should_throw_config_exception_if_provided_invalid_config() {
         TppLogSourceConnector source = given_a_source();
@@ -138,6 +238,35 @@ class TppLogSourceConnectorTest {
         when_the_source_is_started_with_properties(source, props);
     }
 
+    private void when_the_source_is_started_with_backfill_enabled(TppLogSourceConnector source) {
+        Map<String, String> props = new HashMap<>();
+        props.put(TppLogSourceConfig.BASE_URL_CONFIG, wireMockServer.baseUrl());
+        props.put(TppLogSourceConfig.USERNAME_CONFIG, "placeholder_username");
+        props.put(TppLogSourceConfig.PASSWORD_CONFIG, "placeholder_password");
+        props.put(TppLogSourceConfig.CLIENT_ID_CONFIG, "venafi-kafka-connect-logs-test");
+        props.put(TppLogSourceConfig.SCOPE_CONFIG, "any");
+        props.put(TppLogSourceConfig.BACKFILL_ENABLED_CONFIG, "true");
+        when_the_source_is_started_with_properties(source, props);
+    }
+
+    private void when_the_source_is_started_with_endpoints(TppLogSourceConnector source, String endpoints) {
+        when_the_source_is_started_with_properties(source, given_properties_with_endpoints(endpoints));
+    }
+
+    private Map<String, String> given_properties_with_endpoints(String endpoints) {
+        Map<String, String> props = new HashMap<>();
+        props.put(TppLogSourceConfig.BASE_URL_CONFIG, wireMockServer.baseUrl());
+        props.put(TppLogSourceConfig.USERNAME_CONFIG, "placeholder_username");
+        props.put(TppLogSourceConfig.PASSWORD_CONFIG, "placeholder_password");
+        props.put(TppLogSourceConfig.CLIENT_ID_CONFIG, "venafi-kafka-connect-logs-test");
+        props.put(TppLogSourceConfig.SCOPE_CONFIG, "any");
+        props.put(TppLogSourceConfig.ENDPOINTS_CONFIG, endpoints);
+        props.put(TppLogSourceConfig.ENDPOINT_PREFIX + "east." + TppEndpoint.BASE_URL, "https://east.example.com");
+        props.put(TppLogSourceConfig.ENDPOINT_PREFIX + "east." + TppEndpoint.USERNAME, "east_username");
+        props.put(TppLogSourceConfig.ENDPOINT_PREFIX + "west." + TppEndpoint.BASE_URL, "https://west.example.com");
+        return props;
+    }
+
     private void when_the_source_is_started_with_properties(TppLogSourceConnector connector, Map<String, String> props) {
         connector.start(props);
     }
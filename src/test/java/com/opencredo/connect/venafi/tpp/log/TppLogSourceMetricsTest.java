@@ -0,0 +1,65 @@
+package com.opencredo.connect.venafi.tpp.log;
+
+import com.opencredo.connect.venafi.tpp.log.Deserializer.TimestampParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TppLogSourceMetricsTest {
+
+    private static final String URL = "https://tpp.example.com:443";
+    private static final MBeanServer MBEAN_SERVER = ManagementFactory.getPlatformMBeanServer();
+
+    private TppLogSourceMetrics metrics;
+
+    @AfterEach
+    void shutdown() {
+        if (metrics != null) {
+            metrics.close();
+        }
+    }
+
+    @Test
+    void as_a_task_I_want_my_metrics_registered_per_connector_url_and_task() throws Exception {
+        metrics = new TppLogSourceMetrics("venafi", URL, "tail", 1000);
+
+        assertTrue(MBEAN_SERVER.isRegistered(given_the_task_mbean("venafi", "tail")));
+        metrics.close();
+        assertFalse(MBEAN_SERVER.isRegistered(given_the_task_mbean("venafi", "tail")));
+    }
+
+    @Test
+    void as_a_task_I_want_to_see_throughput_fill_ratio_and_lag() throws Exception {
+        metrics = new TppLogSourceMetrics("venafi", URL, "backfill-0", 1000);
+        metrics.bindBatchSizes(BatchSizeController.fixed(100, 0L));
+
+        metrics.recordFetch(100, 50, TimeUnit.MILLISECONDS.toNanos(30), TimeUnit.MILLISECONDS.toNanos(10), 2048);
+        metrics.recordConversion(50, TimeUnit.MILLISECONDS.toNanos(5), TimestampParser.toEpochNanos(ZonedDateTime.now().minusMinutes(1)));
+
+        ObjectName mbean = given_the_task_mbean("venafi", "backfill-0");
+        assertEquals(50d, then_the_attribute_is(mbean, "records-total"));
+        assertEquals(2048d, then_the_attribute_is(mbean, "bytes-total"));
+        assertEquals(0.5d, then_the_attribute_is(mbean, "page-fill-ratio-avg"));
+        assertEquals(20d, then_the_attribute_is(mbean, "http-time-ms-max"), 0.001d);
+        assertEquals(10d, then_the_attribute_is(mbean, "decode-time-ms-max"), 0.001d);
+        assertEquals(100d, then_the_attribute_is(mbean, "batch-size"));
+        double lagMs = then_the_attribute_is(mbean, "event-lag-ms");
+        assertTrue(lagMs >= TimeUnit.MINUTES.toMillis(1) && lagMs < TimeUnit.MINUTES.toMillis(2), "Lag was " + lagMs);
+    }
+
+    private ObjectName given_the_task_mbean(String connector, String task) throws Exception {
+        return new ObjectName(TppLogSourceMetrics.JMX_PREFIX + ":type=" + TppLogSourceMetrics.GROUP
+                + ",connector=" + connector + ",url=" + ObjectName.quote(URL) + ",task=" + task);
+    }
+
+    private double then_the_attribute_is(ObjectName mbean, String attribute) throws Exception {
+        return (Double) MBEAN_SERVER.getAttribute(mbean, attribute);
+    }
+}
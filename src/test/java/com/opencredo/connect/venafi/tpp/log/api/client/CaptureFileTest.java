@@ -0,0 +1,95 @@
+package com.opencredo.connect.venafi.tpp.log.api.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaptureFileTest {
+
+    private static final Map<String, Collection<String>> HEADERS = Collections.singletonMap("Retry-After", Collections.singletonList("30"));
+
+    private Path dir;
+
+    @BeforeEach
+    void setup() throws IOException {
+        dir = Files.createTempDirectory("tppcap");
+    }
+
+    @AfterEach
+    void shutdown() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    void as_a_developer_I_want_sessions_appended_to_one_timeline() throws IOException {
+        Path file = dir.resolve("tail" + CaptureFile.EXTENSION);
+        given_a_session_with_exchanges(file, "/vedsdk/Log?OFFSET=0", "/vedsdk/Log?OFFSET=1");
+        given_a_session_with_exchanges(file, "/vedsdk/Log?OFFSET=2");
+
+        List<CaptureFile.Exchange> exchanges = CaptureFile.read(file);
+
+        assertEquals(3, exchanges.size());
+        assertEquals("/vedsdk/Log?OFFSET=2", exchanges.get(2).path);
+        assertEquals("30", exchanges.get(0).headers.get("Retry-After").iterator().next());
+        assertEquals("{}", new String(exchanges.get(1).body, StandardCharsets.UTF_8));
+        assertTrue(exchanges.get(2).startNanos >= exchanges.get(1).startNanos + exchanges.get(1).durationNanos);
+    }
+
+    @Test
+    void as_a_developer_I_want_a_capture_cut_short_to_still_be_read() throws IOException {
+        Path file = dir.resolve("tail" + CaptureFile.EXTENSION);
+        given_a_session_with_exchanges(file, "/vedsdk/Log?OFFSET=0", "/vedsdk/Log?OFFSET=1");
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+
+        List<CaptureFile.Exchange> exchanges = CaptureFile.read(file);
+
+        assertEquals(1, exchanges.size());
+        assertEquals("/vedsdk/Log?OFFSET=0", exchanges.get(0).path);
+    }
+
+    @Test
+    void as_a_developer_I_want_a_session_after_a_torn_entry_to_still_be_read() throws IOException {
+        Path file = dir.resolve("tail" + CaptureFile.EXTENSION);
+        given_a_session_with_exchanges(file, "/vedsdk/Log?OFFSET=0", "/vedsdk/Log?OFFSET=1");
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(raf.length() - 20);
+        }
+        given_a_session_with_exchanges(file, "/vedsdk/Log?OFFSET=1", "/vedsdk/Log?OFFSET=2");
+
+        List<CaptureFile.Exchange> exchanges = CaptureFile.read(file);
+
+        assertEquals(3, exchanges.size());
+        assertEquals("/vedsdk/Log?OFFSET=0", exchanges.get(0).path);
+        assertEquals("/vedsdk/Log?OFFSET=1", exchanges.get(1).path);
+        assertEquals("/vedsdk/Log?OFFSET=2", exchanges.get(2).path);
+        assertEquals("{}", new String(exchanges.get(2).body, StandardCharsets.UTF_8));
+    }
+
+    private void given_a_session_with_exchanges(Path file, String... paths) throws IOException {
+        try (CaptureFile.Writer writer = CaptureFile.append(file)) {
+            for (String path : paths) {
+                writer.write(System.nanoTime(), 1_000_000L, "GET", path, 429, "Too Many Requests", HEADERS, "{}".getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+}
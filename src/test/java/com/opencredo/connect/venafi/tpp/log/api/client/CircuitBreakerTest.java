@@ -0,0 +1,81 @@
+package com.opencredo.connect.venafi.tpp.log.api.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final long INITIAL_BACKOFF_MS = 1000L;
+    private static final long MAX_BACKOFF_MS = 8000L;
+
+    @Test
+    void as_a_breaker_I_want_to_back_off_exponentially_with_jitter() {
+        CircuitBreaker breaker = given_a_breaker_with_threshold(100);
+
+        for (int failures = 1; failures <= 6; failures++) {
+            breaker.onFailure(0L);
+            long expected = Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << (failures - 1));
+            long remaining = breaker.getBackoffRemainingMs();
+            assertTrue(remaining <= expected, "Backoff " + remaining + " longer than " + expected);
+            assertTrue(remaining >= expected / 2 - 50, "Backoff " + remaining + " shorter than half of " + expected);
+            assertFalse(breaker.allowRequest());
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void as_a_breaker_I_want_to_wait_at_least_as_long_as_retry_after() {
+        CircuitBreaker breaker = given_a_breaker_with_threshold(5);
+
+        breaker.onFailure(60_000L);
+
+        assertTrue(breaker.getBackoffRemainingMs() > MAX_BACKOFF_MS);
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    void as_a_breaker_I_want_to_open_after_repeated_failures_and_close_after_a_successful_trial() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, 1L, 1L);
+
+        breaker.onFailure(0L);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onFailure(0L);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1L, breaker.getTimesOpened());
+
+        when_the_backoff_has_passed(breaker);
+        assertTrue(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getConsecutiveFailures());
+        assertEquals(2L, breaker.getTotalFailures());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void as_a_breaker_I_want_to_open_again_if_the_trial_fails() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 1L, 1L);
+
+        breaker.onFailure(0L);
+        when_the_backoff_has_passed(breaker);
+        assertTrue(breaker.allowRequest());
+        breaker.onFailure(0L);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1L, breaker.getTimesOpened());
+    }
+
+    private CircuitBreaker given_a_breaker_with_threshold(int failureThreshold) {
+        return new CircuitBreaker("test", failureThreshold, INITIAL_BACKOFF_MS, MAX_BACKOFF_MS);
+    }
+
+    private void when_the_backoff_has_passed(CircuitBreaker breaker) throws InterruptedException {
+        while (breaker.getBackoffRemainingMs() > 0) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.opencredo.connect.venafi.tpp.log.api.client;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.opencredo.connect.venafi.tpp.log.model.OutputFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LogsClientTest {
+
+    private static final String LOG_API_REGEX_PATH = "/vedsdk/[Ll]og/?";
+
+    private final WireMockServer wireMockServer = new WireMockServer(new WireMockConfiguration().dynamicPort());
+    private HttpTransport transport;
+
+    @BeforeEach
+    void setup() {
+        wireMockServer.start();
+        transport = new HttpTransport(1000, 1000, 1);
+    }
+
+    @AfterEach
+    void shutdown() {
+        transport.close();
+        wireMockServer.stop();
+    }
+
+    @Test
+    void as_a_client_I_want_an_unauthorized_trial_request_to_let_the_next_request_through() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 1L, 1L);
+        LogsClient client = new LogsClient(wireMockServer.baseUrl(), transport, breaker, OutputFormat.STRUCT, Collections.emptySet(), Collections.emptyMap(), 0L);
+
+        given_the_log_api_will_answer(500);
+        when_logs_are_requested(client);
+        assertEquals(LogsClient.Outcome.FAILED, client.getLastOutcome());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        when_the_backoff_has_passed(breaker);
+        given_the_log_api_will_answer(401);
+        when_logs_are_requested(client);
+        assertEquals(LogsClient.Outcome.UNAUTHORIZED, client.getLastOutcome());
+
+        given_the_log_api_will_answer_with_no_events();
+        when_logs_are_requested(client);
+        assertEquals(LogsClient.Outcome.OK, client.getLastOutcome());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        wireMockServer.verify(3, getRequestedFor(urlPathMatching(LOG_API_REGEX_PATH)));
+    }
+
+    private void given_the_log_api_will_answer(int status) {
+        wireMockServer.resetMappings();
+        wireMockServer.stubFor(get(urlPathMatching(LOG_API_REGEX_PATH)).willReturn(aResponse().withStatus(status)));
+    }
+
+    private void given_the_log_api_will_answer_with_no_events() {
+        wireMockServer.resetMappings();
+        wireMockServer.stubFor(get(urlPathMatching(LOG_API_REGEX_PATH)).willReturn(okJson("{\"LogEvents\": []}")));
+    }
+
+    private void when_logs_are_requested(LogsClient client) {
+        client.getLogs("token", "2019-01-01T00:00:00.0000000Z", null, "10", 0L);
+    }
+
+    private void when_the_backoff_has_passed(CircuitBreaker breaker) throws InterruptedException {
+        while (breaker.getBackoffRemainingMs() > 0) {
+            Thread.sleep(1);
+        }
+    }
+}
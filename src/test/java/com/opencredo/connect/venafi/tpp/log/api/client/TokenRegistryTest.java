@@ -0,0 +1,162 @@
+package com.opencredo.connect.venafi.tpp.log.api.client;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRegistryTest {
+
+    public static final String AUTHORIZE_API_REGEX_PATH = "/vedauth/[Aa]uthorize/?";
+    public static final String AUTHORIZE_REFRESH_API_REGEX_PATH = "/vedauth/[Aa]uthorize/token?";
+    public static final int TASKS = 8;
+
+    private final WireMockServer wireMockServer = new WireMockServer(
+            new WireMockConfiguration().dynamicPort()
+                    .extensions(new ResponseTemplateTransformer(false))
+    );
+    private final List<TokenClient> acquired = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        wireMockServer.start();
+    }
+
+    @AfterEach
+    void shutdown() {
+        acquired.forEach(TokenRegistry::release);
+        wireMockServer.stop();
+    }
+
+    @Test
+    void as_a_registry_I_want_tasks_with_the_same_login_to_share_a_client() {
+        int before = TokenRegistry.size();
+        TokenClient first = given_a_client_is_acquired_with_scope("any");
+        TokenClient second = given_a_client_is_acquired_with_scope("any");
+        TokenClient otherScope = given_a_client_is_acquired_with_scope("certificate:manage");
+        TokenClient otherPassword = given_a_client_is_acquired_with("any", "rotated_password");
+
+        assertSame(first, second);
+        assertNotSame(first, otherScope);
+        assertNotSame(first, otherPassword);
+        assertEquals(before + 3, TokenRegistry.size());
+
+        when_the_clients_are_released(first, otherScope, otherPassword);
+        assertEquals(before + 1, TokenRegistry.size());
+        when_the_clients_are_released(second);
+        assertEquals(before, TokenRegistry.size());
+    }
+
+    @Test
+    void as_a_registry_I_want_concurrent_tasks_to_wait_for_one_auth_call() throws Exception {
+        given_the_mock_will_respond_to_auth_slowly_with_a_token_expiring_in(3600);
+        TokenClient client = given_a_client_is_acquired_with_scope("any");
+
+        ExecutorService tasks = Executors.newFixedThreadPool(TASKS);
+        List<Future<String>> tokens = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            tokens.add(tasks.submit(client::getToken));
+        }
+        Set<String> distinctTokens = ConcurrentHashMap.newKeySet();
+        for (Future<String> token : tokens) {
+            distinctTokens.add(token.get(10, TimeUnit.SECONDS));
+        }
+        tasks.shutdown();
+
+        assertEquals(1, distinctTokens.size());
+        assertFalse(distinctTokens.contains(""));
+        wireMockServer.verify(1, postRequestedFor(urlPathMatching(AUTHORIZE_API_REGEX_PATH)));
+    }
+
+    @Test
+    void as_a_registry_I_want_tokens_refreshed_before_they_expire() throws InterruptedException {
+        long expiresInSeconds = 4;
+        given_the_mock_will_respond_to_auth_slowly_with_a_token_expiring_in(expiresInSeconds);
+        given_the_mock_will_respond_to_auth_refresh();
+        TokenClient client = given_a_client_is_acquired_with_scope("any");
+
+        String token = client.getToken();
+        String refreshedToken = then_the_token_is_refreshed_within(client, token, TimeUnit.SECONDS.toMillis(expiresInSeconds - 1));
+
+        assertNotEquals(token, refreshedToken);
+        wireMockServer.verify(1, postRequestedFor(urlPathMatching(AUTHORIZE_REFRESH_API_REGEX_PATH)));
+        wireMockServer.verify(1, postRequestedFor(urlPathMatching(AUTHORIZE_API_REGEX_PATH)));
+    }
+
+    @Test
+    void as_a_registry_I_want_short_lived_tokens_refreshed_halfway_rather_than_over_and_over() throws InterruptedException {
+        given_the_mock_will_respond_to_auth_slowly_with_a_token_expiring_in(6);
+        given_the_mock_will_respond_to_auth_refresh_with_a_token_expiring_in(6);
+        TokenClient client = given_a_client_is_acquired_with_scope("any");
+
+        String token = client.getToken();
+        String refreshedToken = then_the_token_is_refreshed_within(client, token, TimeUnit.SECONDS.toMillis(4));
+        Thread.sleep(1_000);
+
+        assertNotEquals(token, refreshedToken);
+        assertEquals(1L, client.getRefreshes());
+        wireMockServer.verify(1, postRequestedFor(urlPathMatching(AUTHORIZE_REFRESH_API_REGEX_PATH)));
+    }
+
+    private TokenClient given_a_client_is_acquired_with_scope(String scope) {
+        return given_a_client_is_acquired_with(scope, "placeholder_password");
+    }
+
+    private TokenClient given_a_client_is_acquired_with(String scope, String password) {
+        TokenClient client = TokenRegistry.acquire(wireMockServer.baseUrl(), "placeholder_username", password, scope, "venafi-kafka-connect-logs-test", 1000, 5000, new CircuitBreaker("auth", 5, 1000, 10000));
+        acquired.add(client);
+        return client;
+    }
+
+    private void when_the_clients_are_released(TokenClient... clients) {
+        for (TokenClient client : clients) {
+            TokenRegistry.release(client);
+            acquired.remove(client);
+        }
+    }
+
+    private String then_the_token_is_refreshed_within(TokenClient client, String token, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        String current;
+        while ((current = client.getToken()).equals(token)) {
+            assertTrue(System.currentTimeMillis() < deadline, "No background refresh within " + timeoutMs + " ms");
+            Thread.sleep(50);
+        }
+        return current;
+    }
+
+    private void given_the_mock_will_respond_to_auth_slowly_with_a_token_expiring_in(long seconds) {
+        wireMockServer.stubFor(post(urlPathMatching(AUTHORIZE_API_REGEX_PATH))
+                .willReturn(okJson(tokenBody(seconds)).withFixedDelay(200).withTransformers("response-template")));
+    }
+
+    private void given_the_mock_will_respond_to_auth_refresh() {
+        given_the_mock_will_respond_to_auth_refresh_with_a_token_expiring_in(3600);
+    }
+
+    private void given_the_mock_will_respond_to_auth_refresh_with_a_token_expiring_in(long seconds) {
+        wireMockServer.stubFor(post(urlPathMatching(AUTHORIZE_REFRESH_API_REGEX_PATH))
+                .willReturn(okJson(tokenBody(seconds)).withTransformers("response-template")));
+    }
+
+    private String tokenBody(long expiresInSeconds) {
+        long now = Instant.now().getEpochSecond();
+        return "{\n" +
+                "    \"access_token\": \"{{randomValue length=24 type='ALPHANUMERIC'}}\",\n" +
+                "    \"expires\": " + (now + expiresInSeconds) + ",\n" +
+                "    \"refresh_token\": \"{{randomValue length=24 type='ALPHANUMERIC'}}\",\n" +
+                "    \"refresh_until\": " + (now + 7200) + "\n" +
+                "}";
+    }
+}
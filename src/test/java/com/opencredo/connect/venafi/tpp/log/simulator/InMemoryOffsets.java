@@ -0,0 +1,58 @@
+package com.opencredo.connect.venafi.tpp.log.simulator;
+
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.source.SourceTaskContext;
+import org.apache.kafka.connect.storage.OffsetStorageReader;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stands in for the worker's offset store: remembers the source offset of the last record of each partition it is
+ * given, as committing them would, and hands them back to a task started with it as its context.
+ */
+public class InMemoryOffsets implements SourceTaskContext, OffsetStorageReader {
+
+    private final Map<Map<String, Object>, Map<String, Object>> offsets = new ConcurrentHashMap<>();
+
+    public void commit(List<SourceRecord> records) {
+        for (SourceRecord record : records) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> partition = (Map<String, Object>) record.sourcePartition();
+            @SuppressWarnings("unchecked")
+            Map<String, Object> offset = (Map<String, Object>) record.sourceOffset();
+            offsets.put(partition, offset);
+        }
+    }
+
+    @Override
+    public Map<String, String> configs() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public OffsetStorageReader offsetStorageReader() {
+        return this;
+    }
+
+    @Override
+    public <T> Map<String, Object> offset(Map<String, T> partition) {
+        return offsets.get(partition);
+    }
+
+    @Override
+    public <T> Map<Map<String, T>, Map<String, Object>> offsets(Collection<Map<String, T>> partitions) {
+        Map<Map<String, T>, Map<String, Object>> found = new HashMap<>();
+        for (Map<String, T> partition : partitions) {
+            Map<String, Object> offset = offsets.get(partition);
+            if (offset != null) {
+                found.put(partition, offset);
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,134 @@
+package com.opencredo.connect.venafi.tpp.log.simulator;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An endless, or bounded, TPP log computed from the position of each event instead of stored, so a simulator can
+ * serve millions of events without holding them. Events are ordered by ServerTimestamp and Id; every
+ * {@code eventsPerTimestamp} consecutive events share a ServerTimestamp, as in the bursts TPP logs.
+ * A live stream only shows the events whose ServerTimestamp has passed.
+ */
+public class SyntheticEventStream {
+
+    static final DateTimeFormatter TPP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSS").withZone(ZoneOffset.UTC);
+    //TPP timestamps have a precision of 100ns.
+    private static final long TPP_TICK_NANOS = 100L;
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static final String[][] EVENT_TYPES = {
+            {"Log - SMTP Configuration Error", "Notice", "\\\\VED\\\\Logging\\\\Channels\\\\Templates\\\\Email to Consumer", "Config", "10006"},
+            {"Certificate Revocation - CRL Failure", "Info", "\\\\VED\\\\Policy\\\\Certificates\\\\traininglab-Root-CA", "Config", "1C0008"},
+            {"Certificate Monitor - Certificate Expiring", "Warning", "\\\\VED\\\\Policy\\\\Certificates\\\\www.example.com", "CertificateMonitor", "320008"},
+            {"Session - Login Success", "Info", "\\\\VED\\\\Identity\\\\local:admin", "Session", "200003"},
+    };
+
+    private final long startNanos;
+    private final long tickNanos;
+    private final int eventsPerTimestamp;
+    private final long totalEvents;
+    private final boolean live;
+    private final String data;
+
+    /**
+     * @param start              ServerTimestamp of the first event.
+     * @param eventsPerSecond    rate events are logged at, which spaces out their timestamps.
+     * @param eventsPerTimestamp events sharing each ServerTimestamp.
+     * @param totalEvents        events in the log, {@link Long#MAX_VALUE} for no end.
+     * @param dataSize           characters of the Data field of each event, 0 for null.
+     * @param live               only show events whose ServerTimestamp has passed.
+     */
+    public SyntheticEventStream(Instant start, double eventsPerSecond, int eventsPerTimestamp, long totalEvents, int dataSize, boolean live) {
+        this.startNanos = start.getEpochSecond() * NANOS_PER_SECOND + start.getNano() / TPP_TICK_NANOS * TPP_TICK_NANOS;
+        long tick = (long) (NANOS_PER_SECOND * eventsPerTimestamp / eventsPerSecond);
+        this.tickNanos = Math.max(TPP_TICK_NANOS, tick / TPP_TICK_NANOS * TPP_TICK_NANOS);
+        this.eventsPerTimestamp = eventsPerTimestamp;
+        this.totalEvents = totalEvents;
+        this.live = live;
+        this.data = dataSize == 0 ? null : data(dataSize);
+    }
+
+    /**
+     * A backlog of events with one ServerTimestamp every millisecond, read as fast as the connector can.
+     */
+    public static SyntheticEventStream backlog(long totalEvents, int eventsPerTimestamp, int dataSize) {
+        return new SyntheticEventStream(Instant.parse("2019-10-17T15:23:06.9830000Z"), 1000d * eventsPerTimestamp, eventsPerTimestamp, totalEvents, dataSize, false);
+    }
+
+    public long getTotalEvents() {
+        return totalEvents;
+    }
+
+    public long timestampNanos(long index) {
+        return startNanos + index / eventsPerTimestamp * tickNanos;
+    }
+
+    /**
+     * @return the index of the first event logged at or after the given time.
+     */
+    public long firstIndexFrom(long epochNanos) {
+        if (epochNanos <= startNanos) {
+            return 0L;
+        }
+        long ticks = (epochNanos - startNanos + tickNanos - 1) / tickNanos;
+        return cap(ticks, eventsPerTimestamp);
+    }
+
+    /**
+     * @return the index after the last event visible at the given time.
+     */
+    public long visibleEnd(long nowEpochNanos) {
+        if (!live) {
+            return totalEvents;
+        }
+        if (nowEpochNanos < startNanos) {
+            return 0L;
+        }
+        return cap((nowEpochNanos - startNanos) / tickNanos + 1, eventsPerTimestamp);
+    }
+
+    private long cap(long ticks, long eventsPerTick) {
+        if (ticks > totalEvents / eventsPerTick) {
+            return totalEvents;
+        }
+        return Math.min(totalEvents, ticks * eventsPerTick);
+    }
+
+    /**
+     * Appends the event at the given index as TPP serialises it.
+     */
+    public void appendEvent(StringBuilder json, long index) {
+        String[] type = EVENT_TYPES[(int) (index % EVENT_TYPES.length)];
+        String timestamp = TPP_FORMAT.format(Instant.ofEpochSecond(0L, timestampNanos(index)));
+        json.append("{\"ClientTimestamp\":\"").append(timestamp)
+                .append("\",\"Component\":\"").append(type[2])
+                .append("\",\"ComponentId\":").append(100 + index % 50)
+                .append(",\"ComponentSubsystem\":\"").append(type[3])
+                .append("\",\"Data\":");
+        if (data == null) {
+            json.append("null");
+        } else {
+            json.append('"').append(data).append('"');
+        }
+        json.append(",\"EventId\":\"").append(type[4])
+                .append("\",\"Grouping\":").append(index % 8)
+                .append(",\"Id\":").append(index + 1)
+                .append(",\"Name\":\"").append(type[0])
+                .append("\",\"ServerTimestamp\":\"").append(timestamp)
+                .append("\",\"Severity\":\"").append(type[1])
+                .append("\",\"SourceIP\":\"10.0.").append(index % 256)
+                .append(".1\",\"Text1\":\"CN=traininglab-Root-CA\",\"Text2\":null,\"Value1\":")
+                .append(index % 2).append(",\"Value2\":0}");
+    }
+
+    private static String data(int dataSize) {
+        StringBuilder data = new StringBuilder(dataSize);
+        while (data.length() < dataSize) {
+            data.append("<attribute name='Certificate' value='MIIDdzCCAl+gAwIBAgIEAgAAuTANBgkqhkiG9w0BAQUFADBa'/>");
+        }
+        data.setLength(dataSize);
+        return data.toString();
+    }
+}
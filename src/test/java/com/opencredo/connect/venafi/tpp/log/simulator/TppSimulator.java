@@ -0,0 +1,276 @@
+package com.opencredo.connect.venafi.tpp.log.simulator;
+
+import com.opencredo.connect.venafi.tpp.log.Deserializer.TimestampParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.opencredo.connect.venafi.tpp.log.api.TppLog.*;
+
+/**
+ * An in-process TPP serving /vedauth/authorize, /vedauth/authorize/token and /vedsdk/Log over a
+ * {@link SyntheticEventStream}, for tests and throughput runs that can't reach a real TPP. Log requests honour
+ * FromTime (inclusive), ToTime (exclusive), Limit, OFFSET and Order, which must be ServerTimestamp.
+ * Latency and failed requests can be injected; tokens expire and must be refreshed like real ones.
+ */
+public class TppSimulator implements Closeable {
+
+    private static final String AUTHORIZE_PATH = "/vedauth/authorize";
+    private static final String REFRESH_PATH = "/vedauth/authorize/token";
+    private static final String LOG_PATH = "/vedsdk/log";
+    private static final int DEFAULT_LIMIT = 100;
+
+    private final SyntheticEventStream events;
+    private final Map<String, Long> tokenExpiries = new ConcurrentHashMap<>();
+    private final AtomicLong authorizeRequests = new AtomicLong();
+    private final AtomicLong refreshRequests = new AtomicLong();
+    private final AtomicLong logRequests = new AtomicLong();
+    private final AtomicLong eventsServed = new AtomicLong();
+    private final AtomicLong bytesServed = new AtomicLong();
+    private final AtomicLong failuresInjected = new AtomicLong();
+    private long latencyMs;
+    private long latencyJitterMs;
+    private double failureRate;
+    private int failureStatus = 503;
+    private int retryAfterSeconds;
+    private long tokenLifetimeSeconds = TimeUnit.HOURS.toSeconds(1);
+    private int threads = 4;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public TppSimulator(SyntheticEventStream events) {
+        this.events = events;
+    }
+
+    /**
+     * Delays every response by the given time plus up to the jitter.
+     */
+    public TppSimulator withLatency(long latencyMs, long latencyJitterMs) {
+        this.latencyMs = latencyMs;
+        this.latencyJitterMs = latencyJitterMs;
+        return this;
+    }
+
+    /**
+     * Fails the given share of log requests with the status, and a Retry-After header if retryAfterSeconds is positive.
+     */
+    public TppSimulator withFailures(double failureRate, int failureStatus, int retryAfterSeconds) {
+        this.failureRate = failureRate;
+        this.failureStatus = failureStatus;
+        this.retryAfterSeconds = retryAfterSeconds;
+        return this;
+    }
+
+    public TppSimulator withTokenLifetime(long tokenLifetimeSeconds) {
+        this.tokenLifetimeSeconds = tokenLifetimeSeconds;
+        return this;
+    }
+
+    public TppSimulator withThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public TppSimulator start() throws IOException {
+        //Without it responses wait on delayed ACKs, as the JDK server writes the headers and body apart.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "tpp-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return this;
+    }
+
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    public long getAuthorizeRequests() {
+        return authorizeRequests.get();
+    }
+
+    public long getRefreshRequests() {
+        return refreshRequests.get();
+    }
+
+    public long getLogRequests() {
+        return logRequests.get();
+    }
+
+    public long getEventsServed() {
+        return eventsServed.get();
+    }
+
+    public long getBytesServed() {
+        return bytesServed.get();
+    }
+
+    public long getFailuresInjected() {
+        return failuresInjected.get();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            drain(body);
+            delay();
+            String path = exchange.getRequestURI().getPath().toLowerCase(Locale.ROOT);
+            if (path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+            String method = exchange.getRequestMethod();
+            if (REFRESH_PATH.equals(path) && "POST".equals(method)) {
+                refreshRequests.incrementAndGet();
+                respond(exchange, 200, grantToken());
+            } else if (AUTHORIZE_PATH.equals(path) && "POST".equals(method)) {
+                authorizeRequests.incrementAndGet();
+                respond(exchange, 200, grantToken());
+            } else if (LOG_PATH.equals(path) && "GET".equals(method)) {
+                logRequests.incrementAndGet();
+                serveLogs(exchange);
+            } else {
+                respond(exchange, 404, "{\"Error\":\"Not found\"}");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+        }
+    }
+
+    private void serveLogs(HttpExchange exchange) throws IOException {
+        if (!isAuthorized(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            respond(exchange, 401, "{\"Error\":\"Token is not valid. Try /vedauth/authorize or vedauth/authorize/token\"}");
+            return;
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            failuresInjected.incrementAndGet();
+            if (retryAfterSeconds > 0) {
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+            }
+            respond(exchange, failureStatus, "{\"Error\":\"Injected failure\"}");
+            return;
+        }
+
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        ZonedDateTime from = query.containsKey(FROM_TIME) ? TimestampParser.parseIsoDateTime(query.get(FROM_TIME)) : null;
+        ZonedDateTime to = query.containsKey(TO_TIME) ? TimestampParser.parseIsoDateTime(query.get(TO_TIME)) : null;
+        String order = query.getOrDefault(ORDER, ORDERING);
+        if (from == null || (query.containsKey(TO_TIME) && to == null) || !ORDERING.equalsIgnoreCase(order)) {
+            respond(exchange, 400, "{\"Error\":\"Invalid FromTime, ToTime or Order\"}");
+            return;
+        }
+        int limit = query.containsKey(LIMIT) ? Integer.parseInt(query.get(LIMIT)) : DEFAULT_LIMIT;
+        long offset = query.containsKey(OFFSET) ? Long.parseLong(query.get(OFFSET)) : 0L;
+
+        long end = events.visibleEnd(epochNanos(ZonedDateTime.now()));
+        if (to != null) {
+            end = Math.min(end, events.firstIndexFrom(epochNanos(to)));
+        }
+        long first = events.firstIndexFrom(epochNanos(from)) + offset;
+        long last = Math.min(end, first + limit);
+
+        StringBuilder json = new StringBuilder(512 * (int) Math.max(0, last - first) + 32);
+        json.append("{\"LogEvents\":[");
+        for (long index = first; index < last; index++) {
+            if (index > first) {
+                json.append(',');
+            }
+            events.appendEvent(json, index);
+        }
+        json.append("]}");
+        eventsServed.addAndGet(Math.max(0, last - first));
+        respond(exchange, 200, json.toString());
+    }
+
+    private boolean isAuthorized(String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return false;
+        }
+        Long expiry = tokenExpiries.get(authorization.substring("Bearer ".length()));
+        return expiry != null && expiry > System.currentTimeMillis();
+    }
+
+    private String grantToken() {
+        String accessToken = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        long expires = TimeUnit.MILLISECONDS.toSeconds(now) + tokenLifetimeSeconds;
+        tokenExpiries.put(accessToken, TimeUnit.SECONDS.toMillis(expires));
+        return "{\"access_token\":\"" + accessToken + "\",\"expires\":" + expires
+                + ",\"refresh_token\":\"" + UUID.randomUUID() + "\",\"refresh_until\":" + (expires + tokenLifetimeSeconds) + "}";
+    }
+
+    private void delay() throws InterruptedException {
+        long delayMs = latencyMs + (latencyJitterMs > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMs + 1) : 0L);
+        if (delayMs > 0) {
+            Thread.sleep(delayMs);
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        bytesServed.addAndGet(body.length);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0) {
+                //Like TPP, a + decodes to a space.
+                query.put(URLDecoder.decode(parameter.substring(0, equals), "UTF-8"), URLDecoder.decode(parameter.substring(equals + 1), "UTF-8"));
+            }
+        }
+        return query;
+    }
+
+    private static long epochNanos(ZonedDateTime dateTime) {
+        return TimeUnit.SECONDS.toNanos(dateTime.toEpochSecond()) + dateTime.getNano();
+    }
+
+    private static void drain(InputStream body) throws IOException {
+        byte[] buffer = new byte[1024];
+        while (body.read(buffer) >= 0) {
+            //Request bodies carry credentials, which the simulator accepts whatever they are.
+        }
+    }
+}